@@ -0,0 +1,70 @@
+package com.github.hangovers;
+
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Generates boards and command lists for the benchmarks, always with the same seed so that runs are comparable
+ */
+public final class BenchmarkData {
+
+    private static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @param width board width
+     * @param height board height
+     * @param count number of obstacles, duplicates are possible
+     * @return obstacles packed with {@link Coordinates#pack(int, int)}
+     */
+    public static long[] obstacles(int width, int height, int count) {
+        var random = new SplittableRandom(SEED);
+        var obstacles = new long[count];
+        for (int i = 0; i < count; i++) {
+            obstacles[i] = Coordinates.pack(random.nextInt(width), random.nextInt(height));
+        }
+        return obstacles;
+    }
+
+    /**
+     * @return board json in the board api format
+     */
+    public static String boardJson(int width, int height, int obstacles) {
+        var json = new StringBuilder(obstacles * 20 + 64)
+                .append("{\"width\":").append(width)
+                .append(",\"height\":").append(height)
+                .append(",\"obstacles\":[");
+        var packed = obstacles(width, height, obstacles);
+        for (int i = 0; i < packed.length; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"x\":").append(Coordinates.unpackX(packed[i]))
+                    .append(",\"y\":").append(Coordinates.unpackY(packed[i])).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * @return commands json in the commands api format, starting from the middle of the board
+     */
+    public static String commandsJson(int width, int height, int commands) {
+        var random = new Random(SEED);
+        var directions = Direction.values();
+        var json = new StringBuilder(commands * 16 + 64)
+                .append("{\"commands\":[\"START ").append(width / 2).append(',').append(height / 2).append(",NORTH\"");
+        for (int i = 1; i < commands; i++) {
+            json.append(",\"");
+            if (i % 2 == 0) {
+                json.append("ROTATE ").append(directions[random.nextInt(directions.length)]);
+            } else {
+                json.append("MOVE ").append(random.nextInt(3));
+            }
+            json.append('"');
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.hangovers;
+
+import com.github.hangovers.model.dto.Response;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole simulation as run from the command line: both documents fetched from a local stand-in of the apis,
+ * mapped and simulated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+
+    private static final int SIZE = 1_000;
+
+    @Param({"1000", "100000"})
+    public int count;
+
+    private HttpServer server;
+    private String boardUrl;
+    private String commandsUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        var board = BenchmarkData.boardJson(SIZE, SIZE, count).getBytes(StandardCharsets.UTF_8);
+        var commands = BenchmarkData.commandsJson(SIZE, SIZE, count).getBytes(StandardCharsets.UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/board.json", exchange -> {
+            try (exchange) {
+                exchange.sendResponseHeaders(200, board.length);
+                exchange.getResponseBody().write(board);
+            }
+        });
+        server.createContext("/commands.json", exchange -> {
+            try (exchange) {
+                exchange.sendResponseHeaders(200, commands.length);
+                exchange.getResponseBody().write(commands);
+            }
+        });
+        server.start();
+
+        var baseUrl = "http://localhost:" + server.getAddress().getPort();
+        boardUrl = baseUrl + "/board.json";
+        commandsUrl = baseUrl + "/commands.json";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Response simulate() {
+        return Main.simulate(boardUrl, commandsUrl);
+    }
+}
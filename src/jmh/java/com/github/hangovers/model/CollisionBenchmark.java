@@ -0,0 +1,56 @@
+package com.github.hangovers.model;
+
+import com.github.hangovers.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board.checkCollision on growing boards, with 1% of the cells (up to a million) being obstacles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+
+    private static final int LOOKUPS = 4_096;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    private Board board;
+    private Coordinates[] lookups;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var obstacles = (int) Math.min((long) size * size / 100, 1_000_000);
+        board = Board.of(size, size, BenchmarkData.obstacles(size, size, obstacles));
+
+        var random = new SplittableRandom(7);
+        lookups = new Coordinates[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = new Coordinates(random.nextInt(size), random.nextInt(size));
+        }
+    }
+
+    @Benchmark
+    public boolean checkCollision() {
+        return board.checkCollision(lookups[next++ & (LOOKUPS - 1)]);
+    }
+}
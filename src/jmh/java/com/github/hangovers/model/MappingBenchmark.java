@@ -0,0 +1,56 @@
+package com.github.hangovers.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hangovers.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson mapping of Board and CommandsList documents, from a thousand to a million obstacles/commands
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int count;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private String boardJson;
+    private String commandsJson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boardJson = BenchmarkData.boardJson(SIZE, SIZE, count);
+        commandsJson = BenchmarkData.commandsJson(SIZE, SIZE, count);
+    }
+
+    @Benchmark
+    public Board mapBoard() throws IOException {
+        return mapper.readValue(boardJson, Board.class);
+    }
+
+    @Benchmark
+    public CommandsList mapCommands() throws IOException {
+        return mapper.readValue(commandsJson, CommandsList.class);
+    }
+}
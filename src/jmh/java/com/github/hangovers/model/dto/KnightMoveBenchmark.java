@@ -0,0 +1,78 @@
+package com.github.hangovers.model.dto;
+
+import com.github.hangovers.BenchmarkData;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long MOVE commands on sparse and dense boards
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KnightMoveBenchmark {
+
+    private static final int SIZE = 4_000;
+    private static final int POSITIONS = 1_024;
+
+    // obstacles per thousand cells
+    @Param({"1", "100"})
+    public int density;
+
+    @Param({"1000", "1000000"})
+    public int steps;
+
+    private Board board;
+    private Coordinates[] starts;
+    private Direction[] directions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Board.of(SIZE, SIZE, BenchmarkData.obstacles(SIZE, SIZE, (int) ((long) SIZE * SIZE * density / 1000)));
+
+        var random = new SplittableRandom(7);
+        starts = new Coordinates[POSITIONS];
+        directions = new Direction[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            Coordinates start;
+            do {
+                start = new Coordinates(random.nextInt(SIZE), random.nextInt(SIZE));
+            } while (board.checkCollision(start));
+            starts[i] = start;
+            directions[i] = Direction.values()[random.nextInt(4)];
+        }
+    }
+
+    @Benchmark
+    public Coordinates move() {
+        var index = next++ & (POSITIONS - 1);
+        var position = new KnightPosition(starts[index], directions[index]);
+        try {
+            position.move(steps, board);
+        } catch (IOException e) {
+            // out of the board is a valid outcome too
+        }
+        return position.getCoordinates();
+    }
+}
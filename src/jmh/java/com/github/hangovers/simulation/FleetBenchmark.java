@@ -0,0 +1,80 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.BenchmarkData;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fleet of knights following the same commands, vector and scalar kernels
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class FleetBenchmark {
+
+    private static final int SIZE = 4_000;
+    private static final int KNIGHTS = 1_000_000;
+
+    // obstacles per thousand cells
+    @Param({"0", "10"})
+    public int density;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private Board board;
+    private int[] startX;
+    private int[] startY;
+    private Direction[] startDirections;
+    private List<String> commands;
+    private FleetKernel fleetKernel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Board.of(SIZE, SIZE, BenchmarkData.obstacles(SIZE, SIZE, (int) ((long) SIZE * SIZE * density / 1000)));
+        fleetKernel = kernel.equals("vector") ? FleetKernel.best() : new ScalarFleetKernel();
+
+        var random = new SplittableRandom(7);
+        startX = new int[KNIGHTS];
+        startY = new int[KNIGHTS];
+        startDirections = new Direction[KNIGHTS];
+        for (int i = 0; i < KNIGHTS; i++) {
+            startX[i] = random.nextInt(SIZE);
+            startY[i] = random.nextInt(SIZE);
+            startDirections[i] = Direction.values()[random.nextInt(4)];
+        }
+
+        commands = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            commands.add("ROTATE " + Direction.values()[i % 4]);
+            commands.add("MOVE " + (1 + random.nextInt(3)));
+        }
+    }
+
+    @Benchmark
+    public FleetSimulation fleet() {
+        var fleet = new FleetSimulation(board, startX, startY, startDirections, fleetKernel);
+        fleet.run(commands);
+        return fleet;
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ten million commands on small boards, sequential interpreter and parallel segment evaluation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelEvaluatorBenchmark {
+
+    private static final int COMMANDS = 10_000_000;
+
+    @Param({"8", "16"})
+    public int size;
+
+    private Board board;
+    private CommandProgram program;
+    private ParallelEvaluator evaluator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Board.of(size, size, new long[0]);
+
+        // squares starting and ending at the origin, so that the knight walks the whole list without leaving the board
+        var random = new SplittableRandom(7);
+        var commands = new ArrayList<String>(COMMANDS + 1);
+        commands.add("START 0,0,NORTH");
+        while (commands.size() < COMMANDS) {
+            var side = 1 + random.nextInt(size - 1);
+            for (Direction direction : Direction.values()) {
+                commands.add("ROTATE " + direction);
+                commands.add("MOVE " + side);
+            }
+        }
+        program = CommandOptimizer.optimize(CommandCompiler.compile(commands));
+        // at least 2 cores, so that single core machines still measure the parallel path; bigger boards fall back to
+        // sequential execution when cells x segments exceeds the budget of the program
+        evaluator = new ParallelEvaluator(Math.max(2, ForkJoinPool.getCommonPoolParallelism()), 1);
+    }
+
+    @Benchmark
+    public Response sequential() {
+        return program.execute(board);
+    }
+
+    @Benchmark
+    public Response parallel() {
+        return evaluator.execute(program, board);
+    }
+}
@@ -1,153 +1,390 @@
 package com.github.hangovers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.hangovers.client.ApiClient;
+import com.github.hangovers.client.BoardCache;
+import com.github.hangovers.client.FetchPolicy;
+import com.github.hangovers.client.RangeTileSource;
+import com.github.hangovers.codec.JsonCodec;
+import com.github.hangovers.loadtest.LoadGenerator;
+import com.github.hangovers.loadtest.LoadTestConfig;
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.metrics.Recordings;
 import com.github.hangovers.model.Board;
+import com.github.hangovers.model.BoardFile;
+import com.github.hangovers.model.BoardTiles;
 import com.github.hangovers.model.CommandsList;
 import com.github.hangovers.model.Coordinates;
-import com.github.hangovers.model.Direction;
-import com.github.hangovers.model.dto.KnightPosition;
+import com.github.hangovers.model.TiledBoardFile;
 import com.github.hangovers.model.dto.Response;
 import com.github.hangovers.model.dto.Status;
+import com.github.hangovers.query.PathFinder;
+import com.github.hangovers.server.SimulationServer;
+import com.github.hangovers.simulation.BatchSimulation;
+import com.github.hangovers.simulation.StreamingSimulation;
+import com.github.hangovers.trace.PathTraceReader;
+import com.github.hangovers.trace.PathTraceWriter;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
-    private static final ObjectMapper mapper = new ObjectMapper();
+    // JSON_CODEC=jackson maps everything with Jackson's ObjectMapper instead of the reflection-free codec
+    private static final JsonCodec codec = new JsonCodec(!"jackson".equalsIgnoreCase(System.getenv("JSON_CODEC")));
+    private static final Duration DEFAULT_BOARD_CACHE_TTL = Duration.ofMinutes(5);
+    private static final int BOARD_CACHE_ENTRIES = 16;
 
-    public static void main(String[] args) throws JsonProcessingException {
+    public static void main(String[] args) throws IOException {
+
+        // Flight recording of the whole run, with the KnightsPath events enabled
+        startRecording();
+
+        // Server mode, simulations are requested over http instead of being fetched from env variables
+        if (args.length > 0 && args[0].equals("--serve")) {
+            Metrics.registerMBean();
+            SimulationServer.start(args.length > 1 ? Integer.parseInt(args[1]) : SimulationServer.DEFAULT_PORT);
+            return;
+        }
+
+        // Training run, exercises the command line flow against a local stand-in of the APIs to build a CDS archive
+        if (args.length > 0 && args[0].equals("--train")) {
+            TrainingRun.run();
+            return;
+        }
+
+        // Load test, drives the whole flow against a local stand-in of the APIs and prints a json report
+        if (args.length > 0 && args[0].equals("--load-test")) {
+            loadTest(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Board conversion, a JSON board (file or url) is written in the memory-mappable binary format
+        if (args.length > 2 && args[0].equals("--convert-board")) {
+            convertBoard(args[1], Path.of(args[2]));
+            return;
+        }
+
+        // Board tiling, a JSON board (file or url) is written in the tiled format read with range requests from BOARD_TILES
+        if (args.length > 2 && args[0].equals("--tile-board")) {
+            TiledBoardFile.write(readBoard(args[1]), args.length > 3 ? Integer.parseInt(args[3]) : TiledBoardFile.DEFAULT_TILE_SIZE,
+                    Path.of(args[2]));
+            return;
+        }
+
+        // Trace export, a binary path trace written with TRACE_FILE is printed as json
+        if (args.length > 1 && args[0].equals("--export-trace")) {
+            PathTraceReader.exportJson(Files.newInputStream(Path.of(args[1])), System.out, codec.factory());
+            System.out.println();
+            return;
+        }
 
         // Env variables fetching
         var boardDataUrl = System.getenv("BOARD_API");
         var commandsDataUrl = System.getenv("COMMANDS_API");
 
+        // Batch mode, command lists are read from a NDJSON file ("-" for standard input) instead of COMMANDS_API
+        if (args.length > 1 && args[0].equals("--batch")) {
+            Metrics.registerMBean();
+            simulateBatch(boardDataUrl, args[1]);
+            writeMetrics();
+            return;
+        }
+
+        // Path mode, prints the shortest commands list taking the knight from one cell to another
+        if (args.length > 2 && args[0].equals("--path")) {
+            findPath(boardDataUrl, args[1], args[2]);
+            return;
+        }
+
+        // Output
+        outputResponse(simulate(boardDataUrl, commandsDataUrl));
+        writeMetrics();
+    }
+
+    /**
+     * Fetches board and commands, then executes all the commands on the board
+     * @param boardDataUrl url where board data is stored
+     * @param commandsDataUrl url where knight commands are stored
+     * @return knight's final position or the error that stopped the simulation
+     */
+    static Response simulate(String boardDataUrl, String commandsDataUrl) {
+
         // Env variables validation
-        validateEnvVariables(boardDataUrl, commandsDataUrl);
+        if (!validateEnvVariables(boardDataUrl, commandsDataUrl)) {
+            return new Response(null, Status.GENERIC_ERROR);
+        }
 
-        // Needed initializations
-        var client = new ApiClient();
-        Board board = null;
-        List<String> commands = List.of();
+        // Needed initializations, the client is shared with the board cache so that both fetches reuse its connections
+        var client = Shared.CLIENT;
 
         // Board and commands mapping
         try {
-            board = mapper.readValue(client.fetch(boardDataUrl), Board.class);
-            commands = mapper.readValue(client.fetch(commandsDataUrl), CommandsList.class).commands();
-        } catch (URISyntaxException | IOException | InterruptedException e) {
+            // Both documents are requested at the same time
+            var board = loadBoardAsync(client, boardDataUrl);
+            var commands = client.fetchStreamAsync(commandsDataUrl);
+
+            // Commands execution, while the commands list is still being downloaded
+            try (InputStream commandsJson = commands.get(); PathTraceWriter trace = pathTrace()) {
+                return new StreamingSimulation(codec.factory()).run(board.get(), commandsJson, trace);
+            }
+        } catch (URISyntaxException | IOException | UncheckedIOException | InterruptedException | ExecutionException e) {
             // Generic error if something goes wrong during mapping
-            outputErrorResponse(Status.GENERIC_ERROR);
+            return new Response(null, Status.GENERIC_ERROR);
         }
+    }
 
-        // Starting position logic and validation
-        var position = getStartingPosition(commands.getFirst());
-        validateStartingPosition(board, position);
+    /**
+     * Fetches the board once, then simulates every command list of the NDJSON input against it
+     * @param boardDataUrl url where board data is stored
+     * @param commandsPath NDJSON file with a command list for each line, "-" for standard input
+     * @throws IOException
+     */
+    private static void simulateBatch(String boardDataUrl, String commandsPath) throws IOException {
+        Board board;
+        try {
+            board = loadBoardAsync(Shared.CLIENT, boardDataUrl).get();
+        } catch (URISyntaxException | IOException | InterruptedException | ExecutionException | RuntimeException e) {
+            outputResponse(new Response(null, Status.GENERIC_ERROR));
+            return;
+        }
 
-        // Removal of starting position data in order to enable enhanced for loops usage
-        commands.removeFirst();
+        var output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (BufferedReader input = commandsPath.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(commandsPath))) {
+            new BatchSimulation(codec.mapper(), board, ForkJoinPool.commonPool()).run(input, output);
+        }
+    }
 
-        // Commands execution
-        executeCommands(commands, position, board);
+    /**
+     * Prints the shortest commands list between two cells, in the same format returned by the commands api
+     * @param boardDataUrl url where board data is stored
+     * @param from start cell, "x,y"
+     * @param to target cell, "x,y"
+     * @throws IOException
+     */
+    private static void findPath(String boardDataUrl, String from, String to) throws IOException {
+        List<String> commands;
+        try {
+            var board = loadBoardAsync(Shared.CLIENT, boardDataUrl).get();
+            commands = new PathFinder(board, 1).shortestPath(coordinates(from), coordinates(to));
+        } catch (URISyntaxException | IOException | InterruptedException | ExecutionException | RuntimeException e) {
+            commands = null;
+        }
 
-        // Output
-        outputSuccessResponse(position);
+        if (commands == null) {
+            // unreachable target, invalid cells or board
+            outputResponse(new Response(null, Status.GENERIC_ERROR));
+        } else {
+            System.out.println(codec.mapper().writeValueAsString(new CommandsList(commands)));
+        }
     }
 
-    //Knight movement logic
+    /**
+     * @param cell coordinates formatted as "x,y"
+     * @return parsed coordinates
+     * @throws NumberFormatException if the coordinates are not valid
+     */
+    private static Coordinates coordinates(String cell) {
+        var separator = cell.indexOf(',');
+        if (separator < 0) throw new NumberFormatException("Expected x,y: " + cell);
+        return new Coordinates(Integer.parseInt(cell.substring(0, separator).trim()),
+                Integer.parseInt(cell.substring(separator + 1).trim()));
+    }
 
     /**
-     * Initializes a KnightPosition object with starting position data or outputs a generic error if there are parsing problems in the command
-     * @param startingCommand command with starting position data, e.g. "START 1,0,NORTH"
-     * @return KnightPosition object
-     * @throws JsonProcessingException
+     * Boards are memory-mapped from BOARD_FILE when it's set, fetched a tile at a time from BOARD_TILES when that is
+     * set, fetched from the board api otherwise
+     * @param client client used to fetch board tiles, boards from the board api go through the process wide cache
+     * @param boardDataUrl url where board data is stored
+     * @return future completed with the board
+     * @throws URISyntaxException
+     * @throws IOException
      */
-    private static KnightPosition getStartingPosition(String startingCommand) throws JsonProcessingException {
-        if(startingCommand.startsWith("START ")) {
-            startingCommand = startingCommand.substring(6);
-            var startingPosition = startingCommand.split(",");
+    private static CompletableFuture<Board> loadBoardAsync(ApiClient client, String boardDataUrl) throws URISyntaxException, IOException {
+        var boardFile = System.getenv("BOARD_FILE");
+        if (boardFile != null && !boardFile.isBlank()) {
+            return CompletableFuture.completedFuture(BoardFile.map(Path.of(boardFile)));
+        }
+        var boardTiles = System.getenv("BOARD_TILES");
+        if (boardTiles != null && !boardTiles.isBlank()) {
+            return RangeTileSource.open(client, boardTiles, BoardTiles.DEFAULT_CACHED_TILES);
+        }
+        return Shared.BOARD_CACHE.getAsync(boardDataUrl);
+    }
 
-            return new KnightPosition(new Coordinates(Integer.parseInt(startingPosition[0]),
-                    Integer.parseInt(startingPosition[1])),
-                    Direction.valueOf(startingPosition[2]));
+    /**
+     * @param settings "key=value" load test settings, see {@link LoadTestConfig#parse(String...)}
+     * @throws IOException
+     */
+    private static void loadTest(String[] settings) throws IOException {
+        try {
+            new LoadGenerator(LoadTestConfig.parse(settings), new ApiClient(fetchPolicy()), codec).run()
+                    .writeJson(System.out, codec.factory());
+            System.out.println();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Load test interrupted", e);
         }
-        outputErrorResponse(Status.GENERIC_ERROR);
-        return null;
     }
 
     /**
-     * Execute all the commands in the list for movement and direction changes
-     * @param commands commands list
-     * @param position knight's position to be updated
-     * @param board board where the knight is moving
-     * @throws JsonProcessingException
+     * Converts a JSON board to the binary format read by {@link BoardFile#map(Path)}
+     * @param source JSON board, either a file path or an http(s) url
+     * @param destination binary board file
+     * @throws IOException
      */
-    private static void executeCommands(List<String> commands, KnightPosition position, Board board) throws JsonProcessingException {
-        for(String command: commands) {
-            if(command.startsWith("ROTATE")) {
-                position.rotate(Direction.valueOf(command.split(" ")[1]));
-                continue;
-            } else if (command.startsWith("MOVE")) {
-                try {
-                    position.move(Integer.parseInt(command.split(" ")[1]), board);
-                } catch(IOException e) {
-                    outputErrorResponse(Status.OUT_OF_THE_BOARD);
-                }
+    private static void convertBoard(String source, Path destination) throws IOException {
+        BoardFile.write(readBoard(source), destination);
+    }
+
+    /**
+     * @param source JSON board, either a file path or an http(s) or file url (gzip-compressed if it ends with .gz)
+     * @return parsed board
+     * @throws IOException
+     */
+    private static Board readBoard(String source) throws IOException {
+        try {
+            // both are parsed while they're decoded, without holding the json whole
+            if (source.startsWith("http://") || source.startsWith("https://") || source.startsWith("file:")) {
+                return codec.readBoard(new ApiClient().fetchIfModified(source, null, null)::open);
             }
+            return codec.readBoard(() -> Files.newInputStream(Path.of(source)));
+        } catch (URISyntaxException | InterruptedException e) {
+            throw new IOException("Board fetch failed", e);
         }
     }
 
-    // Validation logic
+    /**
+     * Knight's path is traced only if TRACE_FILE is set, see {@link PathTraceWriter} for the format
+     * @return trace writer, null if the path is not traced
+     * @throws IOException if the trace file can't be created
+     */
+    private static PathTraceWriter pathTrace() throws IOException {
+        var traceFile = System.getenv("TRACE_FILE");
+        if (traceFile == null || traceFile.isBlank()) return null;
+        return new PathTraceWriter(Files.newOutputStream(Path.of(traceFile)));
+    }
 
     /**
-     * Validates environmental variables retrieval
-     * @param boardDataUrl url where board data is stored
-     * @param commandsDataUrl url where knight commands are stored
-     * @throws JsonProcessingException
+     * Hedged requests are sent only if FETCH_HEDGE_PERCENTILE is set, e.g. 0.95 (or 95) sends a second request when
+     * the first one is slower than 95% of the previous ones. Values from 1 on are read as a percentage.
+     * Latencies are tracked by the shared client, until enough fetches have been timed in the process (never in a
+     * one-shot run) the second request is sent after the policy's fixed delay.
+     * @return retry and hedging settings
+     */
+    private static FetchPolicy fetchPolicy() {
+        var setting = System.getenv("FETCH_HEDGE_PERCENTILE");
+        if (setting == null || setting.isBlank()) return FetchPolicy.DEFAULT;
+        double percentile;
+        try {
+            percentile = Double.parseDouble(setting.trim());
+        } catch (NumberFormatException e) {
+            // invalid, hedging stays disabled
+            return FetchPolicy.DEFAULT;
+        }
+        // also rejects NaN
+        if (!(percentile > 0 && percentile < 100)) return FetchPolicy.DEFAULT;
+        return FetchPolicy.DEFAULT.withHedging(percentile < 1 ? percentile : percentile / 100);
+    }
+
+    /**
+     * Process wide client and board cache, created on first use and shared by every fetch (e.g. all the runs of
+     * --train): board and commands go through the same connections, and hedging learns from all their latencies
      */
-    private static void validateEnvVariables(String boardDataUrl, String commandsDataUrl) throws JsonProcessingException {
-        if(boardDataUrl == null || commandsDataUrl == null ||
-                boardDataUrl.isBlank() || commandsDataUrl.isBlank()) {
-            outputErrorResponse(Status.GENERIC_ERROR);
+    private static final class Shared {
+        static final ApiClient CLIENT = new ApiClient(fetchPolicy());
+        static final BoardCache BOARD_CACHE = boardCache(CLIENT);
+    }
+
+    /**
+     * Boards are cached on disk only if BOARD_CACHE_DIR is set, for BOARD_CACHE_TTL seconds (5 minutes by default)
+     * before being revalidated with a conditional request.
+     * @param client client used to fetch boards
+     * @return board cache
+     */
+    private static BoardCache boardCache(ApiClient client) {
+        var directory = System.getenv("BOARD_CACHE_DIR");
+        var ttl = DEFAULT_BOARD_CACHE_TTL;
+        try {
+            ttl = Duration.ofSeconds(Long.parseLong(System.getenv("BOARD_CACHE_TTL")));
+        } catch (NumberFormatException e) {
+            // missing or invalid, default ttl is used
         }
+        return new BoardCache(client, codec, BOARD_CACHE_ENTRIES, ttl,
+                directory == null || directory.isBlank() ? null : Path.of(directory));
     }
 
     /**
-     * Validates knight's starting position on the board
-     * @param board Board's data
-     * @param knightPosition Knight's starting position
-     * @throws JsonProcessingException
+     * Records the run with Flight Recorder to JFR_FILE, if it's set, using the JDK's default settings plus the
+     * KnightsPath events. The recording is written when the JVM exits.
      */
-    private static void validateStartingPosition(Board board, KnightPosition knightPosition) throws JsonProcessingException {
-        if (board == null || knightPosition == null) {
-            outputErrorResponse(Status.GENERIC_ERROR);
-            return;
+    private static void startRecording() {
+        var jfrFile = System.getenv("JFR_FILE");
+        if (jfrFile == null || jfrFile.isBlank()) return;
+        try {
+            Recordings.start(Path.of(jfrFile));
+        } catch (IOException | RuntimeException e) {
+            // recordings are best effort, the simulation runs anyway
         }
-        if (board.isOutOfBounds(knightPosition.getCoordinates()) || board.checkCollision(knightPosition.getCoordinates())) {
-            outputErrorResponse(Status.INVALID_START_POSITION);
+    }
+
+    /**
+     * Dumps the metrics in Prometheus text format to METRICS_FILE, if it's set.
+     * Metrics never go to standard output or standard error, which only carry the json responses.
+     */
+    private static void writeMetrics() {
+        var metricsFile = System.getenv("METRICS_FILE");
+        if (metricsFile == null || metricsFile.isBlank()) return;
+        try {
+            Metrics.writePrometheus(Path.of(metricsFile));
+        } catch (IOException e) {
+            // metrics are best effort, the simulation output is already out
         }
     }
 
-    // Response methods
+    // Validation logic
 
     /**
-     * Outputs an error response
-     * @param status error reason
-     * @throws JsonProcessingException
+     * Validates environmental variables retrieval
+     * @param boardDataUrl url where board data is stored
+     * @param commandsDataUrl url where knight commands are stored
+     * @return true if both variables are set, the board url is not needed when BOARD_FILE or BOARD_TILES is set
      */
-    private static void outputErrorResponse(Status status) throws JsonProcessingException {
-        System.err.println(mapper.writeValueAsString(new Response(null, status)));
-        System.exit(0);
+    private static boolean validateEnvVariables(String boardDataUrl, String commandsDataUrl) {
+        var boardFile = System.getenv("BOARD_FILE");
+        var boardTiles = System.getenv("BOARD_TILES");
+        var boardSet = (boardDataUrl != null && !boardDataUrl.isBlank()) || (boardFile != null && !boardFile.isBlank())
+                || (boardTiles != null && !boardTiles.isBlank());
+        return boardSet && commandsDataUrl != null && !commandsDataUrl.isBlank();
     }
 
+    // Response methods
+
     /**
-     * Outputs successful response
-     * @param knightPosition Knight's position after commands execution
-     * @throws JsonProcessingException
+     * Outputs successful responses on standard output and error responses on standard error
+     * @param response Knight's position after commands execution or error status
+     * @throws IOException
      */
-    private static void outputSuccessResponse(KnightPosition knightPosition) throws JsonProcessingException {
-        System.out.println(mapper.writeValueAsString(new Response(knightPosition, Status.SUCCESS)));
-        System.exit(0);
+    private static void outputResponse(Response response) throws IOException {
+        if (response.status() == Status.SUCCESS) {
+            System.out.println(codec.writeResponse(response));
+        } else {
+            System.err.println(codec.writeResponse(response));
+        }
     }
-}
\ No newline at end of file
+}
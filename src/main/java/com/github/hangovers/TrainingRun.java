@@ -0,0 +1,57 @@
+package com.github.hangovers;
+
+import com.github.hangovers.codec.JsonCodec;
+import com.github.hangovers.model.dto.Status;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs the command line flow once against a local stand-in of the board and commands APIs.
+ * It's meant to be launched with -XX:ArchiveClassesAtExit: every class a real run needs gets loaded, so the
+ * resulting AppCDS archive covers the whole startup path, without network access.
+ */
+final class TrainingRun {
+
+    private static final String BOARD_JSON = """
+            {"width":8,"height":8,"obstacles":[{"x":2,"y":3},{"x":5,"y":1}]}""";
+    private static final String COMMANDS_JSON = """
+            {"commands":["START 0,0,NORTH","MOVE 2","ROTATE EAST","MOVE 1","ROTATE NORTH","MOVE 3"]}""";
+
+    private TrainingRun() {
+    }
+
+    /**
+     * @throws IOException if the local server can't be started or the simulation doesn't end as expected
+     */
+    static void run() throws IOException {
+        var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/board.json", exchange -> respond(exchange, BOARD_JSON));
+        server.createContext("/commands.json", exchange -> respond(exchange, COMMANDS_JSON));
+        server.start();
+        try {
+            var baseUrl = "http://localhost:" + server.getAddress().getPort();
+            var response = Main.simulate(baseUrl + "/board.json", baseUrl + "/commands.json");
+            if (response.status() != Status.SUCCESS) {
+                throw new IOException("Training run ended with " + response.status());
+            }
+            // the response is written like a real run would, but not printed
+            new JsonCodec().writeResponse(response);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        try (exchange) {
+            var body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+}
@@ -1,28 +1,64 @@
 package com.github.hangovers.client;
 
+import com.github.hangovers.metrics.FetchEvent;
+import com.github.hangovers.metrics.Metrics;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
-import static java.net.http.HttpResponse.BodyHandlers.ofString;
+import static java.net.http.HttpResponse.BodyHandlers.ofByteArray;
+import static java.net.http.HttpResponse.BodyHandlers.ofInputStream;
 
 /**
- * Fetches board's data and commands list
+ * Fetches board's data and commands list.
+ * A single HttpClient is shared by all the fetches, so connections get reused (multiplexed when the server speaks HTTP/2).
+ * Asynchronous fetches are retried and optionally hedged as configured by the {@link FetchPolicy}.
+ * Bodies are requested compressed (gzip or deflate) and decoded while they're read. file: urls are read from disk,
+ * gzip-compressed if they end with .gz.
  */
 public class ApiClient {
 
     private final HttpClient httpClient;
+    private final FetchPolicy policy;
+    private final LatencyTracker latencies = new LatencyTracker();
 
     public static final Duration TIMEOUT = Duration.ofSeconds(10);
 
     public ApiClient() {
+        this(FetchPolicy.DEFAULT);
+    }
+
+    /**
+     * @param policy retry and hedging settings for asynchronous fetches
+     */
+    public ApiClient(FetchPolicy policy) {
         this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
                 .followRedirects(HttpClient.Redirect.NORMAL)
                 .connectTimeout(TIMEOUT)
                 .build();
+        this.policy = policy;
     }
 
     /**
@@ -34,20 +70,403 @@ public class ApiClient {
      * @throws InterruptedException
      */
     public String fetch(String url) throws URISyntaxException, IOException, InterruptedException {
-        var request = HttpRequest.newBuilder()
-                .uri(new URI(url))
+        var uri = new URI(url);
+        if (isFile(uri)) return text(readFile(uri));
+
+        var event = new FetchEvent();
+        event.begin();
+        var start = System.nanoTime();
+        var response = sendBlocking(request(uri), ofByteArray(), event);
+        Metrics.FETCH.recordSince(start);
+
+        if (response.statusCode() != 200) {
+            throw new IOException("Fetch failed");
+        }
+
+        return text(response);
+    }
+
+    /**
+     * Streams the response body instead of reading it whole, so that it can be processed while it's still being downloaded
+     * @param url json url to be fetched
+     * @return json data stream, to be closed by the caller
+     * @throws URISyntaxException
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public InputStream fetchStream(String url) throws URISyntaxException, IOException, InterruptedException {
+        var uri = new URI(url);
+        if (isFile(uri)) return readFile(uri);
+
+        var event = new FetchEvent();
+        event.begin();
+        var start = System.nanoTime();
+        var response = sendBlocking(request(uri), ofInputStream(), event);
+        Metrics.FETCH.recordSince(start);
+
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Fetch failed");
+        }
+
+        return ContentDecoder.decode(response.body(), contentEncoding(response));
+    }
+
+    /**
+     * Asynchronous {@link #fetch(String)}, retried and hedged according to the fetch policy
+     * @param url json url to be fetched
+     * @return future completed with json data in string format, or failed with an IOException
+     * @throws URISyntaxException
+     */
+    public CompletableFuture<String> fetchAsync(String url) throws URISyntaxException {
+        var uri = new URI(url);
+        if (isFile(uri)) return readFileAsync(uri, ApiClient::text);
+
+        return send(request(uri), ofByteArray(), response -> {})
+                .thenApply(response -> {
+                    try {
+                        if (response.statusCode() != 200) throw new IOException("Fetch failed");
+                        return text(response);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Asynchronous {@link #fetchStream(String)}, retried and hedged according to the fetch policy
+     * @param url json url to be fetched
+     * @return future completed with json data stream, to be closed by the caller, or failed with an IOException
+     * @throws URISyntaxException
+     */
+    public CompletableFuture<InputStream> fetchStreamAsync(String url) throws URISyntaxException {
+        var uri = new URI(url);
+        if (isFile(uri)) return readFileAsync(uri, body -> body);
+
+        return send(request(uri), ofInputStream(), ApiClient::close)
+                .thenApply(response -> {
+                    try {
+                        if (response.statusCode() != 200) {
+                            close(response);
+                            throw new IOException("Fetch failed");
+                        }
+                        return ContentDecoder.decode(response.body(), contentEncoding(response));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Conditional GET, the body is only downloaded if it changed since the given validators were received
+     * @param url json url to be fetched
+     * @param etag ETag received with the cached body, null if unknown
+     * @param lastModified Last-Modified received with the cached body, null if unknown
+     * @return response with status 304 and no body if the cached body is still valid, status 200 and the new body otherwise
+     * @throws URISyntaxException
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public ConditionalResponse fetchIfModified(String url, String etag, String lastModified) throws URISyntaxException, IOException, InterruptedException {
+        try {
+            return fetchIfModifiedAsync(url, etag, lastModified).get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * Asynchronous {@link #fetchIfModified(String, String, String)}, retried and hedged according to the fetch policy
+     * @param url json url to be fetched
+     * @param etag ETag received with the cached body, null if unknown
+     * @param lastModified Last-Modified received with the cached body, null if unknown
+     * @return future completed with the conditional response, or failed with an IOException
+     * @throws URISyntaxException
+     */
+    public CompletableFuture<ConditionalResponse> fetchIfModifiedAsync(String url, String etag, String lastModified) throws URISyntaxException {
+        var uri = new URI(url);
+        // local files have no validators, they're read again every time
+        if (isFile(uri)) {
+            try {
+                var path = path(uri);
+                return CompletableFuture.completedFuture(
+                        new ConditionalResponse(200, Files.readAllBytes(path), fileEncoding(path), null, null));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        var request = requestBuilder(uri);
+        if (etag != null) request.header("If-None-Match", etag);
+        if (lastModified != null) request.header("If-Modified-Since", lastModified);
+
+        return send(request.build(), ofByteArray(), response -> {})
+                .thenApply(response -> {
+                    if (response.statusCode() == 304) {
+                        // the server can refresh the validators, the ones that were sent are kept otherwise
+                        return new ConditionalResponse(304, null, null,
+                                response.headers().firstValue("ETag").orElse(etag),
+                                response.headers().firstValue("Last-Modified").orElse(lastModified));
+                    }
+                    if (response.statusCode() != 200) throw new UncheckedIOException(new IOException("Fetch failed"));
+                    // kept as received, it's decoded while it's parsed
+                    return new ConditionalResponse(200, response.body(), contentEncoding(response),
+                            response.headers().firstValue("ETag").orElse(null),
+                            response.headers().firstValue("Last-Modified").orElse(null));
+                });
+    }
+
+    /**
+     * Fetches a byte range of a binary file with a Range request, retried and hedged according to the fetch policy.
+     * Servers ignoring ranges answer with the whole file, the range is cut from it.
+     * @param url file url
+     * @param from first byte of the range
+     * @param to last byte of the range, included
+     * @return future completed with the bytes of the range, fewer if the file ends before it, or failed with an IOException
+     * @throws URISyntaxException
+     * @throws IllegalArgumentException if the range is not valid
+     */
+    public CompletableFuture<byte[]> fetchRangeAsync(String url, long from, long to) throws URISyntaxException {
+        if (from < 0 || to < from) {
+            throw new IllegalArgumentException("Invalid range: " + from + "-" + to);
+        }
+        // ranges of a compressed body would be ranges of the compressed bytes
+        var request = requestBuilder(new URI(url))
+                .setHeader("Accept", "application/octet-stream")
+                .setHeader("Accept-Encoding", "identity")
+                .header("Range", "bytes=" + from + "-" + to)
+                .build();
+
+        return send(request, ofByteArray(), response -> {})
+                .thenApply(response -> {
+                    var body = response.body();
+                    if (response.statusCode() == 206 && body.length <= to - from + 1) {
+                        return body;
+                    }
+                    if (response.statusCode() == 200 && body.length > from) {
+                        return Arrays.copyOfRange(body, (int) from, (int) Math.min(to + 1, body.length));
+                    }
+                    throw new UncheckedIOException(new IOException("Fetch failed"));
+                });
+    }
+
+    /**
+     * @param error cause of a failed asynchronous fetch
+     * @return the IOException that made the fetch fail
+     */
+    public static IOException unwrap(Throwable error) {
+        error = cause(error);
+        if (error instanceof UncheckedIOException unchecked) return unchecked.getCause();
+        if (error instanceof IOException io) return io;
+        return new IOException("Fetch failed", error);
+    }
+
+    private static Throwable cause(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    // Retries and hedging
+
+    /**
+     * @param discard releases a response that won't be returned, e.g. the slowest of two hedged responses
+     */
+    private <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, BodyHandler<T> handler, Consumer<HttpResponse<T>> discard) {
+        return attempt(request, handler, discard, 1);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> attempt(HttpRequest request, BodyHandler<T> handler, Consumer<HttpResponse<T>> discard, int attempt) {
+        return hedged(request, handler, discard)
+                .handle((response, error) -> {
+                    if (attempt < policy.maxAttempts() && isRetryable(response, error)) {
+                        if (response != null) discard.accept(response);
+                        var delay = CompletableFuture.delayedExecutor(backoff(attempt), TimeUnit.NANOSECONDS);
+                        return CompletableFuture.supplyAsync(() -> null, delay)
+                                .thenCompose(ignored -> attempt(request, handler, discard, attempt + 1));
+                    }
+                    return error == null
+                            ? CompletableFuture.completedFuture(response)
+                            : CompletableFuture.<HttpResponse<T>>failedFuture(unwrap(error));
+                })
+                .thenCompose(future -> future);
+    }
+
+    /**
+     * Sends the request and, if hedging is enabled and no response arrived within the configured latency percentile,
+     * sends it again: the first successful response wins, the other one gets discarded.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> hedged(HttpRequest request, BodyHandler<T> handler, Consumer<HttpResponse<T>> discard) {
+        var result = new CompletableFuture<HttpResponse<T>>();
+        var outstanding = new AtomicInteger(1);
+
+        sendTimed(request, handler).whenComplete((response, error) -> settle(result, outstanding, discard, response, error));
+
+        if (policy.hedging()) {
+            var hedgeDelay = latencies.percentile(policy.hedgePercentile(), policy.defaultHedgeDelay());
+            CompletableFuture.delayedExecutor(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+                if (result.isDone()) return;
+                outstanding.incrementAndGet();
+                sendTimed(request, handler).whenComplete((response, error) -> settle(result, outstanding, discard, response, error));
+            });
+        }
+        return result;
+    }
+
+    private <T> void settle(CompletableFuture<HttpResponse<T>> result, AtomicInteger outstanding, Consumer<HttpResponse<T>> discard,
+                            HttpResponse<T> response, Throwable error) {
+        var last = outstanding.decrementAndGet() == 0;
+        if (error == null && !isRetryable(response, null)) {
+            if (!result.complete(response)) discard.accept(response);
+        } else if (last) {
+            // every request failed, the retry logic decides what to do with the last outcome
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (!result.complete(response)) {
+                discard.accept(response);
+            }
+        } else if (response != null) {
+            discard.accept(response);
+        }
+    }
+
+    /**
+     * Blocking send, recorded by the event when it's enabled
+     */
+    private <T> HttpResponse<T> sendBlocking(HttpRequest request, BodyHandler<T> handler, FetchEvent event) throws IOException, InterruptedException {
+        HttpResponse<T> response = null;
+        try {
+            response = httpClient.send(request, handler);
+            return response;
+        } finally {
+            commit(event, request, response);
+        }
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendTimed(HttpRequest request, BodyHandler<T> handler) {
+        var event = new FetchEvent();
+        event.begin();
+        var start = System.nanoTime();
+        return httpClient.sendAsync(request, handler)
+                .whenComplete((response, error) -> {
+                    commit(event, request, response);
+                    if (error != null) return;
+                    var latency = System.nanoTime() - start;
+                    latencies.record(latency);
+                    Metrics.FETCH.record(latency);
+                });
+    }
+
+    private static void commit(FetchEvent event, HttpRequest request, HttpResponse<?> response) {
+        if (!event.isEnabled()) return;
+        if (response == null) {
+            event.commit(request.uri().toString(), 0, -1);
+            return;
+        }
+        // streamed bodies are still being received, their length is known only if the server sent it
+        var bytes = response.body() instanceof byte[] body
+                ? body.length
+                : response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        event.commit(request.uri().toString(), response.statusCode(), bytes);
+    }
+
+    private static boolean isRetryable(HttpResponse<?> response, Throwable error) {
+        // network errors and timeouts
+        if (error != null) return cause(error) instanceof IOException;
+        return response.statusCode() >= 500 || response.statusCode() == 429;
+    }
+
+    /**
+     * @return full jitter exponential backoff, a random delay between 0 and base * 2^(attempt - 1)
+     */
+    private long backoff(int attempt) {
+        var ceiling = policy.retryBaseDelay().toNanos() << Math.min(attempt - 1, 20);
+        return ThreadLocalRandom.current().nextLong(Math.max(ceiling, 1));
+    }
+
+    private static void close(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            // the response is being discarded anyway
+        }
+    }
+
+    private HttpRequest request(URI uri) {
+        return requestBuilder(uri).build();
+    }
+
+    private HttpRequest.Builder requestBuilder(URI uri) {
+        return HttpRequest.newBuilder()
+                .uri(uri)
                 .header("Accept","application/json")
+                .header("Accept-Encoding", ContentDecoder.ACCEPT_ENCODING)
                 .timeout(TIMEOUT)
-                .GET()
-                .build();
+                .GET();
+    }
 
-        var response = httpClient.send(request,
-                ofString());
+    // Bodies
 
-        if (response.statusCode() != 200 || response.body().isBlank()) {
-            throw new IOException("Fetch failed");
+    private static String contentEncoding(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding").orElse(null);
+    }
+
+    private static String text(HttpResponse<byte[]> response) throws IOException {
+        return text(ContentDecoder.decode(new ByteArrayInputStream(response.body()), contentEncoding(response)));
+    }
+
+    /**
+     * @param body json body, closed once read
+     * @return json data in string format
+     * @throws IOException if the body is blank or can't be decoded
+     */
+    private static String text(InputStream body) throws IOException {
+        try (body) {
+            var text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            if (text.isBlank()) throw new IOException("Fetch failed");
+            return text;
         }
+    }
+
+    private static boolean isFile(URI uri) {
+        return "file".equalsIgnoreCase(uri.getScheme());
+    }
 
-        return response.body();
+    /**
+     * @param uri file url, gzip-compressed if it ends with .gz
+     * @return decoded file stream, to be closed by the caller
+     * @throws IOException if the file can't be opened
+     */
+    private static InputStream readFile(URI uri) throws IOException {
+        var path = path(uri);
+        return ContentDecoder.decode(Files.newInputStream(path), fileEncoding(path));
+    }
+
+    private static Path path(URI uri) throws IOException {
+        try {
+            return Path.of(uri);
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            throw new IOException("Invalid file url: " + uri, e);
+        }
+    }
+
+    private static String fileEncoding(Path path) {
+        return path.toString().endsWith(".gz") ? "gzip" : null;
+    }
+
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    /**
+     * Local files are read right away, there's nothing to retry or hedge
+     */
+    private static <T> CompletableFuture<T> readFileAsync(URI uri, BodyReader<T> reader) {
+        try {
+            return CompletableFuture.completedFuture(reader.read(readFile(uri)));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 }
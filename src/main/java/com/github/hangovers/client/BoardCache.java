@@ -0,0 +1,266 @@
+package com.github.hangovers.client;
+
+import com.github.hangovers.codec.JsonCodec;
+import com.github.hangovers.metrics.MappingEvent;
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caches parsed boards by url.
+ * Boards younger than the ttl are served without any request, older ones are revalidated with a conditional GET
+ * (If-None-Match/If-Modified-Since) so that the body is downloaded and parsed again only if it changed.
+ * Parsed boards are kept in a size-bounded LRU, raw bodies can optionally be persisted in a directory so that a
+ * new process can skip the download too. Bodies are parsed and persisted as received, compressed ones are inflated
+ * while they're parsed and never held decoded. Concurrent requests for the same url share a single fetch.
+ */
+public class BoardCache {
+
+    private final ApiClient client;
+    private final JsonCodec codec;
+    private final Duration ttl;
+    private final Path directory;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<Board>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param contentEncoding Content-Encoding of the persisted body
+     */
+    private record Entry(Board board, String contentEncoding, String etag, String lastModified, Instant fetchedAt) {
+    }
+
+    /**
+     * @param client client used to fetch boards
+     * @param codec codec used to parse boards
+     * @param maxEntries maximum number of boards kept in memory
+     * @param ttl time a board is served without revalidating it
+     * @param directory directory where boards get persisted, null to keep them in memory only
+     */
+    public BoardCache(ApiClient client, JsonCodec codec, int maxEntries, Duration ttl, Path directory) {
+        this(client, codec, maxEntries, ttl, directory, Clock.systemUTC());
+    }
+
+    BoardCache(ApiClient client, JsonCodec codec, int maxEntries, Duration ttl, Path directory, Clock clock) {
+        this.client = client;
+        this.codec = codec;
+        this.ttl = ttl;
+        this.directory = directory;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param url board url
+     * @return cached board if still fresh, fetched board otherwise
+     * @throws URISyntaxException
+     * @throws IOException if the fetch fails or the board can't be parsed
+     * @throws InterruptedException
+     */
+    public Board get(String url) throws URISyntaxException, IOException, InterruptedException {
+        try {
+            return getAsync(url).get();
+        } catch (ExecutionException e) {
+            throw ApiClient.unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * @param url board url
+     * @return future completed with the cached board if still fresh, with the fetched board otherwise
+     * @throws URISyntaxException
+     */
+    public CompletableFuture<Board> getAsync(String url) throws URISyntaxException {
+        var entry = memoryEntry(url);
+        if (entry != null && isFresh(entry)) {
+            Metrics.CACHE_HITS.increment();
+            return CompletableFuture.completedFuture(entry.board());
+        }
+
+        // single flight: only the first caller fetches, the others share its result
+        var call = new CompletableFuture<Board>();
+        var running = inFlight.putIfAbsent(url, call);
+        if (running != null) return running;
+
+        try {
+            load(url).whenComplete((board, error) -> {
+                inFlight.remove(url, call);
+                if (error == null) {
+                    call.complete(board);
+                } else {
+                    call.completeExceptionally(error);
+                }
+            });
+        } catch (URISyntaxException | RuntimeException e) {
+            inFlight.remove(url, call);
+            throw e;
+        }
+        return call;
+    }
+
+    private CompletableFuture<Board> load(String url) throws URISyntaxException {
+        var cached = memoryEntry(url);
+        var entry = cached == null ? diskEntry(url) : cached;
+        if (entry != null && isFresh(entry)) {
+            Metrics.CACHE_HITS.increment();
+            memorize(url, entry);
+            return CompletableFuture.completedFuture(entry.board());
+        }
+
+        var response = entry == null
+                ? client.fetchIfModifiedAsync(url, null, null)
+                : client.fetchIfModifiedAsync(url, entry.etag(), entry.lastModified());
+
+        return response.thenApply(conditionalResponse -> {
+            Entry updated;
+            if (conditionalResponse.notModified()) {
+                if (entry == null) throw new UncheckedIOException(new IOException("Fetch failed"));
+                Metrics.CACHE_HITS.increment();
+                updated = new Entry(entry.board(), entry.contentEncoding(),
+                        conditionalResponse.etag(), conditionalResponse.lastModified(), clock.instant());
+                persist(url, null, updated);
+            } else {
+                Metrics.CACHE_MISSES.increment();
+                try {
+                    updated = new Entry(parse(conditionalResponse), conditionalResponse.contentEncoding(),
+                            conditionalResponse.etag(), conditionalResponse.lastModified(), clock.instant());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                persist(url, conditionalResponse.body(), updated);
+            }
+            memorize(url, updated);
+            return updated.board();
+        });
+    }
+
+    private Board parse(ConditionalResponse response) throws IOException {
+        var event = new MappingEvent();
+        event.begin();
+        var start = System.nanoTime();
+        var board = codec.readBoard(response::open);
+        Metrics.MAPPING.recordSince(start);
+        event.commit("Board", board.obstacleCount(), 0);
+        return board;
+    }
+
+    private boolean isFresh(Entry entry) {
+        return Duration.between(entry.fetchedAt(), clock.instant()).compareTo(ttl) < 0;
+    }
+
+    private Entry memoryEntry(String url) {
+        synchronized (entries) {
+            return entries.get(url);
+        }
+    }
+
+    private void memorize(String url, Entry entry) {
+        synchronized (entries) {
+            entries.put(url, entry);
+        }
+    }
+
+    // Disk persistence: <sha-256 of the url>.json holds the body as received, <sha-256 of the url>.properties its
+    // Content-Encoding and validators
+
+    private Entry diskEntry(String url) {
+        if (directory == null) return null;
+
+        var key = key(url);
+        var metadata = new Properties();
+        try (Reader reader = Files.newBufferedReader(directory.resolve(key + ".properties"))) {
+            metadata.load(reader);
+            if (!url.equals(metadata.getProperty("url"))) return null;
+
+            var body = directory.resolve(key + ".json");
+            var contentEncoding = metadata.getProperty("contentEncoding");
+            var board = codec.readBoard(() -> ContentDecoder.decode(Files.newInputStream(body), contentEncoding, false));
+            return new Entry(board,
+                    contentEncoding,
+                    metadata.getProperty("etag"),
+                    metadata.getProperty("lastModified"),
+                    Instant.ofEpochMilli(Long.parseLong(metadata.getProperty("fetchedAt"))));
+        } catch (IOException | RuntimeException e) {
+            // missing or unreadable files, the board gets downloaded again
+            return null;
+        }
+    }
+
+    /**
+     * @param body new board json as received, null if only the validators changed
+     */
+    private void persist(String url, byte[] body, Entry entry) {
+        if (directory == null) return;
+
+        var key = key(url);
+        var metadata = new Properties();
+        metadata.setProperty("url", url);
+        metadata.setProperty("fetchedAt", Long.toString(entry.fetchedAt().toEpochMilli()));
+        if (entry.contentEncoding() != null) metadata.setProperty("contentEncoding", entry.contentEncoding());
+        if (entry.etag() != null) metadata.setProperty("etag", entry.etag());
+        if (entry.lastModified() != null) metadata.setProperty("lastModified", entry.lastModified());
+
+        try {
+            Files.createDirectories(directory);
+            if (body != null) {
+                replace(directory.resolve(key + ".json"), output -> output.write(body));
+            }
+            replace(directory.resolve(key + ".properties"),
+                    output -> metadata.store(new OutputStreamWriter(output, StandardCharsets.UTF_8), null));
+        } catch (IOException e) {
+            // the disk cache is best effort, the board is still cached in memory
+        }
+    }
+
+    private interface OutputAction {
+        void write(OutputStream output) throws IOException;
+    }
+
+    private static void replace(Path target, OutputAction action) throws IOException {
+        var temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                action.write(output);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static String key(String url) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
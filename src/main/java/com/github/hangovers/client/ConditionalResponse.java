@@ -0,0 +1,31 @@
+package com.github.hangovers.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @param statusCode 200 if a new body was downloaded, 304 if the cached one is still valid
+ * @param body json data as received, still compressed if it was sent with a Content-Encoding, null when not modified
+ * @param contentEncoding Content-Encoding of the body, null if it's not encoded
+ * @param etag ETag validator to be sent with the next request, null if the server didn't send one
+ * @param lastModified Last-Modified validator to be sent with the next request, null if the server didn't send one
+ */
+public record ConditionalResponse(int statusCode, byte[] body, String contentEncoding, String etag, String lastModified) {
+
+    /**
+     * @return true if the cached body is still valid
+     */
+    public boolean notModified() {
+        return statusCode == 304;
+    }
+
+    /**
+     * The body is decoded while it's read, it can be opened again to read it once more
+     * @return decoded json data
+     * @throws IOException if the encoding is not supported
+     */
+    public InputStream open() throws IOException {
+        return ContentDecoder.decode(new ByteArrayInputStream(body), contentEncoding);
+    }
+}
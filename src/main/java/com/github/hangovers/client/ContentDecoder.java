@@ -0,0 +1,185 @@
+package com.github.hangovers.client;
+
+import com.github.hangovers.metrics.Counter;
+import com.github.hangovers.metrics.Metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes bodies sent with a Content-Encoding, while they're read: a streamed document is never held in memory whole,
+ * and its parsing overlaps with the download like for uncompressed ones. Bodies kept in memory, like boards, are kept
+ * as received and inflated again each time they're read.
+ * Both the received and the decoded bytes are counted, their difference is the transfer saved by compression.
+ */
+final class ContentDecoder {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private ContentDecoder() {
+    }
+
+    /**
+     * Nothing is read until the returned stream is, so it can be called where blocking is not allowed
+     * @param body body as received
+     * @param encoding Content-Encoding of the body, null if it's not encoded
+     * @return decoded body, closing it closes the received one
+     * @throws IOException if the encoding is not supported
+     */
+    static InputStream decode(InputStream body, String encoding) throws IOException {
+        return decode(body, encoding, true);
+    }
+
+    /**
+     * @param body body as received
+     * @param encoding Content-Encoding of the body, null if it's not encoded
+     * @param counted false for bodies read again from disk, counted when they were received
+     * @return decoded body, closing it closes the received one
+     * @throws IOException if the encoding is not supported
+     */
+    static InputStream decode(InputStream body, String encoding, boolean counted) throws IOException {
+        var name = encoding == null ? "" : encoding.trim().toLowerCase(Locale.ROOT);
+        var received = counted ? new CountingInputStream(body, Metrics.RECEIVED_BYTES) : body;
+        InputStream decoded = switch (name) {
+            case "", "identity" -> received;
+            case "gzip", "x-gzip" -> new LazyGzip(received);
+            case "deflate" -> new LazyDeflate(received);
+            default -> {
+                body.close();
+                throw new IOException("Unsupported content encoding: " + encoding);
+            }
+        };
+        return counted ? new CountingInputStream(decoded, Metrics.DECODED_BYTES) : decoded;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final Counter[] counters;
+
+        CountingInputStream(InputStream in, Counter... counters) {
+            super(in);
+            this.counters = counters;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var read = in.read();
+            if (read >= 0) count(1);
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            var read = in.read(buffer, offset, length);
+            if (read > 0) count(read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            var skipped = in.skip(n);
+            if (skipped > 0) count(skipped);
+            return skipped;
+        }
+
+        private void count(long bytes) {
+            for (Counter counter : counters) {
+                counter.add(bytes);
+            }
+        }
+    }
+
+    /**
+     * Decoding stream created on the first read, since creating it already reads the compressed header
+     */
+    private abstract static class LazyDecoder extends InputStream {
+
+        private final InputStream body;
+        private InputStream decoded;
+
+        LazyDecoder(InputStream body) {
+            this.body = body;
+        }
+
+        abstract InputStream open(InputStream body) throws IOException;
+
+        private InputStream decoded() throws IOException {
+            if (decoded == null) decoded = open(body);
+            return decoded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decoded().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return decoded().read(buffer, offset, length);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return decoded == null ? 0 : decoded.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decoded == null) {
+                body.close();
+            } else {
+                decoded.close();
+            }
+        }
+    }
+
+    private static final class LazyGzip extends LazyDecoder {
+
+        LazyGzip(InputStream body) {
+            super(body);
+        }
+
+        @Override
+        InputStream open(InputStream body) throws IOException {
+            return new GZIPInputStream(body, 8192);
+        }
+    }
+
+    /**
+     * HTTP's deflate is a zlib stream, but some servers send raw deflate data: the zlib header tells them apart
+     */
+    private static final class LazyDeflate extends LazyDecoder {
+
+        LazyDeflate(InputStream body) {
+            super(body);
+        }
+
+        @Override
+        InputStream open(InputStream body) throws IOException {
+            var pushback = new PushbackInputStream(body, 2);
+            var header = pushback.readNBytes(2);
+            pushback.unread(header);
+            var zlib = header.length == 2 && (header[0] & 0x0f) == 8
+                    && (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+
+            var inflater = new Inflater(!zlib);
+            return new InflaterInputStream(pushback, inflater, 8192) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        // not the default inflater, the stream doesn't release it
+                        inflater.end();
+                    }
+                }
+            };
+        }
+    }
+}
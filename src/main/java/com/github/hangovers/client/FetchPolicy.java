@@ -0,0 +1,31 @@
+package com.github.hangovers.client;
+
+import java.time.Duration;
+
+/**
+ * Retry and hedging settings used by the asynchronous fetches of {@link ApiClient}
+ * @param maxAttempts maximum number of attempts for each fetch, retries happen on network errors and 5xx/429 responses
+ * @param retryBaseDelay base delay between attempts, doubled at each retry and randomized with full jitter
+ * @param hedgePercentile latency percentile (e.g. 0.95) after which a second, hedged request is sent if the first one
+ *                        is still running. 0 disables hedging
+ * @param defaultHedgeDelay hedging delay used until enough latencies have been observed to compute the percentile
+ */
+public record FetchPolicy(int maxAttempts, Duration retryBaseDelay, double hedgePercentile, Duration defaultHedgeDelay) {
+
+    /**
+     * Three attempts, no hedging
+     */
+    public static final FetchPolicy DEFAULT = new FetchPolicy(3, Duration.ofMillis(100), 0, Duration.ofSeconds(1));
+
+    /**
+     * @param percentile latency percentile after which a hedged request is sent
+     * @return same policy with hedging enabled
+     */
+    public FetchPolicy withHedging(double percentile) {
+        return new FetchPolicy(maxAttempts, retryBaseDelay, percentile, defaultHedgeDelay);
+    }
+
+    boolean hedging() {
+        return hedgePercentile > 0;
+    }
+}
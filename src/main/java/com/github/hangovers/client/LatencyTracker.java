@@ -0,0 +1,40 @@
+package com.github.hangovers.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Keeps the latest response latencies to compute the hedging delay
+ */
+class LatencyTracker {
+
+    private static final int SAMPLES = 256;
+    // percentiles computed on fewer samples are not meaningful
+    private static final int MIN_SAMPLES = 16;
+
+    private final long[] latencies = new long[SAMPLES];
+    private int count;
+    private int next;
+
+    synchronized void record(long nanos) {
+        latencies[next] = nanos;
+        next = (next + 1) % SAMPLES;
+        if (count < SAMPLES) count++;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 1
+     * @param fallback value returned while there are not enough samples
+     * @return latency at the given percentile
+     */
+    Duration percentile(double percentile, Duration fallback) {
+        long[] sorted;
+        synchronized (this) {
+            if (count < MIN_SAMPLES) return fallback;
+            sorted = Arrays.copyOf(latencies, count);
+        }
+        Arrays.sort(sorted);
+        var index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return Duration.ofNanos(sorted[Math.max(index, 0)]);
+    }
+}
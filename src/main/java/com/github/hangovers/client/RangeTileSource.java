@@ -0,0 +1,133 @@
+package com.github.hangovers.client;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.BoardTiles;
+import com.github.hangovers.model.TileSource;
+import com.github.hangovers.model.TiledBoardFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tiles of a {@link TiledBoardFile} served over http, fetched with range requests.
+ * The index is fetched in blocks of {@link #INDEX_BLOCK} tiles, so that a huge board doesn't need a huge index download
+ * before the first move: the first tile of a block costs two requests, the others of the same block only one.
+ * Empty tiles take no request at all.
+ */
+public final class RangeTileSource implements TileSource {
+
+    public static final int INDEX_BLOCK = 512;
+    // 4KB each, enough to cover two million tiles
+    private static final int CACHED_INDEX_BLOCKS = 4096;
+
+    private final ApiClient client;
+    private final String url;
+    private final TiledBoardFile.Header header;
+    private final LinkedHashMap<Long, CompletableFuture<long[]>> indexBlocks = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<long[]>> eldest) {
+            return size() > CACHED_INDEX_BLOCKS;
+        }
+    };
+
+    /**
+     * @param client client used for the range requests
+     * @param url tiled board url
+     * @param header header of the tiled board
+     */
+    public RangeTileSource(ApiClient client, String url, TiledBoardFile.Header header) {
+        this.client = client;
+        this.url = url;
+        this.header = header;
+    }
+
+    /**
+     * Fetches the header of a tiled board, tiles are fetched later as the knight moves
+     * @param client client used for the range requests
+     * @param url tiled board url
+     * @param cachedTiles maximum number of tiles kept in memory
+     * @return future completed with the tiled board, or failed with an IOException
+     * @throws URISyntaxException
+     */
+    public static CompletableFuture<Board> open(ApiClient client, String url, int cachedTiles) throws URISyntaxException {
+        return client.fetchRangeAsync(url, 0, TiledBoardFile.HEADER_SIZE - 1)
+                .thenApply(bytes -> {
+                    try {
+                        var header = TiledBoardFile.Header.parse(bytes);
+                        return Board.tiled(new BoardTiles(header, new RangeTileSource(client, url, header), cachedTiles));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public String location() {
+        return url;
+    }
+
+    @Override
+    public CompletableFuture<long[]> fetch(int column, int row) {
+        var tile = (long) row * header.columns() + column;
+        return indexBlock(tile / INDEX_BLOCK).thenCompose(positions -> {
+            var entry = (int) (tile % INDEX_BLOCK);
+            var from = positions[entry];
+            var to = positions[entry + 1];
+            if (from == to) return CompletableFuture.completedFuture(new long[0]);
+
+            return range(from, to - 1).thenApply(bytes -> {
+                try {
+                    if (bytes.length != to - from) throw new IOException("Truncated tile");
+                    return TiledBoardFile.decodeTile(bytes, column, row, header.tileSize());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        });
+    }
+
+    /**
+     * @return file positions of the block's tiles, followed by the end of the last one
+     */
+    private CompletableFuture<long[]> indexBlock(long block) {
+        CompletableFuture<long[]> positions;
+        synchronized (indexBlocks) {
+            positions = indexBlocks.get(block);
+            if (positions != null) return positions;
+
+            var first = block * INDEX_BLOCK;
+            var entries = Math.min(INDEX_BLOCK, header.tiles() - first) + 1;
+            positions = range(header.indexPosition(first), header.indexPosition(first + entries) - 1)
+                    .thenApply(bytes -> {
+                        if (bytes.length != entries * Long.BYTES) {
+                            throw new UncheckedIOException(new IOException("Truncated tiled board index"));
+                        }
+                        return TiledBoardFile.decodeIndex(bytes);
+                    });
+            indexBlocks.put(block, positions);
+        }
+
+        // failed fetches are not cached, the next access tries again
+        var fetched = positions;
+        fetched.whenComplete((ignored, error) -> {
+            if (error != null) {
+                synchronized (indexBlocks) {
+                    indexBlocks.remove(block, fetched);
+                }
+            }
+        });
+        return fetched;
+    }
+
+    private CompletableFuture<byte[]> range(long from, long to) {
+        try {
+            return client.fetchRangeAsync(url, from, to);
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid tiled board url", e));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.github.hangovers.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.dto.KnightPosition;
+import com.github.hangovers.model.dto.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Hand-written json codec for boards and responses, built on Jackson's streaming parser only.
+ * It skips ObjectMapper's creation and the reflective introspection of the model classes, which dominate the startup
+ * of one-shot runs. Output is byte-identical to ObjectMapper's.
+ * Only the plain shape of each document is handled: anything else (nulls, quoted numbers, unknown fields, malformed
+ * json...) is read again by an ObjectMapper, so results and errors are exactly Jackson's.
+ */
+public class JsonCodec {
+
+    /**
+     * Json document that can be opened more than once
+     */
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    private final JsonFactory factory = new JsonFactory();
+    private final boolean reflectionFree;
+
+    /**
+     * Codec using the reflection-free fast path
+     */
+    public JsonCodec() {
+        this(true);
+    }
+
+    /**
+     * @param reflectionFree false to always use the ObjectMapper
+     */
+    public JsonCodec(boolean reflectionFree) {
+        this.reflectionFree = reflectionFree;
+    }
+
+    /**
+     * @return factory for streaming parsers, it doesn't need an ObjectMapper
+     */
+    public JsonFactory factory() {
+        return factory;
+    }
+
+    /**
+     * @return ObjectMapper used as fallback, created on first use
+     */
+    public ObjectMapper mapper() {
+        return Fallback.MAPPER;
+    }
+
+    /**
+     * @param json board json, as returned by the board api
+     * @return parsed board
+     * @throws IOException if the json can't be mapped to a Board
+     */
+    public Board readBoard(String json) throws IOException {
+        if (reflectionFree) {
+            try (JsonParser parser = factory.createParser(json)) {
+                var board = readBoard(parser);
+                if (board != null) return board;
+            } catch (IOException e) {
+                // malformed json, the ObjectMapper reports the error
+            }
+        }
+        return mapper().readValue(json, Board.class);
+    }
+
+    /**
+     * Same as {@link #readBoard(String)}, parsing the json while it's read instead of holding it whole
+     * @param json board json, opened a second time only if it has to be read by the ObjectMapper
+     * @return parsed board
+     * @throws IOException if the json can't be read or mapped to a Board
+     */
+    public Board readBoard(Source json) throws IOException {
+        if (reflectionFree) {
+            try (InputStream input = json.open(); JsonParser parser = factory.createParser(input)) {
+                var board = readBoard(parser);
+                if (board != null) return board;
+            } catch (IOException e) {
+                // malformed json, the ObjectMapper reports the error
+            }
+        }
+        try (InputStream input = json.open()) {
+            return mapper().readValue(input, Board.class);
+        }
+    }
+
+    /**
+     * @param response simulation response
+     * @return response json, the same ObjectMapper would write
+     * @throws IOException if the response can't be written
+     */
+    public String writeResponse(Response response) throws IOException {
+        if (!reflectionFree) return mapper().writeValueAsString(response);
+
+        var json = new StringBuilder(64).append('{');
+        KnightPosition position = response.position();
+        if (position != null) {
+            json.append("\"position\":");
+            if (position.getCoordinates() == null) {
+                json.append('{');
+            } else {
+                json.append("{\"x\":").append(position.getCoordinates().x())
+                        .append(",\"y\":").append(position.getCoordinates().y()).append(',');
+            }
+            json.append("\"direction\":");
+            appendName(json, position.getDirection());
+            json.append("},");
+        }
+        json.append("\"status\":");
+        appendName(json, response.status());
+        return json.append('}').toString();
+    }
+
+    /**
+     * @return parsed board, null if the json doesn't have the plain shape handled here
+     */
+    private static Board readBoard(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+
+        Integer width = null;
+        Integer height = null;
+        long[] obstacles = null;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            var token = parser.nextToken();
+            switch (field) {
+                case "width" -> {
+                    if (!isInt(parser, token)) return null;
+                    width = parser.getIntValue();
+                }
+                case "height" -> {
+                    if (!isInt(parser, token)) return null;
+                    height = parser.getIntValue();
+                }
+                case "obstacles" -> {
+                    obstacles = token == JsonToken.START_ARRAY ? readObstacles(parser) : null;
+                    if (obstacles == null) return null;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) return null;
+        return Board.of(width, height, obstacles);
+    }
+
+    /**
+     * @return obstacles packed with {@link Coordinates#pack(int, int)}, null if they don't have the plain shape
+     */
+    private static long[] readObstacles(JsonParser parser) throws IOException {
+        var packed = new long[16];
+        var size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) return null;
+
+            // missing fields default to 0, as they do for the Coordinates record
+            int x = 0;
+            int y = 0;
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                if (!isInt(parser, parser.nextToken())) return null;
+                switch (field) {
+                    case "x" -> x = parser.getIntValue();
+                    case "y" -> y = parser.getIntValue();
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+            if (size == packed.length) {
+                packed = Arrays.copyOf(packed, size * 2);
+            }
+            packed[size++] = Coordinates.pack(x, y);
+        }
+        return Arrays.copyOf(packed, size);
+    }
+
+    private static boolean isInt(JsonParser parser, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT;
+    }
+
+    /**
+     * Enum constants are plain ASCII identifiers, they never need escaping
+     */
+    private static void appendName(StringBuilder json, Enum<?> value) {
+        if (value == null) {
+            json.append("null");
+        } else {
+            json.append('"').append(value.name()).append('"');
+        }
+    }
+
+    /**
+     * Holder idiom, the ObjectMapper is only created if the fallback is actually needed
+     */
+    private static final class Fallback {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.hangovers.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Collects the stop-the-world pauses of the garbage collectors while it's open, from the notifications they send at
+ * the end of each collection. Collectors running concurrently with the application (ZGC and Shenandoah cycles, G1
+ * concurrent marking) are left out, their durations are not pauses.
+ */
+final class GcPauses implements NotificationListener, AutoCloseable {
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    GcPauses() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter && !isConcurrent(collector.getName())) {
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+        var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        if (isConcurrent(info.getGcName())) return;
+
+        var millis = info.getGcInfo().getDuration();
+        count.incrementAndGet();
+        total.addAndGet(millis);
+        max.accumulate(millis);
+    }
+
+    /**
+     * @return pauses since the collector was opened
+     */
+    long count() {
+        return count.get();
+    }
+
+    /**
+     * @return total pause time in milliseconds
+     */
+    long totalMillis() {
+        return total.get();
+    }
+
+    /**
+     * @return longest pause in milliseconds
+     */
+    long maxMillis() {
+        return max.get();
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                // already removed
+            }
+        }
+    }
+
+    private static boolean isConcurrent(String collector) {
+        return collector.contains("Cycles") || collector.contains("Concurrent");
+    }
+}
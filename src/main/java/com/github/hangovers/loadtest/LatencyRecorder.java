@@ -0,0 +1,98 @@
+package com.github.hangovers.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram precise enough for tail percentiles, in constant memory whatever the length of the test.
+ * Latencies are counted in microseconds, in log-linear buckets: exact up to 64us, then 32 buckets for each power of
+ * two, so a percentile is never more than about 3% above the real value. Unlike the exported
+ * {@link com.github.hangovers.metrics.Histogram}, whose power of 4 buckets only tell the order of magnitude, it can
+ * tell a p99 of 12ms from one of 15ms.
+ */
+final class LatencyRecorder {
+
+    private static final int LINEAR = 64;
+    private static final int SUB_BUCKETS = 32;
+    // up to 2^40 microseconds, about 12 days
+    private static final int BUCKETS = LINEAR + 35 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos measured latency in nanoseconds
+     */
+    void record(long nanos) {
+        var micros = Math.max(nanos / 1_000, 0);
+        counts.incrementAndGet(bucket(micros));
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    long count() {
+        var count = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return mean latency in nanoseconds, 0 if nothing was recorded
+     */
+    long mean() {
+        var count = count();
+        return count == 0 ? 0 : sum.sum() / count;
+    }
+
+    /**
+     * @return highest recorded latency in nanoseconds
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile between 0 and 1, e.g. 0.999
+     * @return upper bound in nanoseconds of the bucket holding the given percentile, capped at the highest latency,
+     * 0 if nothing was recorded
+     */
+    long percentile(double percentile) {
+        var snapshot = new long[BUCKETS];
+        var total = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+
+        var rank = Math.max(1, (long) Math.ceil(percentile * total));
+        var seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i) * 1_000, max());
+        }
+        return max();
+    }
+
+    private static int bucket(long micros) {
+        if (micros < LINEAR) return (int) micros;
+        // the 6 highest bits of the value: 32 sub buckets between each power of two
+        var shift = 63 - Long.numberOfLeadingZeros(micros) - 5;
+        var bucket = LINEAR + (shift - 1) * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * @return highest latency in microseconds counted by the bucket
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        var shift = (bucket - LINEAR) / SUB_BUCKETS + 1;
+        var top = (bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1L) << shift) - 1;
+    }
+}
@@ -0,0 +1,250 @@
+package com.github.hangovers.loadtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.hangovers.client.ApiClient;
+import com.github.hangovers.codec.JsonCodec;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+import com.github.hangovers.simulation.StreamingSimulation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the whole command line pipeline against a {@link StandInServer}: board and commands fetched with the
+ * {@link ApiClient}, mapped, simulated while the commands are streamed, and the response serialized.
+ * <p>
+ * Load is either a closed loop, a fixed number of workers each starting a new simulation as soon as the previous one
+ * ends, or an open loop starting simulations at a fixed rate whatever their latency. In an open loop latencies are
+ * measured from when a simulation was due to start, so a slow system can't hide its queueing delay by starting fewer
+ * simulations (coordinated omission).
+ * <p>
+ * Warmup simulations run first and are not measured, then the report covers latencies, throughput, GC pauses and
+ * allocation of the measured period only.
+ */
+public final class LoadGenerator {
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final LoadTestConfig config;
+    private final ApiClient client;
+    private final JsonCodec codec;
+
+    /**
+     * Simulations measured in a load test
+     * @param config load test settings
+     * @param requests simulations completed, whatever their outcome
+     * @param errors simulations failed with an exception, they're counted as requests too
+     * @param statuses simulations ended with each {@link Status}, by ordinal
+     * @param seconds measured time
+     * @param p50 median latency in nanoseconds
+     * @param p99 99th percentile latency in nanoseconds
+     * @param p999 99.9th percentile latency in nanoseconds
+     * @param max highest latency in nanoseconds
+     * @param mean mean latency in nanoseconds
+     * @param gcPauses garbage collection pauses
+     * @param gcPauseMillis total garbage collection pause time
+     * @param gcMaxPauseMillis longest garbage collection pause
+     * @param allocatedBytes bytes allocated by all the threads, -1 if the JVM doesn't tell
+     */
+    public record Report(LoadTestConfig config, long requests, long errors, long[] statuses, double seconds,
+                         long p50, long p99, long p999, long max, long mean,
+                         long gcPauses, long gcPauseMillis, long gcMaxPauseMillis, long allocatedBytes) {
+
+        /**
+         * @return simulations completed per second
+         */
+        public double throughput() {
+            return seconds == 0 ? 0 : requests / seconds;
+        }
+
+        /**
+         * Writes the report as a single json object, durations in milliseconds
+         * @param output stream receiving the report, not closed
+         * @param factory factory used to create the json generator
+         * @throws IOException if the report can't be written
+         */
+        public void writeJson(OutputStream output, JsonFactory factory) throws IOException {
+            try (JsonGenerator generator = factory.createGenerator(output)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.useDefaultPrettyPrinter();
+                generator.writeStartObject();
+
+                generator.writeObjectFieldStart("config");
+                generator.writeNumberField("size", config.size());
+                generator.writeNumberField("density", config.density());
+                generator.writeNumberField("commands", config.commands());
+                generator.writeNumberField("documents", config.documents());
+                generator.writeNumberField("latencyMs", config.latency().toMillis());
+                generator.writeNumberField("jitterMs", config.jitter().toMillis());
+                generator.writeNumberField("rate", config.rate());
+                generator.writeNumberField("concurrency", config.concurrency());
+                generator.writeNumberField("warmupSeconds", config.warmup().toMillis() / 1e3);
+                generator.writeNumberField("durationSeconds", config.duration().toMillis() / 1e3);
+                generator.writeNumberField("seed", config.seed());
+                generator.writeEndObject();
+
+                generator.writeNumberField("requests", requests);
+                generator.writeNumberField("errors", errors);
+                generator.writeObjectFieldStart("statuses");
+                for (Status status : STATUSES) {
+                    generator.writeNumberField(status.name(), statuses[status.ordinal()]);
+                }
+                generator.writeEndObject();
+                generator.writeNumberField("seconds", seconds);
+                generator.writeNumberField("throughput", throughput());
+
+                generator.writeObjectFieldStart("latencyMs");
+                generator.writeNumberField("p50", p50 / 1e6);
+                generator.writeNumberField("p99", p99 / 1e6);
+                generator.writeNumberField("p999", p999 / 1e6);
+                generator.writeNumberField("max", max / 1e6);
+                generator.writeNumberField("mean", mean / 1e6);
+                generator.writeEndObject();
+
+                generator.writeObjectFieldStart("gc");
+                generator.writeNumberField("pauses", gcPauses);
+                generator.writeNumberField("pauseMs", gcPauseMillis);
+                generator.writeNumberField("maxPauseMs", gcMaxPauseMillis);
+                generator.writeEndObject();
+
+                generator.writeObjectFieldStart("allocation");
+                generator.writeNumberField("bytes", allocatedBytes);
+                generator.writeNumberField("bytesPerSecond", allocatedBytes < 0 || seconds == 0 ? -1 : allocatedBytes / seconds);
+                generator.writeNumberField("bytesPerRequest", allocatedBytes < 0 || requests == 0 ? -1 : allocatedBytes / requests);
+                generator.writeEndObject();
+
+                generator.writeEndObject();
+            }
+        }
+    }
+
+    /**
+     * @param config load test settings
+     * @param client client used to fetch the documents, shared by all the simulations like a long running process would
+     * @param codec codec used to map the board and serialize the responses
+     */
+    public LoadGenerator(LoadTestConfig config, ApiClient client, JsonCodec codec) {
+        this.config = config;
+        this.client = client;
+        this.codec = codec;
+    }
+
+    /**
+     * Starts a stand-in server, warms up and measures
+     * @return measured simulations
+     * @throws IOException if the stand-in server can't be started
+     * @throws InterruptedException if interrupted while waiting for the simulations
+     */
+    public Report run() throws IOException, InterruptedException {
+        try (var server = new StandInServer(config)) {
+            if (!config.warmup().isZero()) {
+                drive(server, config.warmup(), new LatencyRecorder(), new AtomicLong(), new AtomicLongArray(STATUSES.length));
+            }
+
+            var latencies = new LatencyRecorder();
+            var errors = new AtomicLong();
+            var statuses = new AtomicLongArray(STATUSES.length);
+            var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            var allocatedBefore = allocatedBytes(threads);
+            long start;
+            long end;
+            try (var pauses = new GcPauses()) {
+                start = System.nanoTime();
+                drive(server, config.duration(), latencies, errors, statuses);
+                end = System.nanoTime();
+
+                var allocatedAfter = allocatedBytes(threads);
+                var counts = new long[STATUSES.length];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = statuses.get(i);
+                }
+                return new Report(config, latencies.count(), errors.get(), counts, (end - start) / 1e9,
+                        latencies.percentile(0.5), latencies.percentile(0.99), latencies.percentile(0.999),
+                        latencies.max(), latencies.mean(), pauses.count(), pauses.totalMillis(), pauses.maxMillis(),
+                        allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore);
+            }
+        }
+    }
+
+    /**
+     * Runs simulations for the given time, then waits for the ones still in flight
+     */
+    private void drive(StandInServer server, Duration duration, LatencyRecorder latencies, AtomicLong errors,
+                       AtomicLongArray statuses) throws InterruptedException {
+        var deadline = System.nanoTime() + duration.toNanos();
+        var next = new AtomicLong();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (config.rate() > 0) {
+                // open loop: simulations are due at fixed intervals, at most `concurrency` of them in flight
+                var interval = (long) (1e9 / config.rate());
+                var inFlight = new Semaphore(config.concurrency());
+                for (long due = System.nanoTime(); due < deadline; due += interval) {
+                    var wait = due - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                    inFlight.acquire();
+                    var scheduled = due;
+                    executor.execute(() -> {
+                        try {
+                            measure(server, next.getAndIncrement(), scheduled, latencies, errors, statuses);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            } else {
+                // closed loop: each worker starts a simulation as soon as its previous one ends
+                for (int worker = 0; worker < config.concurrency(); worker++) {
+                    executor.execute(() -> {
+                        while (System.nanoTime() < deadline) {
+                            measure(server, next.getAndIncrement(), System.nanoTime(), latencies, errors, statuses);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private void measure(StandInServer server, long document, long start, LatencyRecorder latencies, AtomicLong errors,
+                         AtomicLongArray statuses) {
+        try {
+            statuses.incrementAndGet(simulate(server, document).status().ordinal());
+        } catch (Exception e) {
+            errors.incrementAndGet();
+        }
+        latencies.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Same flow as the command line: board and commands requested at the same time, commands executed while they're
+     * still being downloaded, response serialized
+     */
+    private Response simulate(StandInServer server, long document) throws Exception {
+        var board = client.fetchAsync(server.boardUrl(document));
+        var commands = client.fetchStreamAsync(server.commandsUrl(document));
+        Response response;
+        try (InputStream commandsJson = commands.get()) {
+            response = new StreamingSimulation(codec.factory()).run(codec.readBoard(board.get()), commandsJson);
+        }
+        codec.writeResponse(response);
+        return response;
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        try {
+            return threads.isThreadAllocatedMemoryEnabled() ? threads.getTotalThreadAllocatedBytes() : -1;
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.hangovers.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Shape of a load test: the generated documents, the stand-in APIs latency and how hard they get driven.
+ * @param size width and height of the generated boards
+ * @param density fraction of the board cells holding an obstacle
+ * @param commands commands in each generated list, START included
+ * @param documents distinct boards and command lists served, requests cycle through them
+ * @param latency delay added by the stand-in APIs to every response
+ * @param jitter maximum random variation of the delay, in both directions
+ * @param rate simulations started per second, 0 to run a closed loop where each worker starts a new simulation as soon
+ *             as its previous one ends
+ * @param concurrency workers of a closed loop, maximum simulations in flight of an open one
+ * @param warmup time spent running simulations before measuring
+ * @param duration time measured
+ * @param seed seed of the generated documents and jitter
+ */
+public record LoadTestConfig(int size, double density, int commands, int documents, Duration latency, Duration jitter,
+                             double rate, int concurrency, Duration warmup, Duration duration, long seed) {
+
+    public static final LoadTestConfig DEFAULT = new LoadTestConfig(1000, 0.01, 100, 8, Duration.ZERO, Duration.ZERO,
+            0, 8, Duration.ofSeconds(5), Duration.ofSeconds(30), 42);
+
+    /**
+     * @throws IllegalArgumentException if a value is out of its range
+     */
+    public LoadTestConfig {
+        if (size < 1 || density < 0 || density >= 1 || commands < 1 || documents < 1 || latency.isNegative()
+                || jitter.isNegative() || rate < 0 || concurrency < 1 || warmup.isNegative() || duration.isNegative()
+                || duration.isZero()) {
+            throw new IllegalArgumentException("Invalid load test configuration: " + this);
+        }
+    }
+
+    /**
+     * Overrides the {@link #DEFAULT} values with "key=value" arguments, e.g. "rate=500 latencyMs=20 durationSeconds=60".
+     * Keys are the record components, durations take a unit suffix: latencyMs, jitterMs, warmupSeconds, durationSeconds.
+     * @param args "key=value" arguments
+     * @return parsed configuration
+     * @throws IllegalArgumentException if an argument is not valid
+     */
+    public static LoadTestConfig parse(String... args) {
+        var config = DEFAULT;
+        for (String arg : args) {
+            var separator = arg.indexOf('=');
+            if (separator < 0) throw new IllegalArgumentException("Expected key=value: " + arg);
+            var key = arg.substring(0, separator);
+            var value = arg.substring(separator + 1);
+            try {
+                config = config.with(key, value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+            }
+        }
+        return config;
+    }
+
+    private LoadTestConfig with(String key, String value) {
+        var c = this;
+        return switch (key) {
+            case "size" -> new LoadTestConfig(Integer.parseInt(value), c.density, c.commands, c.documents, c.latency,
+                    c.jitter, c.rate, c.concurrency, c.warmup, c.duration, c.seed);
+            case "density" -> new LoadTestConfig(c.size, Double.parseDouble(value), c.commands, c.documents, c.latency,
+                    c.jitter, c.rate, c.concurrency, c.warmup, c.duration, c.seed);
+            case "commands" -> new LoadTestConfig(c.size, c.density, Integer.parseInt(value), c.documents, c.latency,
+                    c.jitter, c.rate, c.concurrency, c.warmup, c.duration, c.seed);
+            case "documents" -> new LoadTestConfig(c.size, c.density, c.commands, Integer.parseInt(value), c.latency,
+                    c.jitter, c.rate, c.concurrency, c.warmup, c.duration, c.seed);
+            case "latencyMs" -> new LoadTestConfig(c.size, c.density, c.commands, c.documents,
+                    Duration.ofMillis(Long.parseLong(value)), c.jitter, c.rate, c.concurrency, c.warmup, c.duration, c.seed);
+            case "jitterMs" -> new LoadTestConfig(c.size, c.density, c.commands, c.documents, c.latency,
+                    Duration.ofMillis(Long.parseLong(value)), c.rate, c.concurrency, c.warmup, c.duration, c.seed);
+            case "rate" -> new LoadTestConfig(c.size, c.density, c.commands, c.documents, c.latency, c.jitter,
+                    Double.parseDouble(value), c.concurrency, c.warmup, c.duration, c.seed);
+            case "concurrency" -> new LoadTestConfig(c.size, c.density, c.commands, c.documents, c.latency, c.jitter,
+                    c.rate, Integer.parseInt(value), c.warmup, c.duration, c.seed);
+            case "warmupSeconds" -> new LoadTestConfig(c.size, c.density, c.commands, c.documents, c.latency, c.jitter,
+                    c.rate, c.concurrency, Duration.ofSeconds(Long.parseLong(value)), c.duration, c.seed);
+            case "durationSeconds" -> new LoadTestConfig(c.size, c.density, c.commands, c.documents, c.latency, c.jitter,
+                    c.rate, c.concurrency, c.warmup, Duration.ofSeconds(Long.parseLong(value)), c.seed);
+            case "seed" -> new LoadTestConfig(c.size, c.density, c.commands, c.documents, c.latency, c.jitter,
+                    c.rate, c.concurrency, c.warmup, c.duration, Long.parseLong(value));
+            default -> throw new IllegalArgumentException("Unknown load test setting: " + key);
+        };
+    }
+}
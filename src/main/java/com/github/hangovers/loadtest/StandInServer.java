@@ -0,0 +1,145 @@
+package com.github.hangovers.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in of the board and commands APIs, serving generated documents at /boards/{n}.json and
+ * /commands/{n}.json. Documents are generated once, when the server starts, so that serving them costs only the
+ * configured latency: every response is delayed by the latency plus or minus a random jitter, on its own virtual
+ * thread, so that slow responses don't hold back the others.
+ */
+public final class StandInServer implements AutoCloseable {
+
+    private static final String[] DIRECTIONS = {"NORTH", "EAST", "SOUTH", "WEST"};
+
+    private final LoadTestConfig config;
+    private final byte[][] boards;
+    private final byte[][] commands;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Generates the documents and starts the server on a random loopback port
+     * @param config documents shape and latency
+     * @throws IOException if the server can't be started
+     */
+    public StandInServer(LoadTestConfig config) throws IOException {
+        this.config = config;
+        this.boards = new byte[config.documents()][];
+        this.commands = new byte[config.documents()][];
+        var random = new Random(config.seed());
+        for (int i = 0; i < config.documents(); i++) {
+            boards[i] = board(random);
+            commands[i] = commands(random);
+        }
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/boards/", exchange -> respond(exchange, boards));
+        server.createContext("/commands/", exchange -> respond(exchange, commands));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @param document document number, cycling through the generated ones
+     * @return url of the board
+     */
+    public String boardUrl(long document) {
+        return "http://localhost:" + server.getAddress().getPort() + "/boards/" + document % boards.length + ".json";
+    }
+
+    /**
+     * @param document document number, cycling through the generated ones
+     * @return url of the commands list
+     */
+    public String commandsUrl(long document) {
+        return "http://localhost:" + server.getAddress().getPort() + "/commands/" + document % commands.length + ".json";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void respond(HttpExchange exchange, byte[][] documents) throws IOException {
+        try (exchange) {
+            var path = exchange.getRequestURI().getPath();
+            int document;
+            try {
+                document = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1, path.length() - ".json".length()));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                document = -1;
+            }
+            if (document < 0 || document >= documents.length) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            delay();
+            var body = documents[document];
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private void delay() {
+        var nanos = config.latency().toNanos();
+        var jitter = config.jitter().toNanos();
+        if (jitter > 0) {
+            nanos += ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+        }
+        if (nanos <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            // server stopping, the response is sent right away
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Document generation
+
+    private byte[] board(Random random) {
+        var size = config.size();
+        var count = (long) Math.min((double) size * size * config.density(), Integer.MAX_VALUE - 8);
+        var json = new StringBuilder((int) Math.min(count * 24 + 64, Integer.MAX_VALUE - 8))
+                .append("{\"width\":").append(size).append(",\"height\":").append(size).append(",\"obstacles\":[");
+        for (long i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"x\":").append(random.nextInt(size)).append(",\"y\":").append(random.nextInt(size)).append('}');
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] commands(Random random) {
+        var size = config.size();
+        var json = new StringBuilder(config.commands() * 16 + 32).append("{\"commands\":[\"START ")
+                .append(random.nextInt(size)).append(',').append(random.nextInt(size)).append(',')
+                .append(DIRECTIONS[random.nextInt(4)]).append('"');
+        // short moves, so that the knight wanders around the board instead of leaving it at once
+        var maxMove = Math.max(1, size / 10);
+        for (int i = 1; i < config.commands(); i++) {
+            json.append(",\"");
+            if (random.nextBoolean()) {
+                json.append("MOVE ").append(random.nextInt(maxMove) + 1);
+            } else {
+                json.append("ROTATE ").append(DIRECTIONS[random.nextInt(4)]);
+            }
+            json.append('"');
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
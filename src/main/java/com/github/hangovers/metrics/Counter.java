@@ -0,0 +1,43 @@
+package com.github.hangovers.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter, striped so that concurrent simulations never contend on the same memory location.
+ */
+public final class Counter {
+
+    private final String name;
+    private final String help;
+    private final LongAdder value = new LongAdder();
+
+    /**
+     * @param name prometheus metric name
+     * @param help prometheus metric description
+     */
+    Counter(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * @return current value, not an atomic snapshot while it's being updated
+     */
+    public long get() {
+        return value.sum();
+    }
+
+    void writePrometheus(StringBuilder output) {
+        output.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" counter\n")
+                .append(name).append(' ').append(get()).append('\n');
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.hangovers.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the execution of a commands list, measured like {@link Metrics#EXECUTION}.
+ * Disabled unless the recording uses the knightspath.jfc settings, see {@link Recordings}.
+ */
+@Name("com.github.hangovers.Execution")
+@Label("Execution")
+@Category("KnightsPath")
+@Description("Execution of a commands list")
+@Enabled(false)
+@StackTrace(false)
+public final class ExecutionEvent extends Event {
+
+    @Label("Commands")
+    @Description("Commands executed up to the one that stopped the simulation, after the optimizer dropped the redundant ones")
+    private long commands;
+
+    @Label("Steps")
+    @Description("Cells walked by the knight, -1 if the list was evaluated in parallel")
+    private long steps;
+
+    @Label("Collisions")
+    @Description("Moves stopped by an obstacle, -1 if the list was evaluated in parallel")
+    private long collisions;
+
+    @Label("Status")
+    private String status;
+
+    /**
+     * Ends the event and commits it, if it's being recorded
+     * @param commands commands executed
+     * @param steps cells walked by the knight, -1 if not counted
+     * @param collisions moves stopped by an obstacle, -1 if not counted
+     * @param status final status of the simulation
+     */
+    public void commit(long commands, long steps, long collisions, String status) {
+        end();
+        if (!shouldCommit()) return;
+        this.commands = commands;
+        this.steps = steps;
+        this.collisions = collisions;
+        this.status = status;
+        commit();
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.hangovers.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a board or commands http request, each attempt is recorded.
+ * Disabled unless the recording uses the knightspath.jfc settings, see {@link Recordings}.
+ */
+@Name("com.github.hangovers.Fetch")
+@Label("Fetch")
+@Category("KnightsPath")
+@Description("Board or commands http request, each attempt is recorded")
+@Enabled(false)
+@StackTrace(false)
+public final class FetchEvent extends Event {
+
+    @Label("URL")
+    private String url;
+
+    @Label("Status")
+    @Description("Http status code, 0 if no response was received")
+    private int status;
+
+    @Label("Bytes")
+    @Description("Body bytes received, compressed if the server supports it, -1 if the body is streamed with an unknown length")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * Ends the event and commits it, if it's being recorded
+     * @param url requested url
+     * @param status http status code, 0 if no response was received
+     * @param bytes body bytes received, -1 if unknown
+     */
+    public void commit(String url, int status, long bytes) {
+        end();
+        if (!shouldCommit()) return;
+        this.url = url;
+        this.status = status;
+        this.bytes = bytes;
+        commit();
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.hangovers.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed exponential buckets, from 1 microsecond to about 17 seconds.
+ * Recording is a short bucket lookup and two striped increments, no locks and no allocations.
+ */
+public final class Histogram {
+
+    // bucket upper bounds in nanoseconds, powers of 4 starting at 1 microsecond; the last bucket has no upper bound
+    private static final long[] BOUNDS = new long[13];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS[i] = 1_000L << (2 * i);
+        }
+    }
+
+    private final String name;
+    private final String help;
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param name prometheus metric name
+     * @param help prometheus metric description
+     */
+    Histogram(String name, String help) {
+        this.name = name;
+        this.help = help;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos measured latency in nanoseconds
+     */
+    public void record(long nanos) {
+        var bucket = 0;
+        while (bucket < BOUNDS.length && nanos > BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sum.add(nanos);
+    }
+
+    /**
+     * @param start {@link System#nanoTime()} at the beginning of the measured operation
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * @return number of recorded latencies
+     */
+    public long count() {
+        var count = 0L;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return sum of the recorded latencies in nanoseconds
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * @param percentile between 0 and 1, e.g. 0.99
+     * @return upper bound in nanoseconds of the bucket holding the given percentile, Long.MAX_VALUE if it's the last
+     * one, 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        var counts = new long[buckets.length];
+        var total = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+
+        var rank = (long) Math.ceil(percentile * total);
+        var seen = 0L;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return BOUNDS[i];
+        }
+        return Long.MAX_VALUE;
+    }
+
+    void writePrometheus(StringBuilder output) {
+        output.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" histogram\n");
+        var cumulative = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            output.append(name).append("_bucket{le=\"")
+                    .append(i < BOUNDS.length ? Double.toString(BOUNDS[i] / 1e9) : "+Inf")
+                    .append("\"} ").append(cumulative).append('\n');
+        }
+        output.append(name).append("_sum ").append(sum() / 1e9).append('\n')
+                .append(name).append("_count ").append(cumulative).append('\n');
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.hangovers.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the json mapping of a document, measured like {@link Metrics#MAPPING}.
+ * Disabled unless the recording uses the knightspath.jfc settings, see {@link Recordings}.
+ */
+@Name("com.github.hangovers.Mapping")
+@Label("Mapping")
+@Category("KnightsPath")
+@Description("Json mapping of a board, a commands list or a simulation request")
+@Enabled(false)
+@StackTrace(false)
+public final class MappingEvent extends Event {
+
+    @Label("Document")
+    private String document;
+
+    @Label("Obstacles")
+    private long obstacles;
+
+    @Label("Commands")
+    private long commands;
+
+    /**
+     * Ends the event and commits it, if it's being recorded
+     * @param document mapped type, e.g. "Board"
+     * @param obstacles obstacles in the document, 0 if it has no board
+     * @param commands commands in the document, 0 if it has no commands list
+     */
+    public void commit(String document, long obstacles, long commands) {
+        end();
+        if (!shouldCommit()) return;
+        this.document = document;
+        this.obstacles = obstacles;
+        this.commands = commands;
+        commit();
+    }
+}
@@ -0,0 +1,215 @@
+package com.github.hangovers.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Process wide metrics registry.
+ * Metrics are never printed: standard output and standard error only carry the json responses, metrics are read over
+ * JMX or as a Prometheus text dump (a file or the server's /metrics endpoint).
+ */
+public final class Metrics {
+
+    public static final Histogram FETCH = new Histogram("knightspath_fetch_seconds",
+            "Latency of board and commands http requests, each attempt is measured");
+    public static final Histogram MAPPING = new Histogram("knightspath_mapping_seconds",
+            "Latency of json documents mapping");
+    public static final Histogram EXECUTION = new Histogram("knightspath_execution_seconds",
+            "Latency of command lists execution");
+
+    public static final Counter STEPS = new Counter("knightspath_steps_total",
+            "Cells walked by the knight");
+    public static final Counter COLLISIONS = new Counter("knightspath_obstacle_collisions_total",
+            "Moves stopped by an obstacle");
+    public static final Counter OUT_OF_THE_BOARD = new Counter("knightspath_out_of_the_board_total",
+            "Simulations ended with an OUT_OF_THE_BOARD status");
+    public static final Counter CACHE_HITS = new Counter("knightspath_board_cache_hits_total",
+            "Boards served by the cache without downloading them");
+    public static final Counter CACHE_MISSES = new Counter("knightspath_board_cache_misses_total",
+            "Boards downloaded from the board api");
+    public static final Counter RESULT_CACHE_HITS = new Counter("knightspath_result_cache_hits_total",
+            "Simulations answered by the result cache");
+    public static final Counter RESULT_CACHE_PREFIX_HITS = new Counter("knightspath_result_cache_prefix_hits_total",
+            "Simulations resumed from the cached result of a shorter commands list");
+    public static final Counter RESULT_CACHE_MISSES = new Counter("knightspath_result_cache_misses_total",
+            "Simulations executed from the START command by the result cache");
+    public static final Counter ELIMINATED_COMMANDS = new Counter("knightspath_eliminated_commands_total",
+            "Redundant commands dropped before execution");
+    public static final Counter RECEIVED_BYTES = new Counter("knightspath_fetch_received_bytes_total",
+            "Board and commands bytes received, compressed if the server supports it");
+    public static final Counter DECODED_BYTES = new Counter("knightspath_fetch_decoded_bytes_total",
+            "Board and commands bytes after decompression");
+
+    private static final List<Histogram> HISTOGRAMS = List.of(FETCH, MAPPING, EXECUTION);
+    private static final List<Counter> COUNTERS = List.of(STEPS, COLLISIONS, OUT_OF_THE_BOARD, CACHE_HITS, CACHE_MISSES,
+            RESULT_CACHE_HITS, RESULT_CACHE_PREFIX_HITS, RESULT_CACHE_MISSES, ELIMINATED_COMMANDS, RECEIVED_BYTES, DECODED_BYTES);
+
+    private static final String OBJECT_NAME = "com.github.hangovers:type=Metrics";
+
+    private Metrics() {
+    }
+
+    /**
+     * @return all the metrics in Prometheus text exposition format
+     */
+    public static String prometheusText() {
+        var output = new StringBuilder();
+        HISTOGRAMS.forEach(histogram -> histogram.writePrometheus(output));
+        COUNTERS.forEach(counter -> counter.writePrometheus(output));
+        return output.toString();
+    }
+
+    /**
+     * Writes the Prometheus text dump, replacing the file atomically so that scrapers never read a partial dump
+     * @param path destination file, e.g. read by node exporter's textfile collector
+     * @throws IOException if the file can't be written
+     */
+    public static void writePrometheus(Path path) throws IOException {
+        var temporary = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            Files.writeString(temporary, prometheusText());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Registers the metrics on the platform MBean server, calling it more than once has no effect
+     * @throws IOException if the MBean can't be registered
+     */
+    public static void registerMBean() throws IOException {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // already registered
+        } catch (JMException e) {
+            throw new IOException("Metrics MBean registration failed", e);
+        }
+    }
+
+    private static final class MetricsBean implements MetricsMXBean {
+
+        @Override
+        public long getFetchCount() {
+            return FETCH.count();
+        }
+
+        @Override
+        public double getFetchMeanMillis() {
+            return meanMillis(FETCH);
+        }
+
+        @Override
+        public double getFetchP99Millis() {
+            return p99Millis(FETCH);
+        }
+
+        @Override
+        public long getMappingCount() {
+            return MAPPING.count();
+        }
+
+        @Override
+        public double getMappingMeanMillis() {
+            return meanMillis(MAPPING);
+        }
+
+        @Override
+        public double getMappingP99Millis() {
+            return p99Millis(MAPPING);
+        }
+
+        @Override
+        public long getExecutionCount() {
+            return EXECUTION.count();
+        }
+
+        @Override
+        public double getExecutionMeanMillis() {
+            return meanMillis(EXECUTION);
+        }
+
+        @Override
+        public double getExecutionP99Millis() {
+            return p99Millis(EXECUTION);
+        }
+
+        @Override
+        public long getStepsSimulated() {
+            return STEPS.get();
+        }
+
+        @Override
+        public long getObstacleCollisions() {
+            return COLLISIONS.get();
+        }
+
+        @Override
+        public long getOutOfTheBoard() {
+            return OUT_OF_THE_BOARD.get();
+        }
+
+        @Override
+        public long getBoardCacheHits() {
+            return CACHE_HITS.get();
+        }
+
+        @Override
+        public long getBoardCacheMisses() {
+            return CACHE_MISSES.get();
+        }
+
+        @Override
+        public long getResultCacheHits() {
+            return RESULT_CACHE_HITS.get();
+        }
+
+        @Override
+        public long getResultCachePrefixHits() {
+            return RESULT_CACHE_PREFIX_HITS.get();
+        }
+
+        @Override
+        public long getResultCacheMisses() {
+            return RESULT_CACHE_MISSES.get();
+        }
+
+        @Override
+        public long getEliminatedCommands() {
+            return ELIMINATED_COMMANDS.get();
+        }
+
+        @Override
+        public long getFetchReceivedBytes() {
+            return RECEIVED_BYTES.get();
+        }
+
+        @Override
+        public long getFetchDecodedBytes() {
+            return DECODED_BYTES.get();
+        }
+
+        @Override
+        public String prometheusText() {
+            return Metrics.prometheusText();
+        }
+
+        private static double meanMillis(Histogram histogram) {
+            var count = histogram.count();
+            return count == 0 ? 0 : histogram.sum() / 1e6 / count;
+        }
+
+        private static double p99Millis(Histogram histogram) {
+            var p99 = histogram.percentile(0.99);
+            return p99 == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : p99 / 1e6;
+        }
+    }
+}
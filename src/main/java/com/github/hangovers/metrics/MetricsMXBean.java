@@ -0,0 +1,52 @@
+package com.github.hangovers.metrics;
+
+/**
+ * JMX view of the {@link Metrics}, latencies are reported in milliseconds
+ */
+public interface MetricsMXBean {
+
+    long getFetchCount();
+
+    double getFetchMeanMillis();
+
+    double getFetchP99Millis();
+
+    long getMappingCount();
+
+    double getMappingMeanMillis();
+
+    double getMappingP99Millis();
+
+    long getExecutionCount();
+
+    double getExecutionMeanMillis();
+
+    double getExecutionP99Millis();
+
+    long getStepsSimulated();
+
+    long getObstacleCollisions();
+
+    long getOutOfTheBoard();
+
+    long getBoardCacheHits();
+
+    long getBoardCacheMisses();
+
+    long getResultCacheHits();
+
+    long getResultCachePrefixHits();
+
+    long getResultCacheMisses();
+
+    long getEliminatedCommands();
+
+    long getFetchReceivedBytes();
+
+    long getFetchDecodedBytes();
+
+    /**
+     * @return all the metrics in Prometheus text format
+     */
+    String prometheusText();
+}
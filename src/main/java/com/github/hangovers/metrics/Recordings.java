@@ -0,0 +1,66 @@
+package com.github.hangovers.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.HashMap;
+
+/**
+ * Flight Recorder settings shipped with the jar.
+ * The {@link FetchEvent}, {@link MappingEvent} and {@link ExecutionEvent} are disabled by default, so they cost next to
+ * nothing when nothing is being recorded: knightspath.jfc, at the root of the jar, enables them.
+ */
+public final class Recordings {
+
+    public static final String SETTINGS = "knightspath.jfc";
+
+    private Recordings() {
+    }
+
+    /**
+     * @return settings enabling the KnightsPath events
+     * @throws IOException if the settings can't be read
+     */
+    public static Configuration configuration() throws IOException {
+        try (InputStream input = Recordings.class.getClassLoader().getResourceAsStream(SETTINGS)) {
+            if (input == null) throw new IOException("Missing " + SETTINGS);
+            try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            }
+        } catch (ParseException e) {
+            throw new IOException("Invalid " + SETTINGS, e);
+        }
+    }
+
+    /**
+     * Starts a recording with the JDK's default settings plus the KnightsPath events, written to the destination when
+     * the JVM exits
+     * @param destination recording file
+     * @return started recording
+     * @throws IOException if the settings can't be read or the destination can't be written
+     */
+    public static Recording start(Path destination) throws IOException {
+        Configuration defaults;
+        try {
+            defaults = Configuration.getConfiguration("default");
+        } catch (ParseException e) {
+            throw new IOException("Invalid default Flight Recorder settings", e);
+        }
+        var settings = new HashMap<>(defaults.getSettings());
+        settings.putAll(configuration().getSettings());
+
+        var recording = new Recording(settings);
+        recording.setName("KnightsPath");
+        recording.setDestination(destination);
+        recording.setDumpOnExit(true);
+        recording.start();
+        return recording;
+    }
+}
@@ -1,13 +1,89 @@
 package com.github.hangovers.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.nio.LongBuffer;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 
 /**
- * @param width board width fetched from board api endpoint
- * @param height board height fetched from board api endpoint
- * @param obstacles obstacles in the board from board api endpoint
+ * Board's data fetched from board api endpoint.
+ * Obstacles are kept in primitive structures: an {@link ObstacleSet} for collision checks and an {@link ObstacleIndex}
+ * sorted by row and column so that knight's moves can jump straight to the first obstacle or board edge in front of it.
+ * Boards too big to be loaded whole are backed by {@link BoardTiles} instead, fetched as the knight moves.
  */
-public record Board(Integer width, Integer height, Set<Coordinates> obstacles) {
+public final class Board {
+
+    private final Integer width;
+    private final Integer height;
+    private final ObstacleSet obstacleSet;
+    private final ObstacleIndex obstacleIndex;
+    // null unless the board is tiled, obstacle set and index are null otherwise
+    private final BoardTiles tiles;
+
+    /**
+     * @param width board width fetched from board api endpoint
+     * @param height board height fetched from board api endpoint
+     * @param obstacles obstacles in the board from board api endpoint
+     */
+    public Board(Integer width, Integer height, Set<Coordinates> obstacles) {
+        this(width, height, obstacles == null ? new long[0] : obstacles.stream()
+                .mapToLong(coords -> Coordinates.pack(coords.x(), coords.y()))
+                .toArray());
+    }
+
+    private Board(Integer width, Integer height, long[] obstacles) {
+        this(width, height, ObstacleSet.of(width, height, obstacles), new ObstacleIndex(obstacles));
+    }
+
+    /**
+     * @param obstacleSet obstacles used for collision checks
+     * @param obstacleIndex the same obstacles, indexed by row and column
+     */
+    Board(Integer width, Integer height, ObstacleSet obstacleSet, ObstacleIndex obstacleIndex) {
+        this.width = width;
+        this.height = height;
+        this.obstacleSet = obstacleSet;
+        this.obstacleIndex = obstacleIndex;
+        this.tiles = null;
+    }
+
+    private Board(BoardTiles tiles) {
+        this.width = tiles.width();
+        this.height = tiles.height();
+        this.obstacleSet = null;
+        this.obstacleIndex = null;
+        this.tiles = tiles;
+    }
+
+    /**
+     * Board whose obstacles are fetched a tile at a time, when the knight gets to them.
+     * Tile fetch errors are thrown as UncheckedIOException by the methods looking for obstacles.
+     * @param tiles tiled obstacles
+     * @return tiled board
+     */
+    public static Board tiled(BoardTiles tiles) {
+        return new Board(tiles);
+    }
+
+    /**
+     * Used by Jackson, obstacles are read straight into packed coordinates.
+     * @param width board width fetched from board api endpoint
+     * @param height board height fetched from board api endpoint
+     * @param obstacles obstacles packed with {@link Coordinates#pack(int, int)}
+     * @return Board object
+     */
+    @JsonCreator
+    public static Board of(@JsonProperty("width") Integer width,
+                           @JsonProperty("height") Integer height,
+                           @JsonProperty("obstacles") @JsonDeserialize(using = PackedCoordinatesDeserializer.class) long[] obstacles) {
+        return new Board(width, height, obstacles == null ? new long[0] : obstacles);
+    }
 
     /**
      * @param coords coordinates of knight's current position
@@ -26,6 +102,174 @@ public record Board(Integer width, Integer height, Set<Coordinates> obstacles) {
      * @return true if coords are in the position of an obstacle, false otherwise
      */
     public boolean checkCollision(Coordinates coords) {
-        return obstacles.contains(coords);
+        return tiles != null ? tiles.contains(coords.x(), coords.y()) : obstacleSet.contains(coords.x(), coords.y());
+    }
+
+    /**
+     * @param coords coordinates of knight's current position, expected to be inside the board
+     * @param direction direction the knight is facing
+     * @return number of steps needed to reach the first cell out of the board
+     */
+    public long distanceToEdge(Coordinates coords, Direction direction) {
+        return switch (direction) {
+            case EAST -> (long) width() - coords.x();
+            case WEST -> coords.x() + 1L;
+            case NORTH -> (long) height() - coords.y();
+            case SOUTH -> coords.y() + 1L;
+        };
+    }
+
+    /**
+     * @param coords coordinates of knight's current position
+     * @param direction direction the knight is facing
+     * @return number of steps needed to reach the first obstacle, Integer.MAX_VALUE if there is none
+     */
+    public int distanceToObstacle(Coordinates coords, Direction direction) {
+        return distanceToObstacle(coords.x(), coords.y(), direction, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #distanceToObstacle(Coordinates, Direction)}, obstacles farther than maxDistance may not be
+     * looked for: tiled boards don't fetch tiles the knight can't reach
+     * @param maxDistance steps the knight is going to walk at most
+     * @return number of steps needed to reach the first obstacle, Integer.MAX_VALUE if there is none within maxDistance
+     */
+    public int distanceToObstacle(Coordinates coords, Direction direction, int maxDistance) {
+        return distanceToObstacle(coords.x(), coords.y(), direction, maxDistance);
+    }
+
+    /**
+     * Same as {@link #distanceToObstacle(Coordinates, Direction, int)}, without a Coordinates record
+     * @param x horizontal position of the knight
+     * @param y vertical position of the knight
+     * @param direction direction the knight is facing
+     * @param maxDistance steps the knight is going to walk at most
+     * @return number of steps needed to reach the first obstacle, Integer.MAX_VALUE if there is none within maxDistance
+     */
+    public int distanceToObstacle(int x, int y, Direction direction, int maxDistance) {
+        return tiles != null
+                ? tiles.distanceToObstacle(x, y, direction, maxDistance)
+                : obstacleIndex.distanceToObstacle(x, y, direction);
+    }
+
+    public Integer width() {
+        return width;
+    }
+
+    public Integer height() {
+        return height;
+    }
+
+    /**
+     * Read-only view over the obstacle index, Coordinates are only created while it's iterated.
+     * Obstacles with negative coordinates can never be reached and are not kept. Iterating a tiled board fetches all
+     * its tiles
+     * @return obstacles in the board
+     */
+    public Set<Coordinates> obstacles() {
+        return new ObstacleView();
+    }
+
+    /**
+     * Tiled boards fetch all their tiles
+     * @return obstacles packed with {@link Coordinates#pack(int, int)}, sorted and without duplicates
+     */
+    public long[] packedObstacles() {
+        return tiles != null ? tiles.obstacles() : obstacleIndex.obstacles();
+    }
+
+    /**
+     * Obstacles read in place: a board mapped from a {@link BoardFile} reads them from the file instead of the heap.
+     * Tiled boards fetch all their tiles
+     * @return read-only view of the obstacles packed with {@link Coordinates#pack(int, int)}, sorted and without
+     * duplicates
+     */
+    public LongBuffer obstacleBuffer() {
+        var obstacles = tiles != null ? LongBuffer.wrap(tiles.obstacles()) : obstacleIndex.columns();
+        return obstacles.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return true if the obstacles are fetched a tile at a time, see {@link #tiled(BoardTiles)}
+     */
+    public boolean isTiled() {
+        return tiles != null;
+    }
+
+    /**
+     * Tiled boards are identified by where their tiles are fetched from, since reading their obstacles fetches them all
+     * @return identity of the tiles, see {@link BoardTiles#identity()}, null if the board is not tiled
+     */
+    public String tilesIdentity() {
+        return tiles != null ? tiles.identity() : null;
+    }
+
+    /**
+     * @return number of distinct obstacles in the board
+     */
+    public int obstacleCount() {
+        return tiles != null ? (int) Math.min(tiles.count(), Integer.MAX_VALUE) : obstacleIndex.size();
+    }
+
+    ObstacleIndex obstacleIndex() {
+        return tiles != null ? new ObstacleIndex(tiles.obstacles()) : obstacleIndex;
+    }
+
+    /**
+     * Tiled boards are only equal to tiled boards with the same {@link #tilesIdentity()}, no tile is fetched
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Board other)) return false;
+        if (tiles != null || other.tiles != null) return Objects.equals(tilesIdentity(), other.tilesIdentity());
+        return Objects.equals(width, other.width) &&
+                Objects.equals(height, other.height) &&
+                obstacleBuffer().equals(other.obstacleBuffer());
+    }
+
+    @Override
+    public int hashCode() {
+        if (tiles != null) return tiles.identity().hashCode();
+        return Objects.hash(width, height, obstacleBuffer());
+    }
+
+    @Override
+    public String toString() {
+        return "Board[width=" + width + ", height=" + height + ", obstacles=" + obstacleCount() + "]";
+    }
+
+    private final class ObstacleView extends AbstractSet<Coordinates> {
+
+        @Override
+        public int size() {
+            return obstacleCount();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Coordinates coords && coords.x() >= 0 && coords.y() >= 0 && (tiles != null
+                    ? tiles.contains(coords.x(), coords.y())
+                    : obstacleIndex.contains(coords.x(), coords.y()));
+        }
+
+        @Override
+        public Iterator<Coordinates> iterator() {
+            var obstacles = obstacleBuffer();
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < obstacles.limit();
+                }
+
+                @Override
+                public Coordinates next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    var obstacle = obstacles.get(next++);
+                    return new Coordinates(Coordinates.unpackX(obstacle), Coordinates.unpackY(obstacle));
+                }
+            };
+        }
     }
 }
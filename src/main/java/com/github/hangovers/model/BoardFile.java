@@ -0,0 +1,158 @@
+package com.github.hangovers.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary board format, meant to be memory-mapped so that huge boards load instantly and are shared by
+ * several processes through the page cache.
+ * Little-endian layout:
+ * <pre>
+ * header (32 bytes): magic "KBRD", version, width, height, obstacles count (long), flags, reserved
+ * obstacles packed as (x << 32 | y), sorted          count longs
+ * obstacles packed as (y << 32 | x), sorted          count longs
+ * row-major bit grid, only if the GRID flag is set   ceil(width * height / 64) longs
+ * </pre>
+ * Mapped boards read obstacles straight from the file, nothing gets copied on the heap.
+ */
+public final class BoardFile {
+
+    private static final int MAGIC = 0x4B425244;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int GRID = 1;
+
+    private BoardFile() {
+    }
+
+    /**
+     * Writes the board in binary format. The file is replaced atomically, processes which already mapped the old one
+     * keep reading it.
+     * A bit grid is added when it takes no more space than the sorted obstacles, collision checks are then O(1)
+     * instead of a binary search.
+     * @param board board to be written, width and height are required
+     * @param path destination file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Board board, Path path) throws IOException {
+        if (board.width() == null || board.height() == null) {
+            throw new IOException("Board size is missing");
+        }
+
+        var index = board.obstacleIndex();
+        long count = index.size();
+        long cells = (long) board.width() * board.height();
+        var grid = cells <= GridObstacleSet.MAX_CELLS && cells / Byte.SIZE <= count * Long.BYTES;
+
+        // not a createTempFile, its owner-only permissions would keep other processes from mapping the board
+        var temporary = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                var header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putInt(board.width())
+                        .putInt(board.height())
+                        .putLong(count)
+                        .putInt(grid ? GRID : 0)
+                        .putInt(0)
+                        .flip();
+                writeFully(channel, header);
+
+                var section = new SectionWriter(channel);
+                section.write(index.columns());
+                section.write(index.rows());
+                if (grid) {
+                    section.write(LongBuffer.wrap(GridObstacleSet.cells(board.width(), board.height(), board.packedObstacles())));
+                }
+                section.flush();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps a board written by {@link #write(Board, Path)}
+     * @param path board file
+     * @return board reading its obstacles from the mapped file
+     * @throws IOException if the file can't be read or is not a valid board file
+     */
+    public static Board map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) throw new IOException("Not a board file: " + path);
+
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) throw new IOException("Not a board file: " + path);
+            if (header.getInt() != VERSION) throw new IOException("Unsupported board file version: " + path);
+            var width = header.getInt();
+            var height = header.getInt();
+            var count = header.getLong();
+            var flags = header.getInt();
+            if (width < 0 || height < 0 || count < 0) throw new IOException("Invalid board size: " + path);
+
+            var sectionSize = count * Long.BYTES;
+            var gridSize = (flags & GRID) != 0 ? ((long) width * height + Long.SIZE - 1) / Long.SIZE * Long.BYTES : 0;
+            if (channel.size() != HEADER_SIZE + 2 * sectionSize + gridSize) {
+                throw new IOException("Truncated board file: " + path);
+            }
+
+            var columns = mapLongs(channel, HEADER_SIZE, sectionSize);
+            var rows = mapLongs(channel, HEADER_SIZE + sectionSize, sectionSize);
+            var index = new ObstacleIndex(rows, columns);
+            ObstacleSet obstacleSet = gridSize > 0
+                    ? new GridObstacleSet(width, height, mapLongs(channel, HEADER_SIZE + 2 * sectionSize, gridSize))
+                    : new SortedObstacleSet(index);
+
+            // mappings stay valid after the channel is closed
+            return new Board(width, height, obstacleSet, index);
+        }
+    }
+
+    private static LongBuffer mapLongs(FileChannel channel, long offset, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Board section too large to be mapped: " + size + " bytes");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, size).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Copies LongBuffers to the file through a fixed size little-endian buffer
+     */
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        SectionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(LongBuffer values) throws IOException {
+            while (values.hasRemaining()) {
+                if (buffer.remaining() < Long.BYTES) flush();
+                buffer.putLong(values.get());
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            writeFully(channel, buffer);
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.github.hangovers.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Obstacles of a board too big to be loaded whole, split in square tiles fetched only when the knight gets to them.
+ * Fetched tiles are kept in an LRU cache of a fixed number of tiles, each indexed by row and column like a small
+ * {@link ObstacleIndex}. Every time the knight looks for obstacles in a tile, the next tile in the direction it's
+ * facing gets prefetched, so that moves rarely wait for a download.
+ * Tiles are thread safe, concurrent requests for the same tile share the same fetch.
+ */
+public final class BoardTiles {
+
+    public static final int DEFAULT_CACHED_TILES = 256;
+
+    // numbers tiles whose source has no location, each one is only equal to itself
+    private static final AtomicLong UNKNOWN_LOCATIONS = new AtomicLong();
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int columns;
+    private final int rows;
+    private final long count;
+    private final TileSource source;
+    private final String identity;
+    private final LinkedHashMap<Long, CompletableFuture<ObstacleIndex>> cache;
+
+    /**
+     * @param header size and tiling of the board
+     * @param source where tiles are fetched from
+     * @param cachedTiles maximum number of tiles kept in memory, at least 2 so that prefetching can't evict the tile in use
+     * @throws IllegalArgumentException if fewer than 2 tiles can be cached
+     */
+    public BoardTiles(TiledBoardFile.Header header, TileSource source, int cachedTiles) {
+        if (cachedTiles < 2) {
+            throw new IllegalArgumentException("At least 2 tiles must be cached: " + cachedTiles);
+        }
+        this.width = header.width();
+        this.height = header.height();
+        this.tileSize = header.tileSize();
+        this.columns = header.columns();
+        this.rows = header.rows();
+        this.count = header.count();
+        this.source = source;
+        var location = source.location();
+        this.identity = (location != null ? location : "unknown:" + UNKNOWN_LOCATIONS.incrementAndGet())
+                + " " + width + "x" + height + " " + count;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<ObstacleIndex>> eldest) {
+                return size() > cachedTiles;
+            }
+        };
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return number of obstacles in the board, known without fetching any tile
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return location of the tiles with the board size and number of obstacles, known without fetching any tile:
+     * tiles with the same identity have the same obstacles
+     */
+    public String identity() {
+        return identity;
+    }
+
+    /**
+     * @return number of tiles currently cached or being fetched
+     */
+    public synchronized int cachedTiles() {
+        return cache.size();
+    }
+
+    /**
+     * @return true if (x, y) is an obstacle, fetching its tile if needed
+     * @throws UncheckedIOException if the tile can't be fetched
+     */
+    boolean contains(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return false;
+        return tile(x / tileSize, y / tileSize).contains(x, y);
+    }
+
+    /**
+     * Walks the tiles in front of the knight until an obstacle, the board edge or the maximum distance is reached
+     * @param x horizontal position of the knight
+     * @param y vertical position of the knight
+     * @param direction direction the knight is facing
+     * @param maxDistance obstacles farther than this are not looked for
+     * @return number of steps needed to reach the first obstacle, Integer.MAX_VALUE if there is none within maxDistance
+     * @throws UncheckedIOException if a tile can't be fetched
+     */
+    int distanceToObstacle(int x, int y, Direction direction, long maxDistance) {
+        var horizontal = direction == Direction.EAST || direction == Direction.WEST;
+        var forward = direction == Direction.EAST || direction == Direction.NORTH;
+        var along = horizontal ? x : y;
+        var across = horizontal ? y : x;
+        var length = horizontal ? width : height;
+        if (across < 0 || across >= (horizontal ? height : width)) return Integer.MAX_VALUE;
+
+        // cells of the board in front of the knight, which may be outside it
+        long first = forward ? Math.max(along, 0) : Math.min(along, length - 1L);
+        long end = forward ? Math.min(along + maxDistance, length - 1L) : Math.max(along - maxDistance, 0L);
+        if (forward ? first > end : first < end) return Integer.MAX_VALUE;
+
+        var step = forward ? 1 : -1;
+        var last = (int) (end / tileSize);
+        for (int current = (int) (first / tileSize); ; current += step) {
+            var column = horizontal ? current : x / tileSize;
+            var row = horizontal ? y / tileSize : current;
+            var tile = tile(column, row);
+            prefetch(column + (horizontal ? step : 0), row + (horizontal ? 0 : step));
+
+            // tiles only hold their own obstacles, the first one found is the closest
+            var distance = tile.distanceToObstacle(x, y, direction);
+            if (distance != Integer.MAX_VALUE) return distance;
+            if (current == last) return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Fetches every tile of the board
+     * @return obstacles packed with {@link Coordinates#pack(int, int)}, sorted
+     * @throws UncheckedIOException if a tile can't be fetched
+     */
+    long[] obstacles() {
+        var obstacles = new long[(int) Math.min(count, Integer.MAX_VALUE - 8)];
+        var size = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                for (long obstacle : tile(column, row).obstacles()) {
+                    if (size == obstacles.length) obstacles = Arrays.copyOf(obstacles, size * 2 + 1);
+                    obstacles[size++] = obstacle;
+                }
+            }
+        }
+        obstacles = Arrays.copyOf(obstacles, size);
+        Arrays.sort(obstacles);
+        return obstacles;
+    }
+
+    private ObstacleIndex tile(int column, int row) {
+        try {
+            return load(column, row).join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            throw cause instanceof UncheckedIOException unchecked ? unchecked
+                    : new UncheckedIOException(cause instanceof IOException io ? io : new IOException("Tile fetch failed", cause));
+        }
+    }
+
+    private void prefetch(int column, int row) {
+        if (column >= 0 && row >= 0 && column < columns && row < rows) {
+            load(column, row);
+        }
+    }
+
+    private CompletableFuture<ObstacleIndex> load(int column, int row) {
+        var key = (long) row * columns + column;
+        CompletableFuture<ObstacleIndex> tile;
+        synchronized (this) {
+            tile = cache.get(key);
+            if (tile != null) return tile;
+            tile = new CompletableFuture<>();
+            cache.put(key, tile);
+        }
+
+        var loaded = tile;
+        source.fetch(column, row).whenComplete((obstacles, error) -> {
+            if (error == null) {
+                loaded.complete(new ObstacleIndex(obstacles));
+            } else {
+                // failed fetches are not cached, the next access tries again
+                synchronized (this) {
+                    cache.remove(key, loaded);
+                }
+                loaded.completeExceptionally(error);
+            }
+        });
+        return loaded;
+    }
+}
@@ -5,4 +5,37 @@ package com.github.hangovers.model;
  * @param y vertical position
  */
 public record Coordinates(int x, int y) {
+
+    /**
+     * @param x horizontal position
+     * @param y vertical position
+     * @return both coordinates packed in a single long, x in the high half and y in the low half
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param packed coordinates packed with {@link #pack(int, int)}
+     * @return horizontal position
+     */
+    public static int unpackX(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * @param packed coordinates packed with {@link #pack(int, int)}
+     * @return vertical position
+     */
+    public static int unpackY(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * @param packed coordinates packed with {@link #pack(int, int)}
+     * @return Coordinates record
+     */
+    public static Coordinates unpack(long packed) {
+        return new Coordinates(unpackX(packed), unpackY(packed));
+    }
 }
@@ -0,0 +1,58 @@
+package com.github.hangovers.model;
+
+import java.nio.LongBuffer;
+
+/**
+ * One bit per board cell, meant for dense boards. Obstacles out of the board are dropped since the knight can never
+ * collide with them.
+ */
+final class GridObstacleSet implements ObstacleSet {
+
+    // largest grid a long[] can hold
+    static final long MAX_CELLS = (long) Integer.MAX_VALUE * Long.SIZE;
+
+    private final LongBuffer cells;
+    private final int width;
+    private final int height;
+
+    GridObstacleSet(int width, int height, long[] obstacles) {
+        this(width, height, LongBuffer.wrap(cells(width, height, obstacles)));
+    }
+
+    /**
+     * @param cells row-major bit grid, as built by {@link #cells(int, int, long[])}
+     */
+    GridObstacleSet(int width, int height, LongBuffer cells) {
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        if (!inside(x, y, width, height)) return false;
+        var cell = (long) y * width + x;
+        return (cells.get((int) (cell >>> 6)) & (1L << cell)) != 0;
+    }
+
+    /**
+     * @param obstacles obstacles packed with {@link Coordinates#pack(int, int)}
+     * @return row-major bit grid, bit y * width + x is set for each obstacle inside the board
+     */
+    static long[] cells(int width, int height, long[] obstacles) {
+        var cells = new long[(int) (((long) width * height + Long.SIZE - 1) / Long.SIZE)];
+        for (long obstacle : obstacles) {
+            var x = Coordinates.unpackX(obstacle);
+            var y = Coordinates.unpackY(obstacle);
+            if (inside(x, y, width, height)) {
+                var cell = (long) y * width + x;
+                cells[(int) (cell >>> 6)] |= 1L << cell;
+            }
+        }
+        return cells;
+    }
+
+    private static boolean inside(int x, int y, int width, int height) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+}
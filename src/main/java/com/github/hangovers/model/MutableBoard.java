@@ -0,0 +1,160 @@
+package com.github.hangovers.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Board whose obstacles and size change over time, read by any number of threads without locks.
+ * Each change publishes a new immutable {@link Board} generation through an atomic reference (copy on write): readers
+ * take a snapshot and keep working on it for as long as they need, e.g. a whole simulation, while writers build the
+ * next generation aside. Changes made in the same {@link #update(Consumer)} call are published as a single generation.
+ */
+public final class MutableBoard {
+
+    /**
+     * @param version generation number, increased by one for each published update
+     * @param board board of this generation, never modified
+     */
+    public record Snapshot(long version, Board board) {
+    }
+
+    private final AtomicReference<Snapshot> current;
+
+    /**
+     * @param board first generation of the board
+     */
+    public MutableBoard(Board board) {
+        this.current = new AtomicReference<>(new Snapshot(0, board));
+    }
+
+    /**
+     * @return latest published generation
+     */
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * @return board of the latest published generation
+     */
+    public Board board() {
+        return current.get().board();
+    }
+
+    /**
+     * Applies a batch of changes and publishes them as one generation.
+     * Concurrent updates never get lost: if another generation gets published first, the batch is applied again on top
+     * of it, so the changes function itself is only called once.
+     * @param changes records the changes to be applied
+     * @return the published generation, the current one if there were no changes
+     */
+    public Snapshot update(Consumer<Changes> changes) {
+        var batch = new Changes();
+        changes.accept(batch);
+        if (batch.isEmpty()) return current.get();
+
+        while (true) {
+            var base = current.get();
+            var next = new Snapshot(base.version() + 1, batch.applyTo(base.board()));
+            if (current.compareAndSet(base, next)) return next;
+        }
+    }
+
+    /**
+     * @return the published generation
+     */
+    public Snapshot addObstacle(int x, int y) {
+        return update(changes -> changes.addObstacle(x, y));
+    }
+
+    /**
+     * @return the published generation
+     */
+    public Snapshot removeObstacle(int x, int y) {
+        return update(changes -> changes.removeObstacle(x, y));
+    }
+
+    /**
+     * @return the published generation
+     */
+    public Snapshot resize(int width, int height) {
+        return update(changes -> changes.resize(width, height));
+    }
+
+    /**
+     * Changes recorded by {@link #update(Consumer)}. When the same cell is changed more than once the last change wins,
+     * and resizing drops the obstacles left out of the board.
+     */
+    public static final class Changes {
+
+        // packed cell -> true if added, false if removed, sorted like Board.packedObstacles()
+        private final TreeMap<Long, Boolean> obstacles = new TreeMap<>();
+        private Integer width;
+        private Integer height;
+
+        private Changes() {
+        }
+
+        public Changes addObstacle(int x, int y) {
+            obstacles.put(Coordinates.pack(x, y), Boolean.TRUE);
+            return this;
+        }
+
+        public Changes removeObstacle(int x, int y) {
+            obstacles.put(Coordinates.pack(x, y), Boolean.FALSE);
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the size is negative
+         */
+        public Changes resize(int width, int height) {
+            if (width < 0 || height < 0) {
+                throw new IllegalArgumentException("Invalid board size: " + width + "x" + height);
+            }
+            this.width = width;
+            this.height = height;
+            return this;
+        }
+
+        boolean isEmpty() {
+            return obstacles.isEmpty() && width == null;
+        }
+
+        /**
+         * Merges the sorted obstacles of the board with the sorted changes, in a single pass
+         */
+        Board applyTo(Board board) {
+            var resized = this.width != null;
+            var width = resized ? this.width : board.width();
+            var height = resized ? this.height : board.height();
+            var base = board.packedObstacles();
+            var merged = new long[base.length + obstacles.size()];
+            var size = 0;
+
+            var i = 0;
+            for (Map.Entry<Long, Boolean> change : obstacles.entrySet()) {
+                long cell = change.getKey();
+                while (i < base.length && base[i] < cell) {
+                    if (!resized || inside(base[i], width, height)) merged[size++] = base[i];
+                    i++;
+                }
+                if (i < base.length && base[i] == cell) i++;
+                if (change.getValue() && (!resized || inside(cell, width, height))) merged[size++] = cell;
+            }
+            for (; i < base.length; i++) {
+                if (!resized || inside(base[i], width, height)) merged[size++] = base[i];
+            }
+            return Board.of(width, height, Arrays.copyOf(merged, size));
+        }
+
+        private static boolean inside(long cell, int width, int height) {
+            var x = Coordinates.unpackX(cell);
+            var y = Coordinates.unpackY(cell);
+            return x >= 0 && y >= 0 && x < width && y < height;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.hangovers.model;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Obstacles sorted by row and by column, used to find the first obstacle in front of the knight with a binary search
+ * instead of walking the board one cell at a time.
+ * Sorted obstacles are read through LongBuffers, so they can live either on the heap or in a memory-mapped file.
+ */
+public final class ObstacleIndex {
+
+    // (y << 32 | x), sorted: obstacles in the same row are contiguous and ordered by x
+    private final LongBuffer byRow;
+    // (x << 32 | y), sorted: obstacles in the same column are contiguous and ordered by y
+    private final LongBuffer byColumn;
+
+    /**
+     * @param obstacles obstacles in the board packed with {@link Coordinates#pack(int, int)}.
+     *                  Obstacles with negative coordinates can never be reached and are skipped.
+     */
+    public ObstacleIndex(long[] obstacles) {
+        var rows = new long[obstacles.length];
+        var columns = new long[obstacles.length];
+        var size = 0;
+        for (long obstacle : obstacles) {
+            var x = Coordinates.unpackX(obstacle);
+            var y = Coordinates.unpackY(obstacle);
+            if (x < 0 || y < 0) continue;
+            rows[size] = pack(y, x);
+            columns[size] = pack(x, y);
+            size++;
+        }
+        this.byRow = LongBuffer.wrap(sortedDistinct(rows, size));
+        this.byColumn = LongBuffer.wrap(sortedDistinct(columns, size));
+    }
+
+    /**
+     * @param byRow obstacles packed as (y << 32 | x), sorted and without duplicates
+     * @param byColumn the same obstacles packed as (x << 32 | y), sorted
+     */
+    ObstacleIndex(LongBuffer byRow, LongBuffer byColumn) {
+        this.byRow = byRow;
+        this.byColumn = byColumn;
+    }
+
+    /**
+     * @param from cell the knight is standing on
+     * @param direction direction the knight is facing
+     * @return number of steps needed to reach the first obstacle in the given direction, Integer.MAX_VALUE if there is none
+     */
+    public int distanceToObstacle(Coordinates from, Direction direction) {
+        return distanceToObstacle(from.x(), from.y(), direction);
+    }
+
+    /**
+     * Same as {@link #distanceToObstacle(Coordinates, Direction)}, without a Coordinates record
+     */
+    public int distanceToObstacle(int x, int y, Direction direction) {
+        return switch (direction) {
+            case EAST -> distanceForward(byRow, y, x);
+            case WEST -> distanceBackward(byRow, y, x);
+            case NORTH -> distanceForward(byColumn, x, y);
+            case SOUTH -> distanceBackward(byColumn, x, y);
+        };
+    }
+
+    /**
+     * @return number of indexed obstacles
+     */
+    public int size() {
+        return byRow.limit();
+    }
+
+    /**
+     * @return indexed obstacles packed with {@link Coordinates#pack(int, int)}, sorted and without duplicates
+     */
+    public long[] obstacles() {
+        // columns are packed as (x << 32 | y) with non negative values, same as Coordinates.pack
+        var obstacles = new long[byColumn.limit()];
+        byColumn.get(0, obstacles);
+        return obstacles;
+    }
+
+    /**
+     * @return obstacles packed as (y << 32 | x), sorted
+     */
+    LongBuffer rows() {
+        return byRow.duplicate();
+    }
+
+    /**
+     * @return obstacles packed with {@link Coordinates#pack(int, int)}, sorted
+     */
+    LongBuffer columns() {
+        return byColumn.duplicate();
+    }
+
+    /**
+     * @return true if (x, y) is indexed, in O(log k)
+     */
+    boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && search(byColumn, pack(x, y)) >= 0;
+    }
+
+    private static int distanceForward(LongBuffer lines, int line, int position) {
+        var index = search(lines, pack(line, position));
+        var next = index >= 0 ? index + 1 : -index - 1;
+        if (next < lines.limit() && line(lines.get(next)) == line) {
+            return position(lines.get(next)) - position;
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private static int distanceBackward(LongBuffer lines, int line, int position) {
+        var index = search(lines, pack(line, position));
+        var previous = (index >= 0 ? index : -index - 1) - 1;
+        if (previous >= 0 && line(lines.get(previous)) == line) {
+            return position - position(lines.get(previous));
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Same contract as {@link Arrays#binarySearch(long[], long)}
+     */
+    private static int search(LongBuffer values, long key) {
+        var low = 0;
+        var high = values.limit() - 1;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            var value = values.get(middle);
+            if (value < key) {
+                low = middle + 1;
+            } else if (value > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static long[] sortedDistinct(long[] values, int size) {
+        Arrays.sort(values, 0, size);
+        var distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || values[distinct - 1] != values[i]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return distinct == values.length ? values : Arrays.copyOf(values, distinct);
+    }
+
+    private static long pack(int line, int position) {
+        return ((long) line << 32) | position;
+    }
+
+    private static int line(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int position(long packed) {
+        return (int) packed;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.hangovers.model;
+
+/**
+ * Primitive storage for board's obstacles, used to check for collisions without hashing Coordinates records.
+ */
+public sealed interface ObstacleSet permits PackedObstacleSet, GridObstacleSet, SortedObstacleSet {
+
+    /**
+     * @param x horizontal position
+     * @param y vertical position
+     * @return true if there is an obstacle in the given position
+     */
+    boolean contains(int x, int y);
+
+    /**
+     * Picks the cheapest storage for the given board: a bit grid when it takes no more memory than a hash set of
+     * the same obstacles (dense boards), a packed hash set otherwise (sparse or huge boards).
+     * @param width board width, null if unknown
+     * @param height board height, null if unknown
+     * @param obstacles obstacles packed with {@link Coordinates#pack(int, int)}
+     * @return obstacle set holding all the given obstacles
+     */
+    static ObstacleSet of(Integer width, Integer height, long[] obstacles) {
+        if (width != null && height != null && width > 0 && height > 0) {
+            long cells = (long) width * height;
+            long hashSetBits = Long.SIZE * (long) PackedObstacleSet.capacityFor(obstacles.length);
+            if (cells <= hashSetBits && cells <= GridObstacleSet.MAX_CELLS) {
+                return new GridObstacleSet(width, height, obstacles);
+            }
+        }
+        return new PackedObstacleSet(obstacles);
+    }
+}
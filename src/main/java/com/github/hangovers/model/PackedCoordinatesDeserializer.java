@@ -0,0 +1,63 @@
+package com.github.hangovers.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads an array of {"x": .., "y": ..} objects straight into coordinates packed with {@link Coordinates#pack(int, int)},
+ * without creating a Coordinates record for each element.
+ */
+public class PackedCoordinatesDeserializer extends StdDeserializer<long[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    public PackedCoordinatesDeserializer() {
+        super(long[].class);
+    }
+
+    @Override
+    public long[] deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.isExpectedStartArrayToken()) {
+            return (long[]) context.handleUnexpectedToken(long[].class, parser);
+        }
+
+        var packed = new long[16];
+        var size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                return (long[]) context.handleUnexpectedToken(long[].class, parser);
+            }
+            if (size == packed.length) {
+                packed = Arrays.copyOf(packed, size * 2);
+            }
+            packed[size++] = readCoordinates(parser, context);
+        }
+        return Arrays.copyOf(packed, size);
+    }
+
+    /**
+     * Reads a single coordinates object, missing fields default to 0 as they would for the Coordinates record.
+     * Coordinates are coerced like any int property ("1", null and 1.9 are read as 1, 0 and 1), anything Jackson
+     * can't coerce, such as "abc" or true, fails the mapping.
+     */
+    private long readCoordinates(JsonParser parser, DeserializationContext context) throws IOException {
+        int x = 0;
+        int y = 0;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            switch (field) {
+                case "x" -> x = _parseIntPrimitive(parser, context);
+                case "y" -> y = _parseIntPrimitive(parser, context);
+                default -> context.handleUnknownProperty(parser, this, Coordinates.class, field);
+            }
+        }
+        return Coordinates.pack(x, y);
+    }
+}
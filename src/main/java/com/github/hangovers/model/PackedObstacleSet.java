@@ -0,0 +1,66 @@
+package com.github.hangovers.model;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of packed coordinates, meant for sparse boards.
+ * Linear probing over a power of two table kept at most half full.
+ */
+final class PackedObstacleSet implements ObstacleSet {
+
+    // pack(Integer.MIN_VALUE, 0): always out of the board, so it can mark empty slots
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final long[] table;
+    private final int mask;
+
+    PackedObstacleSet(long[] obstacles) {
+        this.table = new long[capacityFor(obstacles.length)];
+        this.mask = table.length - 1;
+        Arrays.fill(table, EMPTY);
+
+        for (long obstacle : obstacles) {
+            if (obstacle != EMPTY) insert(obstacle);
+        }
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        var key = Coordinates.pack(x, y);
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            var value = table[slot];
+            if (value == key) return true;
+            if (value == EMPTY) return false;
+        }
+    }
+
+    /**
+     * @param count number of obstacles to be stored
+     * @return table size keeping the load factor at most 0.5, or the largest power of two table for huge counts
+     */
+    static int capacityFor(int count) {
+        if (count >= MAX_CAPACITY / 2) return MAX_CAPACITY;
+        var capacity = Integer.highestOneBit(Math.max(count, 1)) << 1;
+        return capacity < count * 2 ? capacity << 1 : capacity;
+    }
+
+    private void insert(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            var value = table[slot];
+            if (value == key) return;
+            if (value == EMPTY) {
+                table[slot] = key;
+                return;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        // murmur3 finalizer, spreads x and y bits over the whole hash
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
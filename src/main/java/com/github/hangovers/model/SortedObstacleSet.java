@@ -0,0 +1,19 @@
+package com.github.hangovers.model;
+
+/**
+ * Collision checks with a binary search on the obstacle index, used by memory-mapped boards without a bit grid so
+ * that no obstacle needs to be copied on the heap.
+ */
+final class SortedObstacleSet implements ObstacleSet {
+
+    private final ObstacleIndex index;
+
+    SortedObstacleSet(ObstacleIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return index.contains(x, y);
+    }
+}
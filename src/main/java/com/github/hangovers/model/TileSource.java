@@ -0,0 +1,26 @@
+package com.github.hangovers.model;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where the tiles of a {@link BoardTiles} come from, e.g. a tiled board file fetched with http range requests
+ */
+@FunctionalInterface
+public interface TileSource {
+
+    /**
+     * @param column tile column, counted from the tile with the (0, 0) cell
+     * @param row tile row
+     * @return future completed with the obstacles of the tile packed with {@link Coordinates#pack(int, int)}, or
+     * failed with an IOException
+     */
+    CompletableFuture<long[]> fetch(int column, int row);
+
+    /**
+     * @return where tiles are fetched from, e.g. the tiled board url: boards of the same size fetched from the same
+     * location have the same obstacles. Null if unknown, the tiles are then only equal to themselves
+     */
+    default String location() {
+        return null;
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.hangovers.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary board format split in square tiles, meant to be served as a static file and read a tile at a time with http
+ * range requests, see {@link BoardTiles}.
+ * Little-endian layout:
+ * <pre>
+ * header (40 bytes): magic "KTLB", version, width, height, tile size, tiles per row, tiles per column, reserved,
+ *                    obstacles count (long)
+ * index              tiles + 1 longs, file position of each tile's obstacles, the last one is the end of the file
+ * tiles, row-major   obstacles of each tile as ints (x - tile x) << 16 | (y - tile y), sorted
+ * </pre>
+ * Obstacles of a tile are between two consecutive index entries, so a tile takes two small range requests: one for the
+ * index entries, one for the obstacles.
+ */
+public final class TiledBoardFile {
+
+    public static final int HEADER_SIZE = 40;
+    public static final int DEFAULT_TILE_SIZE = 256;
+    // local coordinates are stored in 16 bits
+    public static final int MAX_TILE_SIZE = 1 << 16;
+    // keeps the index under 2GB
+    public static final long MAX_TILES = 1L << 28;
+
+    private static final int MAGIC = 0x4B544C42;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private TiledBoardFile() {
+    }
+
+    /**
+     * @param width board width
+     * @param height board height
+     * @param tileSize side of the square tiles
+     * @param columns tiles in each row of tiles
+     * @param rows tiles in each column of tiles
+     * @param count obstacles in the board
+     */
+    public record Header(int width, int height, int tileSize, int columns, int rows, long count) {
+
+        /**
+         * @param header the first {@link #HEADER_SIZE} bytes of the file
+         * @return parsed header
+         * @throws IOException if the bytes are not a valid header
+         */
+        public static Header parse(byte[] header) throws IOException {
+            if (header.length < HEADER_SIZE) throw new IOException("Truncated tiled board");
+            var buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a tiled board");
+            var version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported tiled board version " + version);
+
+            var parsed = new Header(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                    buffer.getLong(32));
+            if (parsed.width() < 0 || parsed.height() < 0 || parsed.tileSize() < 1 || parsed.tileSize() > MAX_TILE_SIZE
+                    || parsed.columns() != TiledBoardFile.tiles(parsed.width(), parsed.tileSize())
+                    || parsed.rows() != TiledBoardFile.tiles(parsed.height(), parsed.tileSize())
+                    || parsed.tiles() > MAX_TILES || parsed.count() < 0) {
+                throw new IOException("Invalid tiled board header");
+            }
+            return parsed;
+        }
+
+        /**
+         * @return number of tiles
+         */
+        public long tiles() {
+            return (long) columns * rows;
+        }
+
+        /**
+         * @param tile row-major tile number
+         * @return file position of the tile's index entry
+         */
+        public long indexPosition(long tile) {
+            return HEADER_SIZE + tile * Long.BYTES;
+        }
+    }
+
+    /**
+     * Writes the board in tiled format, replacing the file atomically.
+     * Obstacles out of the board can never be reached and are left out.
+     * @param board board to be written, width and height are required
+     * @param tileSize side of the square tiles, up to {@link #MAX_TILE_SIZE}
+     * @param path destination file
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if the tile size is not valid, or makes more than {@link #MAX_TILES} tiles
+     */
+    public static void write(Board board, int tileSize, Path path) throws IOException {
+        if (board.width() == null || board.height() == null) {
+            throw new IOException("Board size is missing");
+        }
+        if (tileSize < 1 || tileSize > MAX_TILE_SIZE) {
+            throw new IllegalArgumentException("Invalid tile size: " + tileSize);
+        }
+        var width = board.width();
+        var height = board.height();
+        var columns = tiles(width, tileSize);
+        var rows = tiles(height, tileSize);
+        if ((long) columns * rows > MAX_TILES) {
+            throw new IllegalArgumentException("Tile size too small for a " + width + "x" + height + " board: " + tileSize);
+        }
+
+        // (tile << 32 | local cell), sorted: obstacles of the same tile are contiguous
+        var obstacles = board.packedObstacles();
+        var keys = new long[obstacles.length];
+        var count = 0;
+        for (long obstacle : obstacles) {
+            var x = Coordinates.unpackX(obstacle);
+            var y = Coordinates.unpackY(obstacle);
+            if (x < 0 || y < 0 || x >= width || y >= height) continue;
+            long tile = (long) (y / tileSize) * columns + x / tileSize;
+            keys[count++] = tile << 32 | ((long) (x % tileSize) << 16 | y % tileSize);
+        }
+        Arrays.sort(keys, 0, count);
+
+        var header = new Header(width, height, tileSize, columns, rows, count);
+        var temporary = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                var buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(tileSize)
+                        .putInt(columns).putInt(rows).putInt(0).putLong(count);
+
+                // index, each tile starts where the obstacles of the previous ones end
+                var data = header.indexPosition(header.tiles() + 1);
+                var next = 0;
+                for (long tile = 0; tile <= header.tiles(); tile++) {
+                    while (next < count && keys[next] >>> 32 < tile) next++;
+                    buffer = drainIfFull(channel, buffer, Long.BYTES).putLong(data + (long) next * Integer.BYTES);
+                }
+                for (int i = 0; i < count; i++) {
+                    buffer = drainIfFull(channel, buffer, Integer.BYTES).putInt((int) keys[i]);
+                }
+                drain(channel, buffer);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @param tile obstacles of a tile, as stored in the file
+     * @param column tile column
+     * @param row tile row
+     * @param tileSize side of the tiles
+     * @return obstacles packed with {@link Coordinates#pack(int, int)}
+     * @throws IOException if the bytes are not a whole number of obstacles
+     */
+    public static long[] decodeTile(byte[] tile, int column, int row, int tileSize) throws IOException {
+        if (tile.length % Integer.BYTES != 0) throw new IOException("Truncated tile");
+        var buffer = ByteBuffer.wrap(tile).order(ByteOrder.LITTLE_ENDIAN);
+        var originX = column * tileSize;
+        var originY = row * tileSize;
+        var obstacles = new long[tile.length / Integer.BYTES];
+        for (int i = 0; i < obstacles.length; i++) {
+            var local = buffer.getInt();
+            obstacles[i] = Coordinates.pack(originX + (local >>> 16), originY + (local & 0xFFFF));
+        }
+        return obstacles;
+    }
+
+    /**
+     * @param index index entries as stored in the file
+     * @return file positions
+     */
+    public static long[] decodeIndex(byte[] index) {
+        var positions = new long[index.length / Long.BYTES];
+        ByteBuffer.wrap(index).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(positions);
+        return positions;
+    }
+
+    private static int tiles(int length, int tileSize) {
+        return (int) (((long) length + tileSize - 1) / tileSize);
+    }
+
+    private static ByteBuffer drainIfFull(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() < needed) drain(channel, buffer);
+        return buffer;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -32,33 +32,47 @@ public class KnightPosition {
     }
 
     /**
-     * recursive method used to update knight's position based on the current MOVE command
-     * @param numberOfSteps number of steps (and method calls) still to be done from the knight before ending
+     * Updates knight's position based on the current MOVE command.
+     * The whole segment is resolved at once: the knight walks until the steps are over, stopping right before the first
+     * obstacle in front of it, or up to the last cell of the board before going out of bounds.
+     * @param numberOfSteps number of steps to be done from the knight
      * @param board Board data to check for out of bounds errors and obstacles.
      * @throws IOException gets thrown if the knight goes out of bounds.
      */
     public void move(int numberOfSteps, Board board) throws IOException {
-        if(numberOfSteps > 0) {
-            Coordinates newCoordinates = null;
+        if(numberOfSteps <= 0) return;
 
-            // coordinates update is different and based on direction knight's facing
-            switch(direction) {
-                case EAST -> newCoordinates = new Coordinates(coordinates.x() + 1, coordinates.y());
-                case WEST -> newCoordinates = new Coordinates(coordinates.x() - 1, coordinates.y());
-                case NORTH ->  newCoordinates = new Coordinates(coordinates.x(), coordinates.y() + 1);
-                case SOUTH ->  newCoordinates = new Coordinates(coordinates.x(), coordinates.y() - 1);
-            }
+        long toEdge = board.distanceToEdge(coordinates, direction);
+        long toObstacle = board.distanceToObstacle(coordinates, direction, numberOfSteps);
 
-            if(board.isOutOfBounds(newCoordinates)) throw new IOException("Out of bounds");
-
-            // if knight does not hit an obstacle, coodinates update happens and move gets called again until steps reach 0.
-            if(!board.checkCollision(newCoordinates)) {
-                this.coordinates = newCoordinates;
-                move(numberOfSteps - 1, board);
-            }
+        if(toObstacle < toEdge && toObstacle <= numberOfSteps) {
+            // knight stops right before the obstacle
+            walk(toObstacle - 1);
+        } else if(toEdge <= numberOfSteps) {
+            // knight walks up to the last cell of the board, the next step takes it out of bounds
+            walk(toEdge - 1);
+            throw new IOException("Out of bounds");
+        } else {
+            walk(numberOfSteps);
         }
     }
 
+    /**
+     * @param steps free cells to be walked in the direction knight's facing
+     */
+    private void walk(long steps) {
+        if(steps <= 0) return;
+        var distance = (int) steps;
+
+        // coordinates update is different and based on direction knight's facing
+        coordinates = switch(direction) {
+            case EAST -> new Coordinates(coordinates.x() + distance, coordinates.y());
+            case WEST -> new Coordinates(coordinates.x() - distance, coordinates.y());
+            case NORTH -> new Coordinates(coordinates.x(), coordinates.y() + distance);
+            case SOUTH -> new Coordinates(coordinates.x(), coordinates.y() - distance);
+        };
+    }
+
     public Coordinates getCoordinates() {
         return coordinates;
     }
@@ -0,0 +1,12 @@
+package com.github.hangovers.model.dto;
+
+import com.github.hangovers.model.Board;
+
+import java.util.List;
+
+/**
+ * @param board board where the knight is moving, same format as the board api endpoint
+ * @param commands list of commands, same format as the commands api endpoint
+ */
+public record SimulationRequest(Board board, List<String> commands) {
+}
@@ -0,0 +1,212 @@
+package com.github.hangovers.query;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Sets of board cells as row-major bitsets, bit y * width + x like the board's obstacle grid.
+ * Frontiers are expanded a whole set at a time: a MOVE slides the knight through free cells, which on a bitset is an
+ * occluded fill (Kogge-Stone), log(width) shifts per direction instead of a scan from every single cell.
+ */
+final class BitGrid {
+
+    // largest board whose cells can be indexed by an int, distance fields keep an int per cell
+    static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final int words;
+    private final long[] free;
+    // free cells which can be entered from their west neighbour, i.e. not in the first column
+    private final long[] eastPropagator;
+    // free cells which can be entered from their east neighbour, i.e. not in the last column
+    private final long[] westPropagator;
+
+    BitGrid(Board board) {
+        if (board.width() == null || board.height() == null || board.width() <= 0 || board.height() <= 0) {
+            throw new IllegalArgumentException("Board size is missing");
+        }
+        var cells = (long) board.width() * board.height();
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException("Board too large for path queries: " + cells + " cells");
+        }
+
+        this.width = board.width();
+        this.height = board.height();
+        this.words = (int) ((cells + Long.SIZE - 1) / Long.SIZE);
+        this.free = new long[words];
+        Arrays.fill(free, -1L);
+        if (cells % Long.SIZE != 0) {
+            // bits past the last cell must stay clear, fills would walk into them otherwise
+            free[words - 1] = -1L >>> (Long.SIZE - cells % Long.SIZE);
+        }
+        for (long obstacle : board.packedObstacles()) {
+            var x = Coordinates.unpackX(obstacle);
+            var y = Coordinates.unpackY(obstacle);
+            if (x >= 0 && y >= 0 && x < width && y < height) {
+                clear(free, y * width + x);
+            }
+        }
+
+        this.eastPropagator = free.clone();
+        this.westPropagator = free.clone();
+        for (int y = 0; y < height; y++) {
+            clear(eastPropagator, y * width);
+            clear(westPropagator, y * width + width - 1);
+        }
+    }
+
+    int width() {
+        return width;
+    }
+
+    int cells() {
+        return width * height;
+    }
+
+    /**
+     * @return cell index, -1 if the coordinates are out of the board or on an obstacle
+     */
+    int cell(Coordinates coordinates) {
+        var x = coordinates.x();
+        var y = coordinates.y();
+        if (x < 0 || y < 0 || x >= width || y >= height) return -1;
+        var cell = y * width + x;
+        return contains(free, cell) ? cell : -1;
+    }
+
+    long[] singleton(int cell) {
+        var set = new long[words];
+        set[cell >>> 6] |= 1L << cell;
+        return set;
+    }
+
+    /**
+     * Cells the knight can reach with a single MOVE from any cell of the frontier, without going out of the board
+     * @param frontier cells reached by the previous level
+     * @param visited cells already reached, updated with the new ones
+     * @return reached cells which were not visited yet
+     */
+    long[] expand(long[] frontier, long[] visited) {
+        var next = new long[words];
+        for (Direction direction : DIRECTIONS) {
+            var reached = fill(frontier, direction);
+            for (int i = 0; i < words; i++) {
+                next[i] |= reached[i];
+            }
+        }
+        for (int i = 0; i < words; i++) {
+            next[i] &= ~visited[i];
+            visited[i] |= next[i];
+        }
+        return next;
+    }
+
+    /**
+     * Walks the free cells in front of a cell, in every direction, up to the first obstacle or board edge
+     * @return first cell matching the predicate, -1 if there is none
+     */
+    int findInSight(int cell, IntPredicate predicate) {
+        var x = cell % width;
+        var y = cell / width;
+        for (Direction direction : DIRECTIONS) {
+            var dx = direction == Direction.EAST ? 1 : direction == Direction.WEST ? -1 : 0;
+            var dy = direction == Direction.NORTH ? 1 : direction == Direction.SOUTH ? -1 : 0;
+            for (int nx = x + dx, ny = y + dy; nx >= 0 && ny >= 0 && nx < width && ny < height; nx += dx, ny += dy) {
+                var next = ny * width + nx;
+                if (!contains(free, next)) break;
+                if (predicate.test(next)) return next;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Occluded fill: cells reached by sliding from the given ones in a direction, through free cells only
+     */
+    private long[] fill(long[] from, Direction direction) {
+        var horizontal = direction == Direction.EAST || direction == Direction.WEST;
+        var forward = direction == Direction.EAST || direction == Direction.NORTH;
+        var unit = horizontal ? 1L : width;
+        var span = horizontal ? width : height;
+
+        var generator = from.clone();
+        var propagator = (direction == Direction.EAST ? eastPropagator : direction == Direction.WEST ? westPropagator : free).clone();
+        var shifted = new long[words];
+
+        // after the step shifting by s cells, the generator holds every cell reachable within 2s - 1 steps
+        for (long step = 1; step < span; step <<= 1) {
+            shift(generator, step * unit, forward, shifted);
+            for (int i = 0; i < words; i++) {
+                generator[i] |= propagator[i] & shifted[i];
+            }
+            if (step * 2 < span) {
+                shift(propagator, step * unit, forward, shifted);
+                for (int i = 0; i < words; i++) {
+                    propagator[i] &= shifted[i];
+                }
+            }
+        }
+        return generator;
+    }
+
+    /**
+     * @param forward true to shift towards higher cell indexes
+     */
+    private void shift(long[] source, long bits, boolean forward, long[] target) {
+        var wordShift = bits >>> 6;
+        var bitShift = (int) (bits & 63);
+        for (int i = 0; i < words; i++) {
+            var j = forward ? i - wordShift : i + wordShift;
+            var value = 0L;
+            if (j >= 0 && j < words) {
+                value = forward ? source[(int) j] << bitShift : source[(int) j] >>> bitShift;
+            }
+            var carry = forward ? j - 1 : j + 1;
+            if (bitShift != 0 && carry >= 0 && carry < words) {
+                value |= forward ? source[(int) carry] >>> (Long.SIZE - bitShift) : source[(int) carry] << (Long.SIZE - bitShift);
+            }
+            target[i] = value;
+        }
+    }
+
+    static boolean contains(long[] set, int cell) {
+        return (set[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    static boolean isEmpty(long[] set) {
+        for (long word : set) {
+            if (word != 0) return false;
+        }
+        return true;
+    }
+
+    static long count(long[] set) {
+        var count = 0L;
+        for (long word : set) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return a cell in both sets, -1 if they are disjoint
+     */
+    static int firstCommon(long[] first, long[] second) {
+        for (int i = 0; i < first.length; i++) {
+            var common = first[i] & second[i];
+            if (common != 0) return (i << 6) + Long.numberOfTrailingZeros(common);
+        }
+        return -1;
+    }
+
+    private static void clear(long[] set, int cell) {
+        set[cell >>> 6] &= ~(1L << cell);
+    }
+}
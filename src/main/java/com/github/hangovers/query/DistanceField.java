@@ -0,0 +1,88 @@
+package com.github.hangovers.query;
+
+/**
+ * Number of MOVE commands needed to reach a target from every cell, computed by a breadth-first search from the
+ * target which is only expanded as far as queries need it.
+ * MOVEs are reversible (sliding from A can stop on B if and only if sliding from B can stop on A), so a search from
+ * the target gives distances to the target.
+ */
+final class DistanceField {
+
+    private final BitGrid grid;
+    // moves to the target + 1, 0 for cells not reached yet
+    private final int[] distances;
+    private final long[] visited;
+    private long[] frontier;
+    private int level;
+    private boolean queried;
+
+    DistanceField(BitGrid grid, int target) {
+        this.grid = grid;
+        this.distances = new int[grid.cells()];
+        this.visited = grid.singleton(target);
+        this.frontier = visited.clone();
+        this.distances[target] = 1;
+    }
+
+    /**
+     * @return moves from the cell to the target, -1 if not known yet or unreachable
+     */
+    int distance(int cell) {
+        return distances[cell] - 1;
+    }
+
+    /**
+     * @return true if every cell that can reach the target has its distance
+     */
+    boolean exhausted() {
+        return BitGrid.isEmpty(frontier);
+    }
+
+    /**
+     * Computes the distances of the next level
+     * @return false if there was nothing left to expand
+     */
+    boolean expand() {
+        if (exhausted()) return false;
+
+        frontier = grid.expand(frontier, visited);
+        level++;
+        for (int i = 0; i < frontier.length; i++) {
+            var word = frontier[i];
+            while (word != 0) {
+                distances[(i << 6) + Long.numberOfTrailingZeros(word)] = level + 1;
+                word &= word - 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return cells whose distance is known, every level up to {@link #level()} is complete
+     */
+    long[] visited() {
+        return visited;
+    }
+
+    /**
+     * @return cells of the last computed level
+     */
+    long[] frontier() {
+        return frontier;
+    }
+
+    int level() {
+        return level;
+    }
+
+    /**
+     * @return true if a query already used this field
+     */
+    boolean queried() {
+        return queried;
+    }
+
+    void markQueried() {
+        queried = true;
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.hangovers.query;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers reachability and shortest path queries on a board, with the same rules used to execute commands: a MOVE
+ * slides the knight in the direction it's facing and stops right before an obstacle, going out of the board fails.
+ * Paths are measured in MOVE commands. The START command sets the first direction, so a path of n MOVEs is a program of
+ * START, n MOVEs and n - 1 ROTATEs, the shortest possible one.
+ * <p>
+ * Queries run a bidirectional breadth-first search over bitset frontiers: one side from the start, the other from the
+ * target. The target side is a {@link DistanceField} which is cached, in a size-bounded LRU, and only expanded as
+ * much as needed: once it covers a start cell, later queries from there are a single lookup.
+ * Boards up to {@value BitGrid#MAX_CELLS} cells are supported.
+ */
+public class PathFinder {
+
+    public static final int DEFAULT_MAX_TARGETS = 16;
+
+    private final BitGrid grid;
+    private final Map<Integer, DistanceField> fields;
+
+    /**
+     * Search outcome
+     * @param moves number of MOVE commands, -1 if the target can't be reached
+     * @param meeting cell where the two searches met
+     * @param levels cells reached from the start, one set for each number of moves up to the meeting cell
+     */
+    private record Search(int moves, int meeting, List<long[]> levels) {
+    }
+
+    /**
+     * @param board board to be queried
+     * @throws IllegalArgumentException if the board has no size or is too large
+     */
+    public PathFinder(Board board) {
+        this(board, DEFAULT_MAX_TARGETS);
+    }
+
+    /**
+     * @param board board to be queried
+     * @param maxTargets maximum number of distance fields kept, each one takes an int for each cell of the board
+     * @throws IllegalArgumentException if the board has no size or is too large
+     */
+    public PathFinder(Board board, int maxTargets) {
+        this.grid = new BitGrid(board);
+        this.fields = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, DistanceField> eldest) {
+                return size() > maxTargets;
+            }
+        };
+    }
+
+    /**
+     * @return true if the knight can go from one cell to the other
+     */
+    public boolean isReachable(Coordinates from, Coordinates to) {
+        return moves(from, to) >= 0;
+    }
+
+    /**
+     * @return minimum number of MOVE commands needed to go from one cell to the other, -1 if it's not possible or if
+     * one of them is out of the board or on an obstacle
+     */
+    public int moves(Coordinates from, Coordinates to) {
+        var source = grid.cell(from);
+        var target = grid.cell(to);
+        if (source < 0 || target < 0) return -1;
+
+        var field = field(target);
+        synchronized (field) {
+            return search(field, source).moves();
+        }
+    }
+
+    /**
+     * @return shortest commands list taking the knight from one cell to the other, starting with the START command,
+     * null if it's not possible
+     */
+    public List<String> shortestPath(Coordinates from, Coordinates to) {
+        var source = grid.cell(from);
+        var target = grid.cell(to);
+        if (source < 0 || target < 0) return null;
+
+        var field = field(target);
+        List<Integer> path;
+        synchronized (field) {
+            var search = search(field, source);
+            if (search.moves() < 0) return null;
+            path = path(field, search);
+        }
+        return commands(path);
+    }
+
+    private DistanceField field(int target) {
+        synchronized (fields) {
+            return fields.computeIfAbsent(target, cell -> new DistanceField(grid, cell));
+        }
+    }
+
+    /**
+     * Expands the smaller frontier until the two searches meet. Before each expansion the cells reached by both sides
+     * are disjoint and complete up to their levels, so the first meeting is on a shortest path.
+     * Only the first query of a target balances the two sides: the start side is thrown away after each query while
+     * the distance field is kept, so later queries only expand the field and its cost is paid once per target.
+     */
+    private Search search(DistanceField field, int source) {
+        var balanced = !field.queried();
+        field.markQueried();
+
+        // already covered by the distance field, answered with a lookup
+        if (field.distance(source) >= 0 || field.exhausted()) {
+            return new Search(field.distance(source), source, List.of());
+        }
+
+        var levels = new ArrayList<long[]>();
+        var visited = grid.singleton(source);
+        var frontier = visited.clone();
+        levels.add(frontier);
+
+        while (true) {
+            if (balanced && BitGrid.count(frontier) <= BitGrid.count(field.frontier())) {
+                frontier = grid.expand(frontier, visited);
+                if (BitGrid.isEmpty(frontier)) return new Search(-1, -1, levels);
+                levels.add(frontier);
+
+                var meeting = BitGrid.firstCommon(frontier, field.visited());
+                if (meeting >= 0) return new Search(levels.size() - 1 + field.distance(meeting), meeting, levels);
+            } else {
+                if (!field.expand()) return new Search(-1, -1, levels);
+
+                var meeting = BitGrid.firstCommon(field.frontier(), visited);
+                if (meeting >= 0) return new Search(level(levels, meeting) + field.level(), meeting, levels);
+            }
+        }
+    }
+
+    /**
+     * @return cells where the knight stops, from the start to the target
+     */
+    private List<Integer> path(DistanceField field, Search search) {
+        var path = new ArrayList<Integer>();
+
+        // back from the meeting cell to the start, through the levels of the start side
+        var cell = search.meeting();
+        path.add(cell);
+        for (int level = search.levels().size() - 2; level >= 0; level--) {
+            var previous = search.levels().get(level);
+            cell = grid.findInSight(cell, next -> BitGrid.contains(previous, next));
+            path.add(cell);
+        }
+        Collections.reverse(path);
+
+        // on from the meeting cell to the target, down the distance field
+        cell = search.meeting();
+        for (int distance = field.distance(cell); distance > 0; distance--) {
+            var closer = distance - 1;
+            cell = grid.findInSight(cell, next -> field.distance(next) == closer);
+            path.add(cell);
+        }
+        return path;
+    }
+
+    private List<String> commands(List<Integer> path) {
+        var commands = new ArrayList<String>();
+        var width = grid.width();
+        var start = path.get(0);
+        var facing = path.size() > 1 ? direction(start, path.get(1)) : Direction.NORTH;
+        commands.add("START " + start % width + "," + start / width + "," + facing);
+
+        for (int i = 1; i < path.size(); i++) {
+            var from = path.get(i - 1);
+            var to = path.get(i);
+            var direction = direction(from, to);
+            if (direction != facing) {
+                commands.add("ROTATE " + direction);
+                facing = direction;
+            }
+            commands.add("MOVE " + (Math.abs(to % width - from % width) + Math.abs(to / width - from / width)));
+        }
+        return commands;
+    }
+
+    /**
+     * @return direction of a straight move between two cells
+     */
+    private Direction direction(int from, int to) {
+        var width = grid.width();
+        if (from / width == to / width) {
+            return to > from ? Direction.EAST : Direction.WEST;
+        }
+        return to > from ? Direction.NORTH : Direction.SOUTH;
+    }
+
+    private static int level(List<long[]> levels, int cell) {
+        for (int level = 0; level < levels.size(); level++) {
+            if (BitGrid.contains(levels.get(level), cell)) return level;
+        }
+        throw new IllegalStateException("Cell " + cell + " was not reached");
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.hangovers.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hangovers.metrics.MappingEvent;
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.SimulationRequest;
+import com.github.hangovers.model.dto.Status;
+import com.github.hangovers.simulation.SimulationCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Long running http server, each request gets simulated on its own virtual thread.
+ * POST /simulate takes {"board": {...}, "commands": [...]} and answers with the same json printed by the command line mode,
+ * GET /metrics answers with the process metrics in Prometheus text format.
+ * Results are memoized by a {@link SimulationCache}, repeated requests are answered without simulating them again.
+ */
+public class SimulationServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SimulationCache cache = new SimulationCache();
+    private final HttpServer httpServer;
+
+    /**
+     * @param port port the server listens on, 0 picks a free one
+     * @throws IOException if the server can't be bound
+     */
+    public SimulationServer(int port) throws IOException {
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        this.httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.httpServer.createContext("/simulate", this::simulate);
+        this.httpServer.createContext("/metrics", this::metrics);
+    }
+
+    /**
+     * Creates and starts a server
+     * @param port port the server listens on
+     * @return running server
+     * @throws IOException if the server can't be bound
+     */
+    public static SimulationServer start(int port) throws IOException {
+        var server = new SimulationServer(port);
+        server.httpServer.start();
+        return server;
+    }
+
+    /**
+     * @return port the server is listening on
+     */
+    public int port() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+    }
+
+    private void simulate(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().add("Allow", "POST");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            Response response;
+            int statusCode;
+            try (InputStream body = exchange.getRequestBody()) {
+                var event = new MappingEvent();
+                event.begin();
+                var start = System.nanoTime();
+                var request = mapper.readValue(body, SimulationRequest.class);
+                Metrics.MAPPING.recordSince(start);
+                event.commit("SimulationRequest", request.board() == null ? 0 : request.board().obstacleCount(),
+                        request.commands() == null ? 0 : request.commands().size());
+                response = cache.run(request.board(), request.commands() == null ? List.of() : request.commands());
+                statusCode = 200;
+            } catch (IOException e) {
+                // Malformed request body
+                response = new Response(null, Status.GENERIC_ERROR);
+                statusCode = 400;
+            }
+
+            var json = mapper.writeValueAsBytes(response);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(statusCode, json.length);
+            exchange.getResponseBody().write(json);
+        }
+    }
+
+    /**
+     * GET /metrics answers with the {@link Metrics} in Prometheus text format
+     */
+    private void metrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().add("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            var text = Metrics.prometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, text.length);
+            exchange.getResponseBody().write(text);
+        }
+    }
+}
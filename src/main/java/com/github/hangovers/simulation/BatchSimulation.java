@@ -0,0 +1,112 @@
+package com.github.hangovers.simulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hangovers.metrics.MappingEvent;
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.CommandsList;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Replays many command lists against the same board.
+ * Input is NDJSON, one {"commands": [...]} document per line, output is NDJSON too, one response per input line in the
+ * same order. Every line is simulated on a fork-join pool with its own knight, the board is only read.
+ * Repeated command lists, and lists extending a previous one, reuse the results kept by a {@link SimulationCache}.
+ */
+public class BatchSimulation {
+
+    // lines being simulated ahead of the one waiting to be written, for each thread of the pool
+    private static final int WINDOW_PER_THREAD = 64;
+
+    private final ObjectMapper mapper;
+    private final Board board;
+    private final ForkJoinPool pool;
+    private final SimulationCache cache;
+
+    /**
+     * @param mapper mapper used to read command lists and write responses
+     * @param board board shared by all the simulations
+     * @param pool pool where simulations are run
+     */
+    public BatchSimulation(ObjectMapper mapper, Board board, ForkJoinPool pool) {
+        this(mapper, board, pool, new SimulationCache());
+    }
+
+    /**
+     * @param mapper mapper used to read command lists and write responses
+     * @param board board shared by all the simulations
+     * @param pool pool where simulations are run
+     * @param cache results of previous simulations
+     */
+    public BatchSimulation(ObjectMapper mapper, Board board, ForkJoinPool pool, SimulationCache cache) {
+        this.mapper = mapper;
+        this.board = board;
+        this.pool = pool;
+        this.cache = cache;
+    }
+
+    /**
+     * Simulates every line of the input and writes responses as soon as all the previous ones are done.
+     * Blank lines are skipped, malformed lines and lines whose simulation fails get a GENERIC_ERROR response.
+     * @param input NDJSON command lists
+     * @param output NDJSON responses
+     * @throws IOException if reading or writing fails
+     */
+    public void run(BufferedReader input, Writer output) throws IOException {
+        var window = pool.getParallelism() * WINDOW_PER_THREAD;
+        var pending = new ArrayDeque<ForkJoinTask<String>>(window);
+
+        String line;
+        while ((line = input.readLine()) != null) {
+            if (line.isBlank()) continue;
+
+            var commandsJson = line;
+            pending.add(pool.submit(() -> simulate(commandsJson)));
+            if (pending.size() >= window) {
+                write(pending.poll(), output);
+            }
+        }
+        while (!pending.isEmpty()) {
+            write(pending.poll(), output);
+        }
+        output.flush();
+    }
+
+    private String simulate(String commandsJson) {
+        Response response;
+        try {
+            var event = new MappingEvent();
+            event.begin();
+            var start = System.nanoTime();
+            List<String> commands = mapper.readValue(commandsJson, CommandsList.class).commands();
+            Metrics.MAPPING.recordSince(start);
+            event.commit("CommandsList", 0, commands == null ? 0 : commands.size());
+            response = cache.run(board, commands == null ? List.of() : commands);
+        } catch (IOException | RuntimeException e) {
+            // malformed line, or a failure while simulating it such as a tile that can't be fetched: only this line
+            // gets the error, the batch goes on
+            response = new Response(null, Status.GENERIC_ERROR);
+        }
+
+        try {
+            return mapper.writeValueAsString(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(ForkJoinTask<String> task, Writer output) throws IOException {
+        output.write(task.join());
+        output.write('\n');
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.model.Direction;
+
+import java.util.List;
+
+import static com.github.hangovers.simulation.CommandProgram.FAIL;
+import static com.github.hangovers.simulation.CommandProgram.MOVE;
+import static com.github.hangovers.simulation.CommandProgram.NOP;
+import static com.github.hangovers.simulation.CommandProgram.ROTATE;
+import static com.github.hangovers.simulation.CommandProgram.START;
+
+/**
+ * Turns command strings into a {@link CommandProgram}.
+ * Commands are parsed in place, in a single pass, without splitting strings or creating intermediate objects.
+ */
+public final class CommandCompiler {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private CommandCompiler() {
+    }
+
+    /**
+     * Compiles a whole commands list. Parsing stops at the first malformed command, which gets compiled into an
+     * instruction failing the simulation when (and only if) it's reached.
+     * @param commands commands list, starting with the START command
+     * @return compiled program
+     */
+    public static CommandProgram compile(List<String> commands) {
+        var code = new int[commands.size() * CommandProgram.INSTRUCTION_SIZE];
+        var startX = 0;
+        var startY = 0;
+        var index = 0;
+
+        try {
+            for (String command : commands) {
+                if (index == 0) {
+                    var start = parseStart(command, index);
+                    startX = start[0];
+                    startY = start[1];
+                    code[0] = START;
+                    code[1] = start[2];
+                } else {
+                    var instruction = parseInstruction(command, index);
+                    code[index * CommandProgram.INSTRUCTION_SIZE] = opcode(instruction);
+                    code[index * CommandProgram.INSTRUCTION_SIZE + 1] = operand(instruction);
+                }
+                index++;
+            }
+        } catch (CommandParseException e) {
+            code[index * CommandProgram.INSTRUCTION_SIZE] = FAIL;
+            code[index * CommandProgram.INSTRUCTION_SIZE + 1] = index;
+            return new CommandProgram(code, index + 1, startX, startY, e);
+        }
+        return new CommandProgram(code, index, startX, startY, null);
+    }
+
+    /**
+     * @param command starting command, e.g. "START 1,0,NORTH"
+     * @param index position of the command in the commands list
+     * @return x, y and direction ordinal
+     * @throws CommandParseException if the command is not a valid START command
+     */
+    static int[] parseStart(String command, int index) throws CommandParseException {
+        if (command == null || !command.startsWith("START ")) {
+            throw new CommandParseException(index, command, "expected START x,y,DIRECTION");
+        }
+
+        var xEnd = command.indexOf(',', 6);
+        var yEnd = xEnd < 0 ? -1 : command.indexOf(',', xEnd + 1);
+        if (yEnd < 0) {
+            throw new CommandParseException(index, command, "expected START x,y,DIRECTION");
+        }
+        var directionEnd = command.indexOf(',', yEnd + 1);
+
+        return new int[] {
+                parseNumber(command, 6, xEnd, index),
+                parseNumber(command, xEnd + 1, yEnd, index),
+                parseDirection(command, yEnd + 1, directionEnd < 0 ? command.length() : directionEnd, index)
+        };
+    }
+
+    /**
+     * Commands other than MOVE and ROTATE are ignored, they compile to a no-op.
+     * @param command command following the starting one, e.g. "MOVE 3" or "ROTATE EAST"
+     * @param index position of the command in the commands list
+     * @return opcode and operand packed in a long, see {@link #opcode(long)} and {@link #operand(long)}
+     * @throws CommandParseException if the argument of a MOVE or ROTATE command is not valid
+     */
+    static long parseInstruction(String command, int index) throws CommandParseException {
+        if (command == null) {
+            throw new CommandParseException(index, null, "missing command");
+        }
+
+        int opcode;
+        if (command.startsWith("ROTATE")) {
+            opcode = ROTATE;
+        } else if (command.startsWith("MOVE")) {
+            opcode = MOVE;
+        } else {
+            return instruction(NOP, 0);
+        }
+
+        // argument is the text between the first and the second space
+        var argumentStart = command.indexOf(' ');
+        if (argumentStart < 0) {
+            throw new CommandParseException(index, command, "missing argument");
+        }
+        var argumentEnd = command.indexOf(' ', argumentStart + 1);
+        if (argumentEnd < 0) argumentEnd = command.length();
+
+        return instruction(opcode, opcode == ROTATE
+                ? parseDirection(command, argumentStart + 1, argumentEnd, index)
+                : parseNumber(command, argumentStart + 1, argumentEnd, index));
+    }
+
+    static int opcode(long instruction) {
+        return (int) (instruction >>> 32);
+    }
+
+    static int operand(long instruction) {
+        return (int) instruction;
+    }
+
+    private static long instruction(int opcode, int operand) {
+        return ((long) opcode << 32) | (operand & 0xFFFFFFFFL);
+    }
+
+    private static int parseNumber(String command, int begin, int end, int index) throws CommandParseException {
+        try {
+            return Integer.parseInt(command, begin, end, 10);
+        } catch (NumberFormatException e) {
+            throw new CommandParseException(index, command, "invalid number");
+        }
+    }
+
+    private static int parseDirection(String command, int begin, int end, int index) throws CommandParseException {
+        for (Direction direction : DIRECTIONS) {
+            var name = direction.name();
+            if (end - begin == name.length() && command.regionMatches(begin, name, 0, name.length())) {
+                return direction.ordinal();
+            }
+        }
+        throw new CommandParseException(index, command, "invalid direction");
+    }
+}
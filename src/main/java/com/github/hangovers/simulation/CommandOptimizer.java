@@ -0,0 +1,90 @@
+package com.github.hangovers.simulation;
+
+import java.util.Arrays;
+
+import static com.github.hangovers.simulation.CommandProgram.FAIL;
+import static com.github.hangovers.simulation.CommandProgram.INSTRUCTION_SIZE;
+import static com.github.hangovers.simulation.CommandProgram.MOVE;
+import static com.github.hangovers.simulation.CommandProgram.ROTATE;
+import static com.github.hangovers.simulation.CommandProgram.START;
+
+/**
+ * Peephole pass over a {@link CommandProgram}, rewriting it into a shorter one with the same outcome on any board:
+ * <ul>
+ *     <li>ignored commands, MOVEs of zero or negative steps and ROTATEs to the direction already faced are dropped</li>
+ *     <li>ROTATEs followed by another ROTATE are dropped, only the last one is executed right before the next MOVE</li>
+ *     <li>MOVEs in the same direction are merged into a single one</li>
+ *     <li>commands following a malformed one are dropped, the simulation never gets past it</li>
+ * </ul>
+ * Merging MOVEs is always safe: a knight stopped by an obstacle can't walk through it with the next MOVE either, and
+ * the merged MOVE walks the same cells, so it stops on the same obstacle or board edge. Merged steps saturate to
+ * Integer.MAX_VALUE, which is already enough to cross any board.
+ */
+public final class CommandOptimizer {
+
+    private CommandOptimizer() {
+    }
+
+    /**
+     * @param program compiled commands list
+     * @return equivalent program, {@link CommandProgram#eliminated()} tells how many commands were dropped
+     */
+    public static CommandProgram optimize(CommandProgram program) {
+        var length = program.size();
+        if (length == 0) return program;
+
+        var code = new int[length * INSTRUCTION_SIZE];
+        var size = 0;
+        // direction faced at the end of the optimized program and direction the knight should be facing
+        var direction = -1;
+        var target = -1;
+
+        for (int index = 0; index < length; index++) {
+            var opcode = program.opcode(index);
+            var operand = program.operand(index);
+            switch (opcode) {
+                case START -> {
+                    direction = target = operand;
+                    size = append(code, size, START, operand);
+                }
+                case ROTATE -> target = operand;
+                case MOVE -> {
+                    if (operand <= 0) continue;
+                    if (target != direction) {
+                        size = append(code, size, ROTATE, target);
+                        direction = target;
+                    }
+                    var previous = (size - 1) * INSTRUCTION_SIZE;
+                    if (size > 0 && code[previous] == MOVE) {
+                        code[previous + 1] = (int) Math.min((long) code[previous + 1] + operand, Integer.MAX_VALUE);
+                    } else {
+                        size = append(code, size, MOVE, operand);
+                    }
+                }
+                case FAIL -> {
+                    // the simulation stops here, whatever the knight is facing
+                    size = append(code, size, FAIL, operand);
+                    return optimized(program, code, size);
+                }
+                default -> {
+                    // ignored command
+                }
+            }
+        }
+        if (target != direction) {
+            size = append(code, size, ROTATE, target);
+        }
+        return optimized(program, code, size);
+    }
+
+    private static int append(int[] code, int size, int opcode, int operand) {
+        code[size * INSTRUCTION_SIZE] = opcode;
+        code[size * INSTRUCTION_SIZE + 1] = operand;
+        return size + 1;
+    }
+
+    private static CommandProgram optimized(CommandProgram program, int[] code, int size) {
+        return new CommandProgram(Arrays.copyOf(code, size * INSTRUCTION_SIZE), size, program.startX(), program.startY(),
+                program.parseError(), program.eliminated() + program.size() - size);
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.hangovers.simulation;
+
+/**
+ * Thrown when a command can't be parsed, reports the position of the command in the list
+ */
+public class CommandParseException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+
+    /**
+     * @param index position of the malformed command in the commands list
+     * @param command malformed command
+     * @param reason what's wrong with the command
+     */
+    public CommandParseException(int index, String command, String reason) {
+        super("Command " + index + " (" + command + "): " + reason);
+        this.index = index;
+    }
+
+    /**
+     * @return position of the malformed command in the commands list
+     */
+    public int index() {
+        return index;
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.metrics.ExecutionEvent;
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Response;
+
+import java.util.Arrays;
+
+/**
+ * Commands list compiled by {@link CommandCompiler} into a flat int array, two ints for each command: opcode and
+ * operand. MOVE's operand is the number of steps, ROTATE's and START's is the direction ordinal.
+ * Programs are immutable and can be executed any number of times, on any board.
+ */
+public final class CommandProgram {
+
+    static final int START = 0;
+    static final int MOVE = 1;
+    static final int ROTATE = 2;
+    static final int NOP = 3;
+    // malformed command, operand is the command index
+    static final int FAIL = 4;
+
+    static final int INSTRUCTION_SIZE = 2;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int[] code;
+    private final int length;
+    private final int startX;
+    private final int startY;
+    private final CommandParseException parseError;
+    private final int eliminated;
+
+    CommandProgram(int[] code, int length, int startX, int startY, CommandParseException parseError) {
+        this(code, length, startX, startY, parseError, 0);
+    }
+
+    /**
+     * @param eliminated number of commands dropped by {@link CommandOptimizer}
+     */
+    CommandProgram(int[] code, int length, int startX, int startY, CommandParseException parseError, int eliminated) {
+        this.code = code;
+        this.length = length;
+        this.startX = startX;
+        this.startY = startY;
+        this.parseError = parseError;
+        this.eliminated = eliminated;
+    }
+
+    /**
+     * @param board board where the knight is moving
+     * @return knight's final position or the error that stopped the simulation
+     */
+    public Response execute(Board board) {
+        var event = new ExecutionEvent();
+        event.begin();
+        var start = System.nanoTime();
+        var simulation = new Simulation(board);
+        try {
+            if (length == 0) return simulation.result();
+
+            var running = code[0] == START
+                    ? simulation.start(startX, startY, DIRECTIONS[code[1]])
+                    : simulation.execute(code[0], code[1]);
+
+            // stops at the first error
+            var end = length * INSTRUCTION_SIZE;
+            for (int pc = INSTRUCTION_SIZE; running && pc < end; pc += INSTRUCTION_SIZE) {
+                running = simulation.execute(code[pc], code[pc + 1]);
+            }
+            return simulation.result();
+        } finally {
+            Metrics.EXECUTION.recordSince(start);
+            simulation.commit(event, null);
+        }
+    }
+
+    /**
+     * Executes the program from the given command on, as if the knight had reached the given position by executing
+     * all the previous ones
+     * @param board board where the knight is moving
+     * @param from index of the first command to be executed
+     * @return knight's final position or the error that stopped the simulation
+     */
+    Response resume(Board board, int x, int y, Direction direction, int from) {
+        var event = new ExecutionEvent();
+        event.begin();
+        var start = System.nanoTime();
+        var simulation = new Simulation(board);
+        try {
+            var running = simulation.start(x, y, direction);
+            var end = length * INSTRUCTION_SIZE;
+            for (int pc = from * INSTRUCTION_SIZE; running && pc < end; pc += INSTRUCTION_SIZE) {
+                running = simulation.execute(code[pc], code[pc + 1]);
+            }
+            return simulation.result();
+        } finally {
+            Metrics.EXECUTION.recordSince(start);
+            simulation.commit(event, null);
+        }
+    }
+
+    /**
+     * @return number of compiled commands, including the malformed one if compilation stopped
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * @return number of commands dropped by {@link CommandOptimizer}, 0 if the program has not been optimized
+     */
+    public int eliminated() {
+        return eliminated;
+    }
+
+    /**
+     * @return the error that stopped compilation, null if all the commands are valid
+     */
+    public CommandParseException parseError() {
+        return parseError;
+    }
+
+    /**
+     * @param prefix instructions of another program, see {@link #code(int)}
+     * @return true if this program starts with the given instructions
+     */
+    boolean startsWith(int[] prefix) {
+        return prefix.length <= length * INSTRUCTION_SIZE && Arrays.equals(code, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * @param commands number of commands to be copied
+     * @return copy of the first instructions of the program
+     */
+    int[] code(int commands) {
+        return Arrays.copyOf(code, commands * INSTRUCTION_SIZE);
+    }
+
+    int opcode(int index) {
+        return code[index * INSTRUCTION_SIZE];
+    }
+
+    int operand(int index) {
+        return code[index * INSTRUCTION_SIZE + 1];
+    }
+
+    int startX() {
+        return startX;
+    }
+
+    int startY() {
+        return startY;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Status;
+
+/**
+ * Applies a MOVE to a range of knights of a {@link FleetSimulation}, all of them at once.
+ * Knights are stored as parallel arrays, a knight is still running while its status is SUCCESS (ordinal 0).
+ */
+interface FleetKernel {
+
+    int NORTH = Direction.NORTH.ordinal();
+    int EAST = Direction.EAST.ordinal();
+    int SOUTH = Direction.SOUTH.ordinal();
+    int WEST = Direction.WEST.ordinal();
+
+    int RUNNING = Status.SUCCESS.ordinal();
+    int OUT_OF_THE_BOARD = Status.OUT_OF_THE_BOARD.ordinal();
+
+    // tally slots
+    int STEPS = 0;
+    int COLLISIONS = 1;
+    int OUT_OF_BOARD = 2;
+
+    /**
+     * Same semantics as {@link com.github.hangovers.model.dto.KnightPosition#move(int, com.github.hangovers.model.Board)}:
+     * knights stop right before the first obstacle, or fail on the last cell of the board when they would leave it.
+     * @param fleet knights' state
+     * @param toObstacle steps to the first obstacle in front of each knight, null if the board has no obstacles
+     * @param from first knight, inclusive
+     * @param to last knight, exclusive
+     * @param steps MOVE's operand, greater than 0
+     * @param tally steps walked, collisions and knights gone out of the board, incremented
+     */
+    void move(FleetState fleet, int[] toObstacle, int from, int to, int steps, long[] tally);
+
+    /**
+     * @return the vector kernel if jdk.incubator.vector is available, the scalar one otherwise
+     */
+    static FleetKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorFleetKernel();
+            } catch (LinkageError e) {
+                // module resolved but not usable, e.g. not readable from this module
+            }
+        }
+        return new ScalarFleetKernel();
+    }
+}
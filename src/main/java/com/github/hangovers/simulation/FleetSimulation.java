@@ -0,0 +1,205 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.KnightPosition;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Simulates a fleet of knights on the same board, each one with its own start position, all of them following the
+ * same commands in lockstep.
+ * Knights are kept in parallel primitive arrays and MOVEs are applied to many knights at once, with
+ * jdk.incubator.vector when it's available (--add-modules jdk.incubator.vector) and a scalar loop otherwise.
+ * Each knight ends up exactly as a {@link Simulation} of its START command followed by the fleet's commands would.
+ */
+public final class FleetSimulation {
+
+    // knights simulated together by a single task, small enough for their arrays to stay in cache across commands
+    static final int CHUNK_SIZE = 4_096;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final Board board;
+    private final FleetState fleet;
+    private final FleetKernel kernel;
+    private int commandIndex = 1;
+
+    /**
+     * @param board board where the knights are moving
+     * @param startX horizontal start position of each knight
+     * @param startY vertical start position of each knight
+     * @param startDirections direction each knight is facing at start
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public FleetSimulation(Board board, int[] startX, int[] startY, Direction[] startDirections) {
+        this(board, startX, startY, startDirections, FleetKernel.best());
+    }
+
+    FleetSimulation(Board board, int[] startX, int[] startY, Direction[] startDirections, FleetKernel kernel) {
+        if (startX.length != startY.length || startX.length != startDirections.length) {
+            throw new IllegalArgumentException("Start positions and directions must have the same length");
+        }
+
+        var valid = board != null && board.width() != null && board.height() != null;
+        this.board = board;
+        this.kernel = kernel;
+        this.fleet = new FleetState(valid ? board.width() : 0, valid ? board.height() : 0, startX.length);
+
+        // START command of each knight
+        for (int i = 0; i < startX.length; i++) {
+            var start = new Coordinates(startX[i], startY[i]);
+            if (!valid) {
+                fleet.status[i] = Status.GENERIC_ERROR.ordinal();
+            } else if (board.isOutOfBounds(start) || board.checkCollision(start)) {
+                fleet.status[i] = Status.INVALID_START_POSITION.ordinal();
+            } else {
+                fleet.x[i] = startX[i];
+                fleet.y[i] = startY[i];
+                fleet.direction[i] = startDirections[i].ordinal();
+            }
+        }
+    }
+
+    /**
+     * Runs the commands on the common pool
+     * @param commands commands following the START commands, e.g. "MOVE 3" or "ROTATE EAST"
+     */
+    public void run(List<String> commands) {
+        run(commands, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs the commands, the fleet is split in chunks of knights simulated in parallel.
+     * Commands can be run in several calls, knights go on from where the previous ones stopped them.
+     * @param commands commands following the START commands, e.g. "MOVE 3" or "ROTATE EAST"
+     * @param pool pool running the chunks
+     */
+    public void run(List<String> commands, ForkJoinPool pool) {
+        var program = compile(commands);
+        // shared by the chunks, each one uses its own range
+        var toObstacle = board == null || board.obstacleCount() == 0 ? null : new int[fleet.size()];
+
+        var tasks = new ArrayList<ForkJoinTask<?>>();
+        for (int from = 0; from < fleet.size(); from += CHUNK_SIZE) {
+            var chunkStart = from;
+            var chunkEnd = Math.min(from + CHUNK_SIZE, fleet.size());
+            tasks.add(pool.submit(() -> execute(program, toObstacle, chunkStart, chunkEnd)));
+        }
+        tasks.forEach(ForkJoinTask::join);
+    }
+
+    /**
+     * @return number of knights in the fleet
+     */
+    public int size() {
+        return fleet.size();
+    }
+
+    /**
+     * @param knight knight's index
+     * @return knight's status, SUCCESS if it's still running
+     */
+    public Status status(int knight) {
+        return STATUSES[fleet.status[knight]];
+    }
+
+    /**
+     * @param knight knight's index
+     * @return the same response a single knight simulation would give
+     */
+    public Response response(int knight) {
+        var status = status(knight);
+        if (status != Status.SUCCESS) return new Response(null, status);
+        return new Response(new KnightPosition(new Coordinates(fleet.x[knight], fleet.y[knight]),
+                DIRECTIONS[fleet.direction[knight]]), status);
+    }
+
+    /**
+     * Compiles the commands into (opcode, operand) pairs, stopping at the first malformed one like {@link CommandCompiler}
+     */
+    private int[] compile(List<String> commands) {
+        var code = new int[commands.size() * CommandProgram.INSTRUCTION_SIZE];
+        var length = 0;
+        for (String command : commands) {
+            try {
+                var instruction = CommandCompiler.parseInstruction(command, commandIndex++);
+                code[length++] = CommandCompiler.opcode(instruction);
+                code[length++] = CommandCompiler.operand(instruction);
+            } catch (CommandParseException e) {
+                code[length++] = CommandProgram.FAIL;
+                code[length++] = e.index();
+                break;
+            }
+        }
+        return Arrays.copyOf(code, length);
+    }
+
+    /**
+     * Runs the whole program on a chunk of knights
+     */
+    private void execute(int[] program, int[] toObstacle, int from, int to) {
+        var tally = new long[3];
+        var running = running(from, to);
+
+        for (int pc = 0; pc < program.length && running > 0; pc += CommandProgram.INSTRUCTION_SIZE) {
+            var operand = program[pc + 1];
+            switch (program[pc]) {
+                case CommandProgram.MOVE -> {
+                    if (operand <= 0) continue;
+                    if (toObstacle != null) {
+                        // obstacle lookups are binary searches, the only part that can't be vectorized.
+                        // Obstacles beyond the move are not looked for, tiled boards only fetch the tiles it walks
+                        for (int i = from; i < to; i++) {
+                            if (fleet.status[i] == FleetKernel.RUNNING) {
+                                toObstacle[i] = board.distanceToObstacle(
+                                        fleet.x[i], fleet.y[i], DIRECTIONS[fleet.direction[i]], operand);
+                            }
+                        }
+                    }
+                    var stopped = tally[FleetKernel.OUT_OF_BOARD];
+                    kernel.move(fleet, toObstacle, from, to, operand, tally);
+                    running -= (int) (tally[FleetKernel.OUT_OF_BOARD] - stopped);
+                }
+                case CommandProgram.ROTATE -> {
+                    for (int i = from; i < to; i++) {
+                        if (fleet.status[i] == FleetKernel.RUNNING) fleet.direction[i] = operand;
+                    }
+                }
+                case CommandProgram.FAIL -> {
+                    for (int i = from; i < to; i++) {
+                        if (fleet.status[i] == FleetKernel.RUNNING) fleet.status[i] = Status.GENERIC_ERROR.ordinal();
+                    }
+                    running = 0;
+                }
+                default -> {
+                    // ignored command
+                }
+            }
+        }
+
+        Metrics.STEPS.add(tally[FleetKernel.STEPS]);
+        Metrics.COLLISIONS.add(tally[FleetKernel.COLLISIONS]);
+        Metrics.OUT_OF_THE_BOARD.add(tally[FleetKernel.OUT_OF_BOARD]);
+    }
+
+    /**
+     * @return number of knights still running in the chunk
+     */
+    private int running(int from, int to) {
+        var running = 0;
+        for (int i = from; i < to; i++) {
+            if (fleet.status[i] == FleetKernel.RUNNING) running++;
+        }
+        return running;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.hangovers.simulation;
+
+/**
+ * Knights of a fleet as parallel arrays, structure-of-arrays layout: the kernels stream through each array instead of
+ * chasing a KnightPosition and a Coordinates object for every knight.
+ */
+final class FleetState {
+
+    final int width;
+    final int height;
+    final int[] x;
+    final int[] y;
+    // Direction ordinals
+    final int[] direction;
+    // Status ordinals, SUCCESS while the knight is still running
+    final int[] status;
+
+    FleetState(int width, int height, int size) {
+        this.width = width;
+        this.height = height;
+        this.x = new int[size];
+        this.y = new int[size];
+        this.direction = new int[size];
+        this.status = new int[size];
+    }
+
+    int size() {
+        return x.length;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.hangovers.simulation;
+
+/**
+ * Count-min sketch of 4 bit counters estimating how often keys have been seen recently, used by {@link SimulationCache}
+ * to decide whether a new entry is worth evicting an old one (TinyLFU admission).
+ * Counters get halved every time the number of recorded keys reaches ten times the number of counters, so that old
+ * popularity fades away.
+ * Sketches are not thread safe.
+ */
+final class FrequencySketch {
+
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {0x97CB3127A5A7F01BL, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xFF51AFD7ED558CCDL};
+
+    // 16 counters of 4 bits for each long
+    private final long[] table;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param capacity expected number of distinct keys worth tracking
+     */
+    FrequencySketch(int capacity) {
+        // a power of two, at least as many counters as keys
+        var counters = Math.max(16, Integer.highestOneBit(Math.min(capacity, 1 << 26) - 1) << 1);
+        this.table = new long[counters / 16];
+        this.sampleSize = 10 * counters;
+    }
+
+    /**
+     * @param hash well mixed hash of the key
+     * @return estimated number of recent occurrences of the key, up to 15
+     */
+    int frequency(long hash) {
+        var frequency = MAX_COUNT;
+        for (long seed : SEEDS) {
+            frequency = Math.min(frequency, count(index(hash, seed)));
+        }
+        return frequency;
+    }
+
+    /**
+     * @param hash well mixed hash of the key
+     */
+    void increment(long hash) {
+        var added = false;
+        for (long seed : SEEDS) {
+            var index = index(hash, seed);
+            if (count(index) < MAX_COUNT) {
+                table[index >>> 4] += 1L << ((index & 15) << 2);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private int count(int index) {
+        return (int) (table[index >>> 4] >>> ((index & 15) << 2)) & MAX_COUNT;
+    }
+
+    private int index(long hash, long seed) {
+        var mixed = (hash ^ seed) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & (table.length * 16 - 1);
+    }
+
+    /**
+     * Halves all the counters
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+        }
+        additions /= 2;
+    }
+}
@@ -0,0 +1,256 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.metrics.ExecutionEvent;
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.KnightPosition;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Executes very long programs on small boards using all the cores.
+ * <p>
+ * ROTATE sets the direction absolutely, so the commands between two ROTATEs (a segment) always walk the same
+ * direction, and their effect only depends on the cell the knight enters the segment from: a function from board cells
+ * to board cells, where leaving the board is an absorbing state. Segments are split in chunks, each chunk's function
+ * is built on its own core by applying its segments to every cell, then the chunk functions are composed with a
+ * parallel prefix and the final one is applied to the start cell.
+ * <p>
+ * Applying a segment costs a step for every board cell, while the sequential interpreter costs about as much as
+ * {@value #CELLS_PER_COMMAND} of those steps for every command: programs are evaluated in parallel only when
+ * cells x segments, spread over the cores, is below that budget for the whole program. Short programs, where the
+ * fork-join overhead would dominate, and tiled boards, whose functions would fetch every tile, are always executed
+ * sequentially. Per-step counters (steps walked, collisions) are only updated by the sequential interpreter.
+ */
+public final class ParallelEvaluator {
+
+    public static final ParallelEvaluator DEFAULT = new ParallelEvaluator(ForkJoinPool.getCommonPoolParallelism(), 1 << 14);
+
+    // cells a core can apply a segment to in the time the sequential interpreter executes a command, measured on an
+    // 8x8 board: about 20ns for a command, 0.65ns for a cell
+    static final int CELLS_PER_COMMAND = 32;
+    // chunk functions are all kept for the prefix, this bounds their memory
+    private static final int MAX_CELLS = 1 << 16;
+    private static final int CHUNKS_PER_CORE = 4;
+    private static final int OUT = -1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int parallelism;
+    private final int minCommands;
+
+    /**
+     * @param parallelism cores the evaluation can use
+     * @param minCommands commands below which programs are executed sequentially
+     */
+    public ParallelEvaluator(int parallelism, int minCommands) {
+        this.parallelism = Math.max(1, parallelism);
+        this.minCommands = Math.max(1, minCommands);
+    }
+
+    /**
+     * Same as {@link CommandProgram#execute(Board)}, in parallel when it pays off
+     * @param program program to be executed
+     * @param board board where the knight is moving
+     * @return knight's final position or the error that stopped the simulation
+     */
+    public Response execute(CommandProgram program, Board board) {
+        // counted here rather than by the optimizer, so that results served by the cache don't count them again
+        Metrics.ELIMINATED_COMMANDS.add(program.eliminated());
+        if (program.size() == 0 || program.opcode(0) != CommandProgram.START || board == null
+                || board.width() == null || board.height() == null || board.isTiled()) {
+            return program.execute(board);
+        }
+        var cells = (long) board.width() * board.height();
+        if (cells > MAX_CELLS || parallelism < 2 || program.size() < minCommands
+                || board.isOutOfBounds(new Coordinates(program.startX(), program.startY()))
+                || board.checkCollision(new Coordinates(program.startX(), program.startY()))) {
+            return program.execute(board);
+        }
+
+        var segments = Segments.of(program);
+        if (segments.size() == 0
+                || cells * segments.size() > (long) CELLS_PER_COMMAND * parallelism * program.size()) {
+            return program.execute(board);
+        }
+
+        var event = new ExecutionEvent();
+        event.begin();
+        var start = System.nanoTime();
+        Response response = null;
+        try {
+            response = evaluate(segments, new Moves(board), program.startY() * board.width() + program.startX());
+            return response;
+        } finally {
+            Metrics.EXECUTION.recordSince(start);
+            // every command is evaluated, steps and collisions are not counted
+            event.commit(program.size(), -1, -1, (response == null ? Status.GENERIC_ERROR : response.status()).name());
+        }
+    }
+
+    private Response evaluate(Segments segments, Moves moves, int startCell) {
+        var chunks = Math.min(segments.size(), parallelism * CHUNKS_PER_CORE);
+        var functions = new int[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> functions[chunk] = moves.function(segments,
+                (int) ((long) segments.size() * chunk / chunks), (int) ((long) segments.size() * (chunk + 1) / chunks)));
+
+        // functions[i] becomes the composition of the first i + 1 chunks
+        Arrays.parallelPrefix(functions, ParallelEvaluator::compose);
+        var end = functions[chunks - 1][startCell];
+
+        if (end == OUT) {
+            Metrics.OUT_OF_THE_BOARD.increment();
+            return new Response(null, Status.OUT_OF_THE_BOARD);
+        }
+        if (segments.failed()) return new Response(null, Status.GENERIC_ERROR);
+        return new Response(new KnightPosition(new Coordinates(end % moves.width, end / moves.width),
+                DIRECTIONS[segments.direction()]), Status.SUCCESS);
+    }
+
+    /**
+     * @return first then second
+     */
+    private static int[] compose(int[] first, int[] second) {
+        var composed = new int[first.length];
+        for (int cell = 0; cell < first.length; cell++) {
+            var next = first[cell];
+            composed[cell] = next == OUT ? OUT : second[next];
+        }
+        return composed;
+    }
+
+    /**
+     * Program reduced to its segments: the direction and total steps of the MOVEs between two ROTATEs.
+     * Consecutive MOVEs in the same direction are the same as a single one: a knight stopped by an obstacle can't get
+     * past it with the next MOVE.
+     */
+    private record Segments(byte[] directions, int[] steps, int size, int direction, boolean failed) {
+
+        static Segments of(CommandProgram program) {
+            var directions = new byte[16];
+            var steps = new int[16];
+            var size = 0;
+            var direction = program.operand(0);
+            var pending = 0L;
+            var failed = false;
+
+            for (int i = 1; i < program.size() && !failed; i++) {
+                switch (program.opcode(i)) {
+                    case CommandProgram.MOVE -> pending += Math.max(program.operand(i), 0);
+                    case CommandProgram.ROTATE -> {
+                        if (pending > 0) {
+                            if (size == steps.length) {
+                                directions = Arrays.copyOf(directions, size * 2);
+                                steps = Arrays.copyOf(steps, size * 2);
+                            }
+                            directions[size] = (byte) direction;
+                            steps[size++] = (int) Math.min(pending, Integer.MAX_VALUE);
+                            pending = 0;
+                        }
+                        direction = program.operand(i);
+                    }
+                    // compilation stops at the first malformed command, it's always the last one
+                    case CommandProgram.FAIL -> failed = true;
+                    default -> {
+                        // ignored command
+                    }
+                }
+            }
+            if (pending > 0) {
+                directions = Arrays.copyOf(directions, size + 1);
+                steps = Arrays.copyOf(steps, size + 1);
+                directions[size] = (byte) direction;
+                steps[size++] = (int) Math.min(pending, Integer.MAX_VALUE);
+            }
+            return new Segments(directions, steps, size, direction, failed);
+        }
+    }
+
+    /**
+     * Where a MOVE takes the knight from each cell, cells numbered row by row
+     */
+    private static final class Moves {
+
+        private final int width;
+        private final int cells;
+        // for each direction and cell: free steps before an obstacle if >= 0, before the edge (-steps - 1) otherwise
+        private final int[][] reach = new int[DIRECTIONS.length][];
+        private final int[] delta;
+
+        Moves(Board board) {
+            this.width = board.width();
+            var height = board.height();
+            this.cells = width * height;
+            this.delta = new int[]{width, 1, -width, -1};
+
+            var obstacles = new boolean[cells];
+            for (long obstacle : board.packedObstacles()) {
+                var x = Coordinates.unpackX(obstacle);
+                var y = Coordinates.unpackY(obstacle);
+                if (x < width && y < height) obstacles[y * width + x] = true;
+            }
+
+            for (Direction direction : DIRECTIONS) {
+                var reach = new int[cells];
+                var step = delta[direction.ordinal()];
+                // cells are swept starting from the one closest to the edge the knight walks towards
+                var forward = step > 0;
+                for (int i = 0; i < cells; i++) {
+                    var cell = forward ? cells - 1 - i : i;
+                    var x = cell % width;
+                    var y = cell / width;
+                    var lastOfLine = switch (direction) {
+                        case NORTH -> y == height - 1;
+                        case EAST -> x == width - 1;
+                        case SOUTH -> y == 0;
+                        case WEST -> x == 0;
+                    };
+                    if (lastOfLine) {
+                        reach[cell] = -1;
+                    } else if (obstacles[cell + step]) {
+                        reach[cell] = 0;
+                    } else {
+                        var next = reach[cell + step];
+                        reach[cell] = next >= 0 ? next + 1 : next - 1;
+                    }
+                }
+                this.reach[direction.ordinal()] = reach;
+            }
+        }
+
+        /**
+         * @param from first segment of the chunk
+         * @param to segment after the last one of the chunk
+         * @return cell where the knight ends up after the chunk's segments, from each cell, or OUT
+         */
+        int[] function(Segments segments, int from, int to) {
+            var function = new int[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                function[cell] = cell;
+            }
+            for (int segment = from; segment < to; segment++) {
+                var direction = segments.directions()[segment];
+                var steps = segments.steps()[segment];
+                var reach = this.reach[direction];
+                var step = delta[direction];
+                for (int cell = 0; cell < cells; cell++) {
+                    var current = function[cell];
+                    if (current == OUT) continue;
+                    var free = reach[current];
+                    if (free >= 0) {
+                        function[cell] = current + Math.min(steps, free) * step;
+                    } else {
+                        free = -free - 1;
+                        function[cell] = steps > free ? OUT : current + steps * step;
+                    }
+                }
+            }
+            return function;
+        }
+    }
+}
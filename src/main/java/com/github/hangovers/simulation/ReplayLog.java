@@ -0,0 +1,179 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.KnightPosition;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Commands list that keeps growing, able to tell where the knight was after any of its commands.
+ * Commands are compiled as they're appended and executed right away, so appending never replays the list. Every
+ * checkpoint interval commands, knight's position is saved as a checkpoint: a query seeks to the closest checkpoint
+ * before the requested command and replays at most checkpoint interval - 1 commands from there.
+ * Memory is 8 bytes for each command plus 12 bytes for each checkpoint.
+ * Logs are not thread safe.
+ */
+public final class ReplayLog {
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 256;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int CHECKPOINT_SIZE = 3;
+
+    private final Board board;
+    private final int checkpointInterval;
+    // the knight after the last command, the checkpoint appends resume from
+    private final Simulation tail;
+
+    // opcode and operand of each executed command, see CommandProgram
+    private int[] code = new int[64 * CommandProgram.INSTRUCTION_SIZE];
+    // x, y and direction ordinal of the knight after command i * checkpointInterval
+    private int[] checkpoints = new int[16 * CHECKPOINT_SIZE];
+    private int checkpointCount;
+    private int size;
+    // index of the command that stopped the simulation, -1 while it's running
+    private int stoppedAt = -1;
+
+    /**
+     * @param board board where the knight is moving
+     */
+    public ReplayLog(Board board) {
+        this(board, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * @param board board where the knight is moving
+     * @param checkpointInterval number of commands between two checkpoints, lower values trade memory for faster queries
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public ReplayLog(Board board, int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+        }
+        this.board = board;
+        this.checkpointInterval = checkpointInterval;
+        this.tail = new Simulation(board);
+    }
+
+    /**
+     * Executes a command after the ones already in the log, the first one has to be the START command.
+     * Commands following an error are counted but never executed, the same as {@link Simulation#accept(String)}.
+     * @param command command to be executed, e.g. "START 1,0,NORTH", "MOVE 3" or "ROTATE EAST"
+     * @return true if the simulation can go on, false if it has been stopped by an error
+     */
+    public boolean append(String command) {
+        var index = size++;
+        if (stoppedAt >= 0) return false;
+
+        boolean running;
+        try {
+            if (index == 0) {
+                var start = CommandCompiler.parseStart(command, index);
+                running = tail.start(start[0], start[1], DIRECTIONS[start[2]]);
+                store(index, CommandProgram.START, start[2]);
+            } else {
+                var instruction = CommandCompiler.parseInstruction(command, index);
+                running = tail.execute(CommandCompiler.opcode(instruction), CommandCompiler.operand(instruction));
+                store(index, CommandCompiler.opcode(instruction), CommandCompiler.operand(instruction));
+            }
+        } catch (CommandParseException e) {
+            running = tail.execute(CommandProgram.FAIL, index);
+        }
+
+        if (!running) {
+            stoppedAt = index;
+        } else if (index % checkpointInterval == 0) {
+            checkpoint();
+        }
+        return running;
+    }
+
+    /**
+     * @param commands commands to be executed after the ones already in the log
+     * @return true if the simulation can go on, false if it has been stopped by an error
+     */
+    public boolean appendAll(List<String> commands) {
+        var running = stoppedAt < 0;
+        for (String command : commands) {
+            running = append(command);
+        }
+        return running;
+    }
+
+    /**
+     * @param index position of a command in the log, 0 being the START command
+     * @return knight's position right after the command, or the error that stopped the simulation at or before it
+     * @throws IndexOutOfBoundsException if there's no such command in the log
+     */
+    public Response positionAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Command " + index + " out of " + size);
+        }
+        if (stoppedAt >= 0 && index >= stoppedAt) return tail.result();
+        if (index == size - 1) return current();
+
+        // seek to the closest checkpoint, then replay what's between it and the requested command
+        var checkpoint = index / checkpointInterval;
+        var offset = checkpoint * CHECKPOINT_SIZE;
+        var replay = Simulation.replay(board);
+        replay.start(checkpoints[offset], checkpoints[offset + 1], DIRECTIONS[checkpoints[offset + 2]]);
+        for (int command = checkpoint * checkpointInterval + 1; command <= index; command++) {
+            replay.execute(code[command * CommandProgram.INSTRUCTION_SIZE], code[command * CommandProgram.INSTRUCTION_SIZE + 1]);
+        }
+        return replay.result();
+    }
+
+    /**
+     * @return knight's position after the last command or the error that stopped the simulation
+     */
+    public Response result() {
+        return stoppedAt >= 0 || size == 0 ? tail.result() : current();
+    }
+
+    /**
+     * @return number of commands appended to the log, including the ones following an error
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of saved checkpoints
+     */
+    public int checkpoints() {
+        return checkpointCount;
+    }
+
+    /**
+     * @return a copy of the knight after the last command, so that callers can't move the tail
+     */
+    private Response current() {
+        var position = tail.position();
+        return new Response(new KnightPosition(position.getCoordinates(), position.getDirection()), Status.SUCCESS);
+    }
+
+    private void store(int index, int opcode, int operand) {
+        var offset = index * CommandProgram.INSTRUCTION_SIZE;
+        if (offset + CommandProgram.INSTRUCTION_SIZE > code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[offset] = opcode;
+        code[offset + 1] = operand;
+    }
+
+    private void checkpoint() {
+        var offset = checkpointCount * CHECKPOINT_SIZE;
+        if (offset + CHECKPOINT_SIZE > checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+        }
+        var position = tail.position();
+        checkpoints[offset] = position.getCoordinates().x();
+        checkpoints[offset + 1] = position.getCoordinates().y();
+        checkpoints[offset + 2] = position.getDirection().ordinal();
+        checkpointCount++;
+    }
+}
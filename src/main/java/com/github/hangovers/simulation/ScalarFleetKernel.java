@@ -0,0 +1,50 @@
+package com.github.hangovers.simulation;
+
+/**
+ * Plain loop over the knights, used when jdk.incubator.vector is not available
+ */
+final class ScalarFleetKernel implements FleetKernel {
+
+    @Override
+    public void move(FleetState fleet, int[] toObstacle, int from, int to, int steps, long[] tally) {
+        for (int i = from; i < to; i++) {
+            if (fleet.status[i] != RUNNING) continue;
+
+            var direction = fleet.direction[i];
+            int toEdge;
+            if (direction == EAST) {
+                toEdge = fleet.width - fleet.x[i];
+            } else if (direction == WEST) {
+                toEdge = fleet.x[i] + 1;
+            } else if (direction == NORTH) {
+                toEdge = fleet.height - fleet.y[i];
+            } else {
+                toEdge = fleet.y[i] + 1;
+            }
+            var obstacle = toObstacle == null ? Integer.MAX_VALUE : toObstacle[i];
+
+            int walk;
+            if (obstacle < toEdge && obstacle <= steps) {
+                walk = obstacle - 1;
+                tally[COLLISIONS]++;
+            } else if (toEdge <= steps) {
+                walk = toEdge - 1;
+                fleet.status[i] = OUT_OF_THE_BOARD;
+                tally[OUT_OF_BOARD]++;
+            } else {
+                walk = steps;
+            }
+
+            if (direction == EAST) {
+                fleet.x[i] += walk;
+            } else if (direction == WEST) {
+                fleet.x[i] -= walk;
+            } else if (direction == NORTH) {
+                fleet.y[i] += walk;
+            } else {
+                fleet.y[i] -= walk;
+            }
+            tally[STEPS] += walk;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.metrics.ExecutionEvent;
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.KnightPosition;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+import com.github.hangovers.trace.PathTrace;
+import com.github.hangovers.trace.StopReason;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Runs knight's commands on a board one at a time.
+ * Errors never end the process: the first one stops the simulation and gets reported as the response status.
+ */
+public class Simulation {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Board board;
+    private final PathTrace trace;
+    // false for replays of commands that were already simulated, which must not count as new steps
+    private final boolean metered;
+    private KnightPosition position;
+    private Status status;
+    private int commandIndex;
+    // this simulation's share of the metrics, for its ExecutionEvent
+    private long executed;
+    private long steps;
+    private long collisions;
+
+    /**
+     * @param board board where the knight is moving
+     */
+    public Simulation(Board board) {
+        this(board, null);
+    }
+
+    /**
+     * @param board board where the knight is moving
+     * @param trace receives a segment for each MOVE, null if the path is not traced
+     */
+    public Simulation(Board board, PathTrace trace) {
+        this(board, trace, true);
+    }
+
+    private Simulation(Board board, PathTrace trace, boolean metered) {
+        this.board = board;
+        this.trace = trace;
+        this.metered = metered;
+    }
+
+    /**
+     * @param board board where the knight is moving
+     * @return simulation replaying commands that were already simulated, it leaves the process wide {@link Metrics} alone
+     */
+    static Simulation replay(Board board) {
+        return new Simulation(board, null, false);
+    }
+
+    /**
+     * Runs a whole command list, optimized by the {@link CommandOptimizer} and executed in parallel when it pays off,
+     * see {@link ParallelEvaluator}
+     * @param board board where the knight is moving
+     * @param commands commands list, starting with the START command
+     * @return knight's final position or the error that stopped the simulation
+     */
+    public static Response run(Board board, List<String> commands) {
+        return ParallelEvaluator.DEFAULT.execute(CommandOptimizer.optimize(CommandCompiler.compile(commands)), board);
+    }
+
+    /**
+     * Executes a single command, the first one has to be the START command
+     * @param command command to be executed, e.g. "START 1,0,NORTH", "MOVE 3" or "ROTATE EAST"
+     * @return true if the simulation can go on, false if it has been stopped by an error
+     */
+    public boolean accept(String command) {
+        if (status != null) return false;
+
+        try {
+            if (position == null) {
+                var start = CommandCompiler.parseStart(command, commandIndex++);
+                return start(start[0], start[1], DIRECTIONS[start[2]]);
+            }
+            var instruction = CommandCompiler.parseInstruction(command, commandIndex++);
+            return execute(CommandCompiler.opcode(instruction), CommandCompiler.operand(instruction));
+        } catch (CommandParseException e) {
+            executed++;
+            status = Status.GENERIC_ERROR;
+            return false;
+        }
+    }
+
+    /**
+     * @return knight's position if all the commands were executed successfully, the error status otherwise
+     */
+    public Response result() {
+        if (status != null) return new Response(null, status);
+        if (position == null) return new Response(null, Status.GENERIC_ERROR);
+        return new Response(position, Status.SUCCESS);
+    }
+
+    /**
+     * @return knight's current position, null if the simulation has not started yet
+     */
+    public KnightPosition position() {
+        return position;
+    }
+
+    /**
+     * Initializes knight's position with starting position data and validates it on the board
+     * @return true if the simulation can go on
+     */
+    boolean start(int x, int y, Direction direction) {
+        executed++;
+        var coordinates = new Coordinates(x, y);
+        if (board == null || board.width() == null || board.height() == null) {
+            status = Status.GENERIC_ERROR;
+        } else if (board.isOutOfBounds(coordinates) || board.checkCollision(coordinates)) {
+            status = Status.INVALID_START_POSITION;
+        } else {
+            position = new KnightPosition(coordinates, direction);
+        }
+        return status == null;
+    }
+
+    /**
+     * Executes a compiled instruction, see {@link CommandProgram}
+     * @return true if the simulation can go on
+     */
+    boolean execute(int opcode, int operand) {
+        executed++;
+        switch (opcode) {
+            case CommandProgram.MOVE -> {
+                var from = position.getCoordinates();
+                try {
+                    position.move(operand, board);
+                    var steps = distance(from, position.getCoordinates());
+                    // the knight walked less than requested without leaving the board: an obstacle stopped it
+                    if (steps < operand) {
+                        if (metered) Metrics.COLLISIONS.increment();
+                        collisions++;
+                    }
+                    if (metered) Metrics.STEPS.add(steps);
+                    this.steps += steps;
+                    if (trace != null && operand > 0) {
+                        trace.segment(from.x(), from.y(), position.getDirection(), (int) steps,
+                                steps < operand ? StopReason.OBSTACLE : StopReason.COMPLETED);
+                    }
+                } catch (IOException e) {
+                    var steps = distance(from, position.getCoordinates());
+                    this.steps += steps;
+                    if (metered) {
+                        Metrics.STEPS.add(steps);
+                        Metrics.OUT_OF_THE_BOARD.increment();
+                    }
+                    status = Status.OUT_OF_THE_BOARD;
+                    if (trace != null) {
+                        trace.segment(from.x(), from.y(), position.getDirection(), (int) steps, StopReason.OUT_OF_THE_BOARD);
+                    }
+                }
+            }
+            case CommandProgram.ROTATE -> position.rotate(DIRECTIONS[operand]);
+            case CommandProgram.FAIL -> status = Status.GENERIC_ERROR;
+            default -> {
+                // ignored command
+            }
+        }
+        return status == null;
+    }
+
+    /**
+     * Ends the execution event and commits it with this simulation's counters, if it's being recorded
+     * @param status final status, null if it's {@link #result()}'s
+     */
+    void commit(ExecutionEvent event, Status status) {
+        if (!event.isEnabled()) return;
+        event.commit(executed, steps, collisions, (status == null ? result().status() : status).name());
+    }
+
+    private static long distance(Coordinates from, Coordinates to) {
+        return Math.abs((long) to.x() - from.x()) + Math.abs((long) to.y() - from.y());
+    }
+}
@@ -0,0 +1,327 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.metrics.Counter;
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.KnightPosition;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Results of past simulations, addressed by the content of their board and commands list.
+ * Boards are identified by a 128 bit hash of their size and sorted obstacles, tiled boards by the identity of their
+ * tiles so that none is fetched. Command lists are identified by a hash of their compiled instructions, so that lists
+ * written differently but meaning the same ("MOVE 03" and "MOVE 3") share their result.
+ * Instructions are kept with the result and compared on lookup, a hash collision between lists can't return a wrong
+ * result.
+ * <p>
+ * When a commands list starts with one already simulated on the same board, the knight resumes from the cached final
+ * position and only the remaining commands are executed.
+ * <p>
+ * The cache is bounded both in entries and in weight, the number of stored commands. Eviction follows W-TinyLFU: new
+ * entries go to a small LRU window, and entries leaving the window only replace the least recently used entry of the
+ * main area if a frequency sketch says they have been requested more often.
+ * Caches are thread safe.
+ */
+public final class SimulationCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 4_000_000;
+
+    // longest cached prefixes looked up before simulating a commands list from the START command
+    private static final int MAX_PREFIX_PROBES = 8;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final int maximumSize;
+    private final long maximumWeight;
+    private final int windowSize;
+    private final long windowMaximumWeight;
+
+    private final LinkedHashMap<Key, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Key, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowWeight;
+    private long mainWeight;
+    // number of cached entries for each commands list length, where prefixes are looked for
+    private final TreeMap<Integer, Integer> lengths = new TreeMap<>();
+    private final FrequencySketch sketch;
+
+    private long hits;
+    private long prefixHits;
+    private long misses;
+    private long evictions;
+
+    // boards are hashed once for each instance, batch simulations run every list on the same one
+    private volatile BoardKey lastBoard;
+
+    /**
+     * @param hits simulations answered without executing any command
+     * @param prefixHits simulations resumed from the result of a shorter commands list
+     * @param misses simulations executed from the START command
+     * @param evictions results evicted, or not cached at all, because of the size and weight bounds
+     * @param size cached results
+     * @param weight commands kept by the cached results
+     */
+    public record Stats(long hits, long prefixHits, long misses, long evictions, int size, long weight) {
+    }
+
+    public SimulationCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_MAXIMUM_WEIGHT);
+    }
+
+    /**
+     * @param maximumSize maximum number of cached results
+     * @param maximumWeight maximum number of commands kept by the cached results
+     * @throws IllegalArgumentException if a bound is not positive
+     */
+    public SimulationCache(int maximumSize, long maximumWeight) {
+        if (maximumSize < 1 || maximumWeight < 1) {
+            throw new IllegalArgumentException("Cache bounds must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        // 1% of the cache is the admission window
+        this.windowSize = Math.max(1, maximumSize / 100);
+        this.windowMaximumWeight = Math.max(1, maximumWeight / 100);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Same as {@link Simulation#run(Board, List)}, reusing cached results
+     * @param board board where the knight is moving
+     * @param commands commands list, starting with the START command
+     * @return knight's final position or the error that stopped the simulation
+     */
+    public Response run(Board board, List<String> commands) {
+        if (board == null) return Simulation.run(null, commands);
+
+        var program = CommandCompiler.compile(commands);
+        var boardKey = boardKey(board);
+        var hashes = prefixHashes(program);
+        var key = new Key(boardKey.high(), boardKey.low(), hashes[program.size()]);
+
+        var entry = lookup(key, program, program.size());
+        if (entry != null) {
+            record(Metrics.RESULT_CACHE_HITS);
+            return entry.response();
+        }
+
+        Response response = null;
+        for (int length : candidatePrefixes(program.size())) {
+            var prefix = lookup(new Key(boardKey.high(), boardKey.low(), hashes[length]), program, length);
+            if (prefix == null) continue;
+
+            // an error in the prefix stops the longer list at the same command
+            response = prefix.status() == Status.SUCCESS.ordinal()
+                    ? program.resume(board, prefix.x(), prefix.y(), DIRECTIONS[prefix.direction()], length)
+                    : prefix.response();
+            record(Metrics.RESULT_CACHE_PREFIX_HITS);
+            break;
+        }
+        if (response == null) {
+            response = ParallelEvaluator.DEFAULT.execute(CommandOptimizer.optimize(program), board);
+            record(Metrics.RESULT_CACHE_MISSES);
+        }
+
+        if (program.size() > 0) put(key, program, response);
+        return response;
+    }
+
+    /**
+     * @return statistics since the cache was created
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, prefixHits, misses, evictions, window.size() + main.size(), windowWeight + mainWeight);
+    }
+
+    // Lookups
+
+    /**
+     * @param length number of commands of the program the entry should match
+     * @return the entry of the program's first commands, null if there is none
+     */
+    private Entry lookup(Key key, CommandProgram program, int length) {
+        Entry entry;
+        synchronized (this) {
+            sketch.increment(key.hash());
+            entry = window.get(key);
+            if (entry == null) entry = main.get(key);
+        }
+        // entries never change, their instructions are compared outside the lock
+        return entry != null && entry.length() == length && entry.startX() == program.startX() && entry.startY() == program.startY()
+                && program.startsWith(entry.code()) ? entry : null;
+    }
+
+    /**
+     * @return lengths of cached commands lists shorter than the given one, longest first
+     */
+    private synchronized int[] candidatePrefixes(int length) {
+        var candidates = new int[MAX_PREFIX_PROBES];
+        var size = 0;
+        for (int cached : lengths.headMap(length, false).descendingKeySet()) {
+            if (size == MAX_PREFIX_PROBES) break;
+            candidates[size++] = cached;
+        }
+        return Arrays.copyOf(candidates, size);
+    }
+
+    private synchronized void record(Counter counter) {
+        if (counter == Metrics.RESULT_CACHE_HITS) hits++;
+        else if (counter == Metrics.RESULT_CACHE_PREFIX_HITS) prefixHits++;
+        else misses++;
+        counter.increment();
+    }
+
+    // Eviction
+
+    private synchronized void put(Key key, CommandProgram program, Response response) {
+        if (window.containsKey(key) || main.containsKey(key)) return;
+
+        var entry = Entry.of(key, program, response);
+        if (entry.weight() > maximumWeight) {
+            evictions++;
+            return;
+        }
+        window.put(key, entry);
+        windowWeight += entry.weight();
+        lengths.merge(program.size(), 1, Integer::sum);
+
+        // entries leaving the window compete with the least recently used ones of the main area
+        while (window.size() > windowSize || windowWeight > windowMaximumWeight) {
+            var candidate = window.values().iterator().next();
+            window.remove(candidate.key());
+            windowWeight -= candidate.weight();
+            main.put(candidate.key(), candidate);
+            mainWeight += candidate.weight();
+            admit(candidate);
+        }
+    }
+
+    /**
+     * Makes room in the main area, evicting either its least recently used entries or the candidate
+     */
+    private void admit(Entry candidate) {
+        while (main.size() > maximumSize - windowSize || mainWeight > maximumWeight - windowMaximumWeight) {
+            var victim = main.values().iterator().next();
+            if (victim == candidate) {
+                evict(candidate);
+                return;
+            }
+            if (sketch.frequency(candidate.key().hash()) > sketch.frequency(victim.key().hash())) {
+                evict(victim);
+            } else {
+                evict(candidate);
+                return;
+            }
+        }
+    }
+
+    private void evict(Entry entry) {
+        main.remove(entry.key());
+        mainWeight -= entry.weight();
+        lengths.computeIfPresent(entry.length(), (length, count) -> count == 1 ? null : count - 1);
+        evictions++;
+    }
+
+    // Hashing
+
+    private BoardKey boardKey(Board board) {
+        var last = lastBoard;
+        if (last != null && last.board() == board) return last;
+
+        var high = 0x243F6A8885A308D3L;
+        var low = 0x13198A2E03707344L;
+        high = mix(high, board.width() == null ? Long.MIN_VALUE : board.width());
+        low = mix(low, board.height() == null ? Long.MIN_VALUE : board.height());
+        var identity = board.tilesIdentity();
+        if (identity != null) {
+            // reading the obstacles of a tiled board would fetch every tile
+            high = mix(high, ~identity.length());
+            for (int i = 0; i < identity.length(); i++) {
+                high = mix(high, identity.charAt(i));
+                low = mix(low, Long.rotateLeft(identity.charAt(i), 32) ^ high);
+            }
+        } else {
+            // read in place, mapped boards are not copied to the heap
+            var obstacles = board.obstacleBuffer();
+            for (int i = 0; i < obstacles.limit(); i++) {
+                var obstacle = obstacles.get(i);
+                high = mix(high, obstacle);
+                low = mix(low, Long.rotateLeft(obstacle, 32) ^ high);
+            }
+        }
+        last = new BoardKey(board, high, low);
+        lastBoard = last;
+        return last;
+    }
+
+    /**
+     * @return hash of each prefix of the program, the one at index i covers its first i commands
+     */
+    private static long[] prefixHashes(CommandProgram program) {
+        var hashes = new long[program.size() + 1];
+        var hash = mix(mix(0x452821E638D01377L, program.startX()), program.startY());
+        hashes[0] = hash;
+        for (int i = 0; i < program.size(); i++) {
+            hash = mix(hash, ((long) program.opcode(i) << 32) | (program.operand(i) & 0xFFFFFFFFL));
+            hashes[i + 1] = hash;
+        }
+        return hashes;
+    }
+
+    private static long mix(long hash, long value) {
+        // murmur3's finalizer over the running hash and the next value
+        var h = (hash ^ value) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private record BoardKey(Board board, long high, long low) {
+    }
+
+    private record Key(long boardHigh, long boardLow, long commands) {
+
+        long hash() {
+            return mix(mix(boardHigh, boardLow), commands);
+        }
+    }
+
+    /**
+     * Cached result, with the instructions it was simulated from
+     */
+    private record Entry(Key key, int[] code, int startX, int startY, int x, int y, int direction, int status) {
+
+        static Entry of(Key key, CommandProgram program, Response response) {
+            var position = response.position();
+            return new Entry(key, program.code(program.size()), program.startX(), program.startY(),
+                    position == null ? 0 : position.getCoordinates().x(),
+                    position == null ? 0 : position.getCoordinates().y(),
+                    position == null ? 0 : position.getDirection().ordinal(),
+                    response.status().ordinal());
+        }
+
+        int length() {
+            return code.length / CommandProgram.INSTRUCTION_SIZE;
+        }
+
+        long weight() {
+            return length() + 1L;
+        }
+
+        /**
+         * @return a new response, positions are mutable and can't be shared between callers
+         */
+        Response response() {
+            return status == Status.SUCCESS.ordinal()
+                    ? new Response(new KnightPosition(new Coordinates(x, y), DIRECTIONS[direction]), Status.SUCCESS)
+                    : new Response(null, STATUSES[status]);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.hangovers.simulation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.hangovers.metrics.ExecutionEvent;
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+import com.github.hangovers.trace.PathTrace;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Executes commands while the commands document is being read: every command is run on the knight as soon as it's
+ * tokenized, so memory doesn't grow with the number of commands and simulation overlaps with the download.
+ */
+public class StreamingSimulation {
+
+    private final JsonFactory jsonFactory;
+
+    /**
+     * @param jsonFactory factory used to create the token stream parser
+     */
+    public StreamingSimulation(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Reads a {"commands": [...]} document and executes its commands on the board.
+     * Reading stops at the first error, the rest of the document is not downloaded.
+     * @param board board where the knight is moving
+     * @param commandsJson commands document, same format as the commands api endpoint
+     * @return knight's final position or the error that stopped the simulation
+     * @throws IOException if the document can't be read or is not valid json
+     */
+    public Response run(Board board, InputStream commandsJson) throws IOException {
+        return run(board, commandsJson, null);
+    }
+
+    /**
+     * Same as {@link #run(Board, InputStream)}, reporting knight's path while it's walked
+     * @param trace receives a segment for each MOVE, null if the path is not traced
+     */
+    public Response run(Board board, InputStream commandsJson, PathTrace trace) throws IOException {
+        var event = new ExecutionEvent();
+        event.begin();
+        var start = System.nanoTime();
+        var simulation = new Simulation(board, trace);
+        var read = false;
+
+        // commands are parsed while they are executed, both are measured as execution time
+        try (JsonParser parser = jsonFactory.createParser(commandsJson)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                var token = parser.nextToken();
+                if (!field.equals("commands") || token == JsonToken.VALUE_NULL) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                expect(parser, token, JsonToken.START_ARRAY);
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (!token.isScalarValue()) {
+                        throw new JsonParseException(parser, "Commands must be strings");
+                    }
+                    if (!simulation.accept(parser.getText())) {
+                        read = true;
+                        return simulation.result();
+                    }
+                }
+            }
+            read = true;
+        } finally {
+            Metrics.EXECUTION.recordSince(start);
+            // documents that can't be read are reported as a GENERIC_ERROR
+            simulation.commit(event, read ? null : Status.GENERIC_ERROR);
+        }
+        return simulation.result();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
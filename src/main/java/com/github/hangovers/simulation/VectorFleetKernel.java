@@ -0,0 +1,62 @@
+package com.github.hangovers.simulation;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Bounds checks and position updates computed a whole vector of knights at a time, with lane masks instead of
+ * branches. Knights left over at the end of the range go through the scalar kernel.
+ */
+final class VectorFleetKernel implements FleetKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final FleetKernel tail = new ScalarFleetKernel();
+
+    @Override
+    public void move(FleetState fleet, int[] toObstacle, int from, int to, int steps, long[] tally) {
+        var width = IntVector.broadcast(SPECIES, fleet.width);
+        var height = IntVector.broadcast(SPECIES, fleet.height);
+        var noObstacle = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        var zero = IntVector.zero(SPECIES);
+
+        var i = from;
+        for (var bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            var status = IntVector.fromArray(SPECIES, fleet.status, i);
+            var running = status.eq(RUNNING);
+            if (!running.anyTrue()) continue;
+
+            var x = IntVector.fromArray(SPECIES, fleet.x, i);
+            var y = IntVector.fromArray(SPECIES, fleet.y, i);
+            var direction = IntVector.fromArray(SPECIES, fleet.direction, i);
+            var east = direction.eq(EAST);
+            var west = direction.eq(WEST);
+            var north = direction.eq(NORTH);
+            var south = direction.eq(SOUTH);
+
+            var toEdge = width.sub(x)
+                    .blend(x.add(1), west)
+                    .blend(height.sub(y), north)
+                    .blend(y.add(1), south);
+            var obstacle = toObstacle == null ? noObstacle : IntVector.fromArray(SPECIES, toObstacle, i);
+
+            VectorMask<Integer> blocked = obstacle.lt(toEdge).and(obstacle.compare(VectorOperators.LE, steps)).and(running);
+            VectorMask<Integer> out = blocked.not().and(toEdge.compare(VectorOperators.LE, steps)).and(running);
+            var walk = IntVector.broadcast(SPECIES, steps)
+                    .blend(obstacle.sub(1), blocked)
+                    .blend(toEdge.sub(1), out)
+                    .blend(zero, running.not());
+
+            x.add(walk, east).sub(walk, west).intoArray(fleet.x, i);
+            y.add(walk, north).sub(walk, south).intoArray(fleet.y, i);
+            status.blend(OUT_OF_THE_BOARD, out).intoArray(fleet.status, i);
+
+            tally[STEPS] += walk.reduceLanesToLong(VectorOperators.ADD);
+            tally[COLLISIONS] += blocked.trueCount();
+            tally[OUT_OF_BOARD] += out.trueCount();
+        }
+        tail.move(fleet, toObstacle, i, to, steps, tally);
+    }
+}
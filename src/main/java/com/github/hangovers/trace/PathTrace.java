@@ -0,0 +1,20 @@
+package com.github.hangovers.trace;
+
+import com.github.hangovers.model.Direction;
+
+/**
+ * Receives knight's path one straight segment at a time, a segment for each executed MOVE command.
+ * Segments are reported as soon as they are walked, so the path never needs to be kept in memory.
+ */
+@FunctionalInterface
+public interface PathTrace {
+
+    /**
+     * @param x horizontal position where the segment starts
+     * @param y vertical position where the segment starts
+     * @param direction direction the knight walked in
+     * @param length cells walked, 0 if the knight couldn't move at all
+     * @param reason why the knight stopped
+     */
+    void segment(int x, int y, Direction direction, int length, StopReason reason);
+}
@@ -0,0 +1,148 @@
+package com.github.hangovers.trace;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.hangovers.model.Direction;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads the binary traces written by {@link PathTraceWriter}, one segment at a time.
+ */
+public final class PathTraceReader implements Closeable {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final StopReason[] REASONS = StopReason.values();
+
+    private final InputStream input;
+    private int lastX;
+    private int lastY;
+
+    /**
+     * A straight piece of knight's path
+     * @param x horizontal position where the segment starts
+     * @param y vertical position where the segment starts
+     * @param direction direction the knight walked in
+     * @param length cells walked
+     * @param reason why the knight stopped
+     */
+    public record Segment(int x, int y, Direction direction, int length, StopReason reason) {
+
+        /**
+         * @return horizontal position where the knight stopped
+         */
+        public int endX() {
+            return switch (direction) {
+                case EAST -> x + length;
+                case WEST -> x - length;
+                default -> x;
+            };
+        }
+
+        /**
+         * @return vertical position where the knight stopped
+         */
+        public int endY() {
+            return switch (direction) {
+                case NORTH -> y + length;
+                case SOUTH -> y - length;
+                default -> y;
+            };
+        }
+    }
+
+    /**
+     * Reads and validates the header
+     * @param input binary trace, closed by {@link #close()}
+     * @throws IOException if the input is not a trace
+     */
+    public PathTraceReader(InputStream input) throws IOException {
+        this.input = new BufferedInputStream(input);
+        var magic = readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+        if (magic != PathTraceWriter.MAGIC) {
+            throw new IOException("Not a path trace");
+        }
+        var version = readByte();
+        if (version != PathTraceWriter.VERSION) {
+            throw new IOException("Unsupported path trace version " + version);
+        }
+    }
+
+    /**
+     * @return the next segment, null at the end of the trace
+     * @throws IOException if the trace can't be read or is truncated
+     */
+    public Segment next() throws IOException {
+        var tag = input.read();
+        if (tag < 0) return null;
+        if (tag >>> 2 >= REASONS.length) {
+            throw new IOException("Corrupted path trace");
+        }
+
+        // fields are read in the order they were written
+        var segment = new Segment(lastX + unzigzag(readVarint()), lastY + unzigzag(readVarint()),
+                DIRECTIONS[tag & 3], readVarint(), REASONS[tag >>> 2]);
+        lastX = segment.endX();
+        lastY = segment.endY();
+        return segment;
+    }
+
+    /**
+     * Converts a binary trace to json, {"segments": [{"x": 0, "y": 0, "direction": "NORTH", "length": 2, "stop": "COMPLETED"}, ...]}.
+     * Segments are streamed, memory doesn't depend on the length of the trace.
+     * @param input binary trace, closed when done
+     * @param output json trace, not closed
+     * @param factory factory used to create the json generator
+     * @throws IOException if the trace can't be read or the json can't be written
+     */
+    public static void exportJson(InputStream input, OutputStream output, JsonFactory factory) throws IOException {
+        try (var reader = new PathTraceReader(input);
+             JsonGenerator generator = factory.createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("segments");
+            Segment segment;
+            while ((segment = reader.next()) != null) {
+                generator.writeStartObject();
+                generator.writeNumberField("x", segment.x());
+                generator.writeNumberField("y", segment.y());
+                generator.writeStringField("direction", segment.direction().name());
+                generator.writeNumberField("length", segment.length());
+                generator.writeStringField("stop", segment.reason().name());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private int readByte() throws IOException {
+        var value = input.read();
+        if (value < 0) throw new EOFException("Truncated path trace");
+        return value;
+    }
+
+    private int readVarint() throws IOException {
+        var value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            var next = readByte();
+            value |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupted path trace");
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.hangovers.trace;
+
+import com.github.hangovers.model.Direction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes path segments in a compact binary format, through a fixed size buffer.
+ * The format is a header (magic "KPTR" and version byte) followed by a record for each segment:
+ * <ul>
+ *     <li>a tag byte, direction ordinal in the low 2 bits and stop reason ordinal in the next 2</li>
+ *     <li>start cell as the difference from the end of the previous segment (0,0 for the first one), two zigzag
+ *     varints: consecutive MOVEs start where the previous one ended, so this is usually two zero bytes</li>
+ *     <li>length as a varint</li>
+ * </ul>
+ * Most segments take 4 or 5 bytes. The trace ends with the stream, see {@link PathTraceReader}.
+ */
+public final class PathTraceWriter implements PathTrace, Closeable {
+
+    static final int MAGIC = 0x4B505452;
+    static final int VERSION = 1;
+
+    // longest record: tag byte, two zigzag ints and an int, each up to 5 bytes
+    private static final int MAX_RECORD_SIZE = 16;
+
+    private final OutputStream output;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int lastX;
+    private int lastY;
+
+    /**
+     * Writes the header to the buffer, nothing gets to the output until the buffer is full or flushed
+     * @param output stream receiving the trace, closed by {@link #close()}
+     */
+    public PathTraceWriter(OutputStream output) {
+        this.output = output;
+        buffer[position++] = (byte) (MAGIC >>> 24);
+        buffer[position++] = (byte) (MAGIC >>> 16);
+        buffer[position++] = (byte) (MAGIC >>> 8);
+        buffer[position++] = (byte) MAGIC;
+        buffer[position++] = VERSION;
+    }
+
+    /**
+     * @throws UncheckedIOException if the buffer can't be written to the output
+     */
+    @Override
+    public void segment(int x, int y, Direction direction, int length, StopReason reason) {
+        if (position > buffer.length - MAX_RECORD_SIZE) {
+            try {
+                drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        buffer[position++] = (byte) (direction.ordinal() | reason.ordinal() << 2);
+        writeVarint(zigzag(x - lastX));
+        writeVarint(zigzag(y - lastY));
+        writeVarint(length);
+
+        // where the next segment is expected to start
+        switch (direction) {
+            case NORTH -> { lastX = x; lastY = y + length; }
+            case EAST -> { lastX = x + length; lastY = y; }
+            case SOUTH -> { lastX = x; lastY = y - length; }
+            case WEST -> { lastX = x - length; lastY = y; }
+        }
+    }
+
+    /**
+     * Writes the buffered segments to the output and flushes it
+     * @throws IOException if the output can't be written
+     */
+    public void flush() throws IOException {
+        drain();
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (output) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        output.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+}
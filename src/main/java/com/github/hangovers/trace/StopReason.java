@@ -0,0 +1,13 @@
+package com.github.hangovers.trace;
+
+/**
+ * Why the knight stopped at the end of a path segment
+ */
+public enum StopReason {
+    // all the requested steps were walked
+    COMPLETED,
+    // the next cell is an obstacle
+    OBSTACLE,
+    // the next cell is out of the board, the simulation ends
+    OUT_OF_THE_BOARD
+}
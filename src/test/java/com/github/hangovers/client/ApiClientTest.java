@@ -1,21 +1,36 @@
 package com.github.hangovers.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hangovers.metrics.Metrics;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class ApiClientTest {
 
+    @TempDir
+    Path directory;
+
     private MockWebServer mockWebServer;
     private ApiClient apiClient;
     private ObjectMapper objectMapper;
@@ -126,4 +141,185 @@ class ApiClientTest {
         IOException exception = assertThrows(IOException.class, () -> apiClient.fetch(url));
         assertEquals("Fetch failed", exception.getMessage());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void fetchStream_validCommandsUrlReturns200() throws Exception {
+        String expectedBody = loadResourceFile("expected_commands_response.json");
+        String url = getMockUrl(COMMANDS_API_PATH);
+
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Type", "application/json")
+                .setBody(expectedBody));
+
+        try (InputStream body = apiClient.fetchStream(url)) {
+            assertEquals(expectedBody, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void fetchStream_non200Status() {
+        String url = getMockUrl("/some/error/path");
+
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(500)
+                .setBody("Internal Server Error"));
+
+        IOException exception = assertThrows(IOException.class, () -> apiClient.fetchStream(url));
+        assertEquals("Fetch failed", exception.getMessage());
+    }
+
+    @Test
+    void fetchAsync_retriesServerErrors() throws Exception {
+        String url = getMockUrl(BOARD_API_PATH);
+        var retryingClient = new ApiClient(new FetchPolicy(3, Duration.ofMillis(10), 0, Duration.ofSeconds(1)));
+
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(502));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+
+        assertEquals("{}", retryingClient.fetchAsync(url).get());
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void fetchAsync_stopsAfterMaxAttempts() {
+        String url = getMockUrl(BOARD_API_PATH);
+        var retryingClient = new ApiClient(new FetchPolicy(2, Duration.ofMillis(10), 0, Duration.ofSeconds(1)));
+
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+
+        var exception = assertThrows(ExecutionException.class, () -> retryingClient.fetchAsync(url).get());
+        assertEquals("Fetch failed", ApiClient.unwrap(exception).getMessage());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void fetchAsync_doesNotRetryClientErrors() {
+        String url = getMockUrl(BOARD_API_PATH);
+
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+
+        assertThrows(ExecutionException.class, () -> apiClient.fetchAsync(url).get());
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void fetchAsync_hedgedRequestWinsOverSlowOne() throws Exception {
+        String url = getMockUrl(BOARD_API_PATH);
+        var hedgingClient = new ApiClient(new FetchPolicy(1, Duration.ofMillis(10), 0.95, Duration.ofMillis(100)));
+
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("slow").setHeadersDelay(5, TimeUnit.SECONDS));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("fast"));
+
+        assertEquals("fast", hedgingClient.fetchAsync(url).get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fetchStreamAsync_validCommandsUrlReturns200() throws Exception {
+        String expectedBody = loadResourceFile("expected_commands_response.json");
+        String url = getMockUrl(COMMANDS_API_PATH);
+
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(expectedBody));
+
+        try (InputStream body = apiClient.fetchStreamAsync(url).get()) {
+            assertEquals(expectedBody, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void fetch_gzipBodyIsDecoded() throws Exception {
+        String expectedBody = loadResourceFile("expected_board_response.json");
+        byte[] compressed = gzip(expectedBody);
+        var received = Metrics.RECEIVED_BYTES.get();
+        var decoded = Metrics.DECODED_BYTES.get();
+
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(new Buffer().write(compressed)));
+
+        assertEquals(expectedBody, apiClient.fetch(getMockUrl(BOARD_API_PATH)));
+        assertEquals("gzip, deflate", mockWebServer.takeRequest().getHeader("Accept-Encoding"));
+        assertEquals(received + compressed.length, Metrics.RECEIVED_BYTES.get());
+        assertEquals(decoded + expectedBody.getBytes(StandardCharsets.UTF_8).length, Metrics.DECODED_BYTES.get());
+    }
+
+    @Test
+    void fetchStream_deflateBodiesAreDecodedWhileRead() throws Exception {
+        String expectedBody = loadResourceFile("expected_commands_response.json");
+        String url = getMockUrl(COMMANDS_API_PATH);
+
+        // zlib wrapped, as the standard says, and raw deflate, as some servers send it
+        for (boolean raw : new boolean[]{false, true}) {
+            mockWebServer.enqueue(new MockResponse()
+                    .setResponseCode(200)
+                    .setHeader("Content-Encoding", "deflate")
+                    .setBody(new Buffer().write(deflate(expectedBody, raw))));
+
+            try (InputStream body = apiClient.fetchStreamAsync(url).get()) {
+                assertEquals(expectedBody, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void fetch_unsupportedOrCorruptEncoding() throws Exception {
+        String url = getMockUrl(BOARD_API_PATH);
+
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Encoding", "br")
+                .setBody("{}"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Encoding", "gzip")
+                .setBody("{\"width\":5}"));
+
+        IOException exception = assertThrows(IOException.class, () -> apiClient.fetch(url));
+        assertEquals("Unsupported content encoding: br", exception.getMessage());
+        try (InputStream body = apiClient.fetchStream(url)) {
+            assertThrows(IOException.class, body::readAllBytes);
+        }
+    }
+
+    @Test
+    void fetch_localFiles() throws Exception {
+        String expectedBody = loadResourceFile("expected_commands_response.json");
+        Path plain = Files.writeString(directory.resolve("commands.json"), expectedBody);
+        Path compressed = Files.write(directory.resolve("commands.json.gz"), gzip(expectedBody));
+
+        assertEquals(expectedBody, apiClient.fetch(plain.toUri().toString()));
+        assertEquals(expectedBody, apiClient.fetchAsync(compressed.toUri().toString()).get());
+        try (InputStream body = apiClient.fetchStream(compressed.toUri().toString())) {
+            assertEquals(expectedBody, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream body = apiClient.fetchIfModifiedAsync(compressed.toUri().toString(), null, null).get().open()) {
+            assertEquals(expectedBody, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        String missing = directory.resolve("missing.json.gz").toUri().toString();
+        assertThrows(IOException.class, () -> apiClient.fetch(missing));
+        var error = assertThrows(ExecutionException.class, () -> apiClient.fetchStreamAsync(missing).get());
+        assertInstanceOf(IOException.class, error.getCause());
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        var output = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(output)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] deflate(String text, boolean raw) throws IOException {
+        var output = new ByteArrayOutputStream();
+        try (var deflate = new DeflaterOutputStream(output, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            deflate.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,214 @@
+package com.github.hangovers.client;
+
+import com.github.hangovers.codec.JsonCodec;
+import com.github.hangovers.model.Board;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardCacheTest {
+
+    private static final String BOARD_JSON = "{\"width\":8,\"height\":8,\"obstacles\":[{\"x\":2,\"y\":2}]}";
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    private MockWebServer mockWebServer;
+    private ApiClient apiClient;
+    private JsonCodec codec;
+    private MutableClock clock;
+
+    @TempDir
+    Path cacheDirectory;
+
+    /**
+     * Clock moved forward by the tests
+     */
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        apiClient = new ApiClient();
+        codec = new JsonCodec();
+        clock = new MutableClock();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    private String boardUrl() {
+        return mockWebServer.url("/board.json").toString();
+    }
+
+    private MockResponse boardResponse() {
+        return new MockResponse()
+                .setResponseCode(200)
+                .setHeader("ETag", "\"v1\"")
+                .setHeader("Last-Modified", "Wed, 01 Jan 2025 00:00:00 GMT")
+                .setBody(BOARD_JSON);
+    }
+
+    @Test
+    void get_freshBoardIsNotFetchedAgain() throws Exception {
+        mockWebServer.enqueue(boardResponse());
+        var cache = new BoardCache(apiClient, codec, 4, TTL, null, clock);
+
+        Board first = cache.get(boardUrl());
+        clock.advance(Duration.ofSeconds(30));
+        Board second = cache.get(boardUrl());
+
+        assertSame(first, second);
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void get_staleBoardIsRevalidated() throws Exception {
+        mockWebServer.enqueue(boardResponse());
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+        var cache = new BoardCache(apiClient, codec, 4, TTL, null, clock);
+
+        Board first = cache.get(boardUrl());
+        clock.advance(TTL);
+        Board second = cache.get(boardUrl());
+
+        assertSame(first, second, "Not modified board should not be parsed again");
+        mockWebServer.takeRequest();
+        var revalidation = mockWebServer.takeRequest();
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+        assertEquals("Wed, 01 Jan 2025 00:00:00 GMT", revalidation.getHeader("If-Modified-Since"));
+    }
+
+    @Test
+    void get_notModifiedResponseRefreshesValidators() throws Exception {
+        mockWebServer.enqueue(boardResponse());
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v2\""));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+        var cache = new BoardCache(apiClient, codec, 4, TTL, null, clock);
+
+        cache.get(boardUrl());
+        clock.advance(TTL);
+        cache.get(boardUrl());
+        clock.advance(TTL);
+        cache.get(boardUrl());
+
+        mockWebServer.takeRequest();
+        mockWebServer.takeRequest();
+        var revalidation = mockWebServer.takeRequest();
+        assertEquals("\"v2\"", revalidation.getHeader("If-None-Match"));
+        assertEquals("Wed, 01 Jan 2025 00:00:00 GMT", revalidation.getHeader("If-Modified-Since"));
+    }
+
+    @Test
+    void get_persistedBoardSkipsDownload() throws Exception {
+        mockWebServer.enqueue(boardResponse());
+        new BoardCache(apiClient, codec, 4, TTL, cacheDirectory, clock).get(boardUrl());
+
+        var newProcessCache = new BoardCache(apiClient, codec, 4, TTL, cacheDirectory, clock);
+        Board board = newProcessCache.get(boardUrl());
+
+        assertEquals(8, board.width());
+        assertEquals(1, board.obstacleCount());
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void get_compressedBoardIsPersistedAsReceived() throws Exception {
+        var output = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(output)) {
+            gzip.write(BOARD_JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        mockWebServer.enqueue(boardResponse().setHeader("Content-Encoding", "gzip").setBody(new Buffer().write(output.toByteArray())));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+        var cache = new BoardCache(apiClient, codec, 4, TTL, cacheDirectory, clock);
+        cache.get(boardUrl());
+        clock.advance(TTL);
+        cache.get(boardUrl());
+
+        try (var files = Files.list(cacheDirectory)) {
+            var body = files.filter(file -> file.toString().endsWith(".json")).findFirst().orElseThrow();
+            assertArrayEquals(output.toByteArray(), Files.readAllBytes(body));
+        }
+        // the encoding is still known after the validators were refreshed
+        Board board = new BoardCache(apiClient, codec, 4, TTL, cacheDirectory, clock).get(boardUrl());
+        assertEquals(1, board.obstacleCount());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void get_concurrentRequestsShareOneFetch() throws Exception {
+        mockWebServer.enqueue(boardResponse().setBodyDelay(300, TimeUnit.MILLISECONDS));
+        var cache = new BoardCache(apiClient, codec, 4, TTL, null, clock);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Board>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> cache.get(boardUrl())));
+            }
+            for (Future<Board> future : futures) {
+                assertEquals(8, future.get().width());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void get_failedFetchIsNotCached() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+        mockWebServer.enqueue(boardResponse());
+        var cache = new BoardCache(apiClient, codec, 4, TTL, null, clock);
+
+        assertThrows(IOException.class, () -> cache.get(boardUrl()));
+        assertEquals(8, cache.get(boardUrl()).width());
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.hangovers.client;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.TiledBoardFile;
+import com.github.hangovers.simulation.Simulation;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeTileSourceTest {
+
+    private static final String[] DIRECTIONS = {"NORTH", "EAST", "SOUTH", "WEST"};
+
+    @TempDir
+    Path directory;
+
+    private MockWebServer mockWebServer;
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+    private volatile byte[] file;
+    private volatile boolean rangesSupported = true;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        // serves the tiled board written by open(), like a static file server would
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                var range = request.getHeader("Range");
+                ranges.add(range);
+                if (range == null || !rangesSupported) {
+                    return new MockResponse().setResponseCode(200).setBody(new Buffer().write(file));
+                }
+                var bounds = range.substring("bytes=".length()).split("-");
+                var from = Integer.parseInt(bounds[0]);
+                var to = Math.min(Integer.parseInt(bounds[1]), file.length - 1);
+                return new MockResponse().setResponseCode(206)
+                        .setHeader("Content-Range", "bytes " + from + "-" + to + "/" + file.length)
+                        .setBody(new Buffer().write(Arrays.copyOfRange(file, from, to + 1)));
+            }
+        });
+        mockWebServer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    void simulationsMatchInMemoryBoard() throws Exception {
+        var random = new Random(7);
+        var obstacles = new HashSet<Coordinates>();
+        for (int i = 0; i < 2000; i++) {
+            obstacles.add(new Coordinates(random.nextInt(1000), random.nextInt(1000)));
+        }
+        Board board = new Board(1000, 1000, obstacles);
+        Board tiled = open(board, 50, 8);
+
+        for (int i = 0; i < 200; i++) {
+            var commands = new ArrayList<String>();
+            commands.add("START " + random.nextInt(1000) + "," + random.nextInt(1000) + "," + DIRECTIONS[random.nextInt(4)]);
+            for (int j = 0; j < 20; j++) {
+                commands.add(random.nextBoolean() ? "MOVE " + random.nextInt(300) : "ROTATE " + DIRECTIONS[random.nextInt(4)]);
+            }
+            var expected = Simulation.run(board, commands);
+            var actual = Simulation.run(tiled, commands);
+            assertEquals(expected.status(), actual.status(), commands::toString);
+            if (expected.position() != null) {
+                assertEquals(expected.position().getCoordinates(), actual.position().getCoordinates(), commands::toString);
+                assertEquals(expected.position().getDirection(), actual.position().getDirection(), commands::toString);
+            }
+        }
+        assertEquals(board.obstacleBuffer(), tiled.obstacleBuffer());
+    }
+
+    @Test
+    void onlyTilesInFrontOfTheKnightAreFetched() throws Exception {
+        Board board = new Board(10_000, 10_000, Set.of(new Coordinates(50, 50), new Coordinates(150, 50),
+                new Coordinates(250, 50), new Coordinates(5_000, 5_000)));
+        Board tiled = open(board, 100, 16);
+
+        var response = Simulation.run(tiled, List.of("START 0,0,EAST", "MOVE 120"));
+        assertEquals(120, response.position().getCoordinates().x());
+
+        // header, first index block, then the knight's tile, the next one and the one after it, prefetched
+        var data = TiledBoardFile.HEADER_SIZE + 10_001L * Long.BYTES;
+        awaitRequests(5);
+        assertEquals(Set.of("bytes=0-39", "bytes=40-" + (40 + 513 * Long.BYTES - 1),
+                "bytes=" + data + "-" + (data + 3), "bytes=" + (data + 4) + "-" + (data + 7),
+                "bytes=" + (data + 8) + "-" + (data + 11)), new HashSet<>(ranges));
+        assertEquals(5, ranges.size());
+    }
+
+    @Test
+    void emptyTilesAreNotFetched() throws Exception {
+        Board tiled = open(new Board(1000, 1000, Set.of()), 100, 16);
+
+        assertEquals(Integer.MAX_VALUE, tiled.distanceToObstacle(new Coordinates(0, 0), Direction.NORTH));
+        // header and first index block
+        assertEquals(2, ranges.size());
+    }
+
+    @Test
+    void boardsFromTheSameUrlAreEqualWithoutFetchingTiles() throws Exception {
+        Board board = new Board(1000, 1000, Set.of(new Coordinates(10, 20)));
+        Board tiled = open(board, 100, 16);
+        Board reopened = RangeTileSource.open(new ApiClient(), mockWebServer.url("/board.tiles").toString(), 16).get();
+        Board elsewhere = RangeTileSource.open(new ApiClient(), mockWebServer.url("/copy.tiles").toString(), 16).get();
+
+        assertEquals(tiled, reopened);
+        assertEquals(tiled.hashCode(), reopened.hashCode());
+        assertNotEquals(tiled, elsewhere);
+        assertNotEquals(board, tiled);
+        // headers only
+        assertEquals(3, ranges.size());
+    }
+
+    @Test
+    void serverIgnoringRangesStillWorks() throws Exception {
+        rangesSupported = false;
+        Board board = new Board(300, 300, Set.of(new Coordinates(10, 20), new Coordinates(299, 299)));
+        Board tiled = open(board, 64, 4);
+
+        assertEquals(board.obstacleBuffer(), tiled.obstacleBuffer());
+        assertTrue(tiled.checkCollision(new Coordinates(299, 299)));
+    }
+
+    @Test
+    void invalidFileFailsOpening() throws Exception {
+        file = "{\"width\":8,\"height\":8,\"obstacles\":[]} padded to the header size".getBytes();
+
+        var opened = RangeTileSource.open(new ApiClient(), mockWebServer.url("/board.tiles").toString(), 16);
+        var exception = assertThrows(ExecutionException.class, opened::get);
+        assertInstanceOf(IOException.class, ApiClient.unwrap(exception));
+    }
+
+    private Board open(Board board, int tileSize, int cachedTiles) throws Exception {
+        var path = directory.resolve("board.tiles");
+        TiledBoardFile.write(board, tileSize, path);
+        file = Files.readAllBytes(path);
+        return RangeTileSource.open(new ApiClient(), mockWebServer.url("/board.tiles").toString(), cachedTiles).get();
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && ranges.size() < count; i++) {
+            Thread.sleep(20);
+        }
+        // a few more milliseconds for unexpected ones
+        Thread.sleep(100);
+    }
+}
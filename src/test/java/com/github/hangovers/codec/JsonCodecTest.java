@@ -0,0 +1,107 @@
+package com.github.hangovers.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.KnightPosition;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonCodec codec = new JsonCodec();
+
+    @ParameterizedTest
+    @EnumSource(Direction.class)
+    void writeSuccessResponseLikeObjectMapper(Direction direction) throws IOException {
+        Response response = new Response(new KnightPosition(new Coordinates(-3, 2_000_000_000), direction), Status.SUCCESS);
+
+        assertEquals(objectMapper.writeValueAsString(response), codec.writeResponse(response));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Status.class)
+    void writeErrorResponseLikeObjectMapper(Status status) throws IOException {
+        Response response = new Response(null, status);
+
+        assertEquals(objectMapper.writeValueAsString(response), codec.writeResponse(response));
+    }
+
+    @Test
+    void writeIncompleteResponseLikeObjectMapper() throws IOException {
+        Response response = new Response(new KnightPosition(null, null), null);
+
+        assertEquals(objectMapper.writeValueAsString(response), codec.writeResponse(response));
+    }
+
+    @Test
+    void readBoardLikeObjectMapper() throws IOException {
+        String json;
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("expected_board_response.json")) {
+            json = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        Board board = codec.readBoard(json);
+
+        assertEquals(objectMapper.readValue(json, Board.class), board);
+        assertEquals(20, board.obstacleCount());
+        assertEquals(board, codec.readBoard(source(json)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"width\": \"8\", \"height\": 8.0, \"obstacles\": [{\"x\": \"1\", \"y\": 2}]}",
+            "{\"width\": 8, \"height\": 8, \"obstacles\": [{\"x\": null, \"y\": 1.9}]}",
+            "{\"width\": null, \"height\": 8, \"obstacles\": null}",
+            "{\"obstacles\": [{\"y\": 2}, {}], \"width\": 8}",
+            "{\"width\": 8, \"height\": 8}   trailing"
+    })
+    void unusualBoardsFallBackToObjectMapper(String json) throws IOException {
+        assertEquals(objectMapper.readValue(json, Board.class), codec.readBoard(json));
+        assertEquals(objectMapper.readValue(json, Board.class), codec.readBoard(source(json)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"width\": 8, \"height\": 8, \"color\": \"black\"}",
+            "{\"width\": 8, \"height\": 8, \"obstacles\": [{\"x\": 1, \"z\": 2}]}",
+            "{\"width\": 8, \"height\": 8, \"obstacles\": [1, 2]}",
+            "{\"width\": 8, \"height\": 8, \"obstacles\": [{\"x\": \"abc\", \"y\": 2}]}",
+            "{\"width\": 8, \"height\": 8, \"obstacles\": [{\"x\": true, \"y\": 2}]}",
+            "{\"width\": 80000000000, \"height\": 8}",
+            "{\"width\": 8, ",
+            ""
+    })
+    void invalidBoardsFailLikeObjectMapper(String json) {
+        assertThrows(IOException.class, () -> objectMapper.readValue(json, Board.class));
+        assertThrows(IOException.class, () -> codec.readBoard(json));
+        assertThrows(IOException.class, () -> codec.readBoard(source(json)));
+    }
+
+    @Test
+    void jacksonOnlyCodec() throws IOException {
+        JsonCodec jacksonCodec = new JsonCodec(false);
+        Response response = new Response(new KnightPosition(new Coordinates(1, 2), Direction.WEST), Status.SUCCESS);
+
+        assertEquals(codec.writeResponse(response), jacksonCodec.writeResponse(response));
+        assertEquals(codec.readBoard("{\"width\":8,\"height\":8,\"obstacles\":[{\"x\":2,\"y\":2}]}"),
+                jacksonCodec.readBoard("{\"width\":8,\"height\":8,\"obstacles\":[{\"x\":2,\"y\":2}]}"));
+    }
+
+    private static JsonCodec.Source source(String json) {
+        return () -> new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
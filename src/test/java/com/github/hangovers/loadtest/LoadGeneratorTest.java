@@ -0,0 +1,109 @@
+package com.github.hangovers.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hangovers.client.ApiClient;
+import com.github.hangovers.codec.JsonCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    private static LoadTestConfig config(double rate, Duration latency) {
+        return new LoadTestConfig(50, 0.05, 20, 2, latency, Duration.ZERO, rate, 4, Duration.ZERO,
+                Duration.ofMillis(500), 7);
+    }
+
+    @Test
+    void configOverridesDefaults() {
+        var config = LoadTestConfig.parse("rate=250", "latencyMs=20", "durationSeconds=60", "density=0.2");
+
+        assertEquals(250, config.rate());
+        assertEquals(Duration.ofMillis(20), config.latency());
+        assertEquals(Duration.ofSeconds(60), config.duration());
+        assertEquals(0.2, config.density());
+        assertEquals(LoadTestConfig.DEFAULT.size(), config.size());
+        assertThrows(IllegalArgumentException.class, () -> LoadTestConfig.parse("speed=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestConfig.parse("rate"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestConfig.parse("rate=fast"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestConfig.parse("density=1"));
+    }
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        var recorder = new LatencyRecorder();
+        for (int i = 1; i <= 1000; i++) {
+            recorder.record(i * 1_000_000L);
+        }
+
+        assertEquals(1000, recorder.count());
+        assertEquals(500_500_000, recorder.mean());
+        assertEquals(1_000_000_000, recorder.max());
+        assertBetween(500_000_000, 500_000_000 * 1.04, recorder.percentile(0.5));
+        assertBetween(990_000_000, 990_000_000 * 1.04, recorder.percentile(0.99));
+        assertBetween(999_000_000, 1_000_000_000, recorder.percentile(0.999));
+
+        // exact below 64 microseconds
+        var small = new LatencyRecorder();
+        small.record(10_000);
+        small.record(20_000);
+        assertEquals(10_000, small.percentile(0.5));
+        assertEquals(20_000, small.percentile(1));
+        assertEquals(0, new LatencyRecorder().percentile(0.5));
+    }
+
+    @Test
+    void closedLoopReport() throws Exception {
+        var report = new LoadGenerator(config(0, Duration.ZERO), new ApiClient(), new JsonCodec()).run();
+
+        assertTrue(report.requests() > 0);
+        assertEquals(0, report.errors());
+        assertEquals(report.requests(), Arrays.stream(report.statuses()).sum());
+        assertTrue(report.p50() <= report.p99() && report.p99() <= report.p999() && report.p999() <= report.max());
+        assertTrue(report.throughput() > 0);
+
+        var output = new ByteArrayOutputStream();
+        report.writeJson(output, new JsonCodec().factory());
+        var json = new ObjectMapper().readTree(output.toByteArray());
+        assertEquals(report.requests(), json.get("requests").asLong());
+        assertTrue(json.get("latencyMs").has("p999"));
+        assertTrue(json.get("gc").has("maxPauseMs"));
+        assertTrue(json.get("allocation").has("bytesPerSecond"));
+        assertEquals(0.05, json.get("config").get("density").asDouble());
+    }
+
+    @Test
+    void openLoopMeasuresFromScheduledStart() throws Exception {
+        var report = new LoadGenerator(config(40, Duration.ofMillis(30)), new ApiClient(), new JsonCodec()).run();
+
+        // 40 per second for half a second
+        assertBetween(18, 22, report.requests());
+        assertEquals(0, report.errors());
+        // every simulation waits for the stand-in latency
+        assertTrue(report.p50() >= Duration.ofMillis(30).toNanos());
+    }
+
+    @Test
+    void standInServerServesGeneratedDocuments() throws Exception {
+        try (var server = new StandInServer(config(0, Duration.ofMillis(50)))) {
+            var client = new ApiClient();
+            var start = System.nanoTime();
+            var board = new JsonCodec().readBoard(client.fetch(server.boardUrl(3)));
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(50).toNanos());
+
+            assertEquals(50, board.width());
+            assertTrue(board.obstacleCount() > 0);
+            assertTrue(client.fetch(server.commandsUrl(0)).startsWith("{\"commands\":[\"START "));
+            assertThrows(IOException.class, () -> client.fetch(server.boardUrl(0).replace("0.json", "9.json")));
+        }
+    }
+
+    private static void assertBetween(double low, double high, long actual) {
+        assertTrue(actual >= low && actual <= high, () -> actual + " not in [" + low + ", " + high + "]");
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.hangovers.metrics;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.simulation.Simulation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void histogramBuckets() {
+        Histogram histogram = new Histogram("test_seconds", "Test latencies");
+        for (int i = 0; i < 98; i++) {
+            histogram.record(500);
+        }
+        histogram.record(3_000_000);
+        histogram.record(100_000_000_000L);
+
+        assertEquals(100, histogram.count());
+        assertEquals(98 * 500 + 3_000_000 + 100_000_000_000L, histogram.sum());
+        assertEquals(1_000, histogram.percentile(0.5));
+        assertEquals(4_096_000, histogram.percentile(0.99));
+        assertEquals(Long.MAX_VALUE, histogram.percentile(1));
+    }
+
+    @Test
+    void prometheusHistogramIsCumulative() {
+        Histogram histogram = new Histogram("test_seconds", "Test latencies");
+        histogram.record(500);
+        histogram.record(3_000_000);
+
+        var output = new StringBuilder();
+        histogram.writePrometheus(output);
+        var text = output.toString();
+
+        assertTrue(text.contains("# TYPE test_seconds histogram\n"));
+        assertTrue(text.contains("test_seconds_bucket{le=\"1.0E-6\"} 1\n"));
+        assertTrue(text.contains("test_seconds_bucket{le=\"0.004096\"} 2\n"));
+        assertTrue(text.contains("test_seconds_bucket{le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("test_seconds_count 2\n"));
+    }
+
+    @Test
+    void simulationCounters() {
+        Board board = new Board(8, 8, Set.of(new Coordinates(0, 5)));
+        var steps = Metrics.STEPS.get();
+        var collisions = Metrics.COLLISIONS.get();
+        var outOfTheBoard = Metrics.OUT_OF_THE_BOARD.get();
+        var executions = Metrics.EXECUTION.count();
+
+        Simulation.run(board, List.of("START 0,0,NORTH", "MOVE 10", "ROTATE EAST", "MOVE 10"));
+
+        // 4 cells north up to the obstacle, 7 cells east up to the edge
+        assertEquals(steps + 11, Metrics.STEPS.get());
+        assertEquals(collisions + 1, Metrics.COLLISIONS.get());
+        assertEquals(outOfTheBoard + 1, Metrics.OUT_OF_THE_BOARD.get());
+        assertEquals(executions + 1, Metrics.EXECUTION.count());
+    }
+
+    @Test
+    void writePrometheusFile() throws IOException {
+        Path path = directory.resolve("metrics.prom");
+
+        Metrics.writePrometheus(path);
+
+        var text = Files.readString(path);
+        assertTrue(text.contains("# TYPE knightspath_fetch_seconds histogram\n"));
+        assertTrue(text.contains("# TYPE knightspath_steps_total counter\n"));
+        assertTrue(text.contains("knightspath_board_cache_hits_total "));
+    }
+}
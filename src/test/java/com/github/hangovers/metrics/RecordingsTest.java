@@ -0,0 +1,85 @@
+package com.github.hangovers.metrics;
+
+import com.github.hangovers.client.ApiClient;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.simulation.Simulation;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordingsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void eventsAreRecordedWithShippedSettings() throws Exception {
+        var body = "{\"width\":8,\"height\":8,\"obstacles\":[]}";
+        var server = new MockWebServer();
+        server.start();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(body));
+        var url = server.url("/board.json").toString();
+        Board board = new Board(8, 8, Set.of(new Coordinates(0, 5)));
+
+        List<RecordedEvent> events;
+        try (var recording = new Recording(Recordings.configuration())) {
+            recording.start();
+            new ApiClient().fetch(url);
+            Simulation.run(board, List.of("START 0,0,NORTH", "MOVE 10", "ROTATE EAST", "MOVE 10"));
+            recording.stop();
+            events = read(recording);
+        } finally {
+            server.shutdown();
+        }
+
+        var fetch = single(events, "com.github.hangovers.Fetch");
+        assertEquals(url, fetch.getString("url"));
+        assertEquals(200, fetch.getInt("status"));
+        assertEquals(body.length(), fetch.getLong("bytes"));
+
+        // 4 cells north up to the obstacle, 7 cells east up to the edge
+        var execution = single(events, "com.github.hangovers.Execution");
+        assertEquals(4, execution.getLong("commands"));
+        assertEquals(11, execution.getLong("steps"));
+        assertEquals(1, execution.getLong("collisions"));
+        assertEquals("OUT_OF_THE_BOARD", execution.getString("status"));
+    }
+
+    @Test
+    void eventsAreDisabledByDefault() throws Exception {
+        List<RecordedEvent> events;
+        try (var recording = new Recording(Configuration.getConfiguration("default"))) {
+            recording.start();
+            Simulation.run(new Board(4, 4, Set.of()), List.of("START 0,0,NORTH", "MOVE 1"));
+            recording.stop();
+            events = read(recording);
+        }
+
+        assertTrue(events.stream().noneMatch(event -> event.getEventType().getName().startsWith("com.github.hangovers.")));
+    }
+
+    private List<RecordedEvent> read(Recording recording) throws IOException {
+        var file = directory.resolve("recording.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        var matching = events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
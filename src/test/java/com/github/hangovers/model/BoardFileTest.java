@@ -0,0 +1,80 @@
+package com.github.hangovers.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void denseBoardRoundTripWithGrid() throws IOException {
+        Board board = new Board(8, 8, Set.of(new Coordinates(2, 2), new Coordinates(5, 1), new Coordinates(2, 6)));
+        Path path = directory.resolve("board.bin");
+
+        BoardFile.write(board, path);
+        Board mapped = BoardFile.map(path);
+
+        assertEquals(board, mapped);
+        assertTrue(mapped.checkCollision(new Coordinates(5, 1)));
+        assertFalse(mapped.checkCollision(new Coordinates(1, 5)));
+        assertEquals(4, mapped.distanceToObstacle(new Coordinates(2, 2), Direction.NORTH));
+        assertEquals(3, mapped.distanceToObstacle(new Coordinates(5, 4), Direction.SOUTH));
+    }
+
+    @Test
+    void sparseBoardRoundTripWithoutGrid() throws IOException {
+        Board board = new Board(1_000_000, 1_000_000, Set.of(new Coordinates(999_999, 0), new Coordinates(0, 999_999)));
+        Path path = directory.resolve("board.bin");
+
+        BoardFile.write(board, path);
+        Board mapped = BoardFile.map(path);
+
+        assertEquals(board, mapped);
+        // header and the two sorted sections only, no grid
+        assertEquals(32 + 2 * 2 * Long.BYTES, Files.size(path));
+        assertTrue(mapped.checkCollision(new Coordinates(0, 999_999)));
+        assertFalse(mapped.checkCollision(new Coordinates(0, 0)));
+        assertEquals(999_999, mapped.distanceToObstacle(new Coordinates(0, 0), Direction.NORTH));
+    }
+
+    @Test
+    void emptyBoardRoundTrip() throws IOException {
+        Board board = new Board(3, 3, Set.of());
+        Path path = directory.resolve("board.bin");
+
+        BoardFile.write(board, path);
+
+        assertEquals(board, BoardFile.map(path));
+    }
+
+    @Test
+    void rejectInvalidFiles() throws IOException {
+        Path path = directory.resolve("board.bin");
+
+        Files.writeString(path, "{\"width\": 8, \"height\": 8, \"obstacles\": []}");
+        assertThrows(IOException.class, () -> BoardFile.map(path));
+
+        BoardFile.write(new Board(8, 8, Set.of(new Coordinates(1, 1))), path);
+        Files.write(path, Arrays.copyOf(Files.readAllBytes(path), 40));
+        assertThrows(IOException.class, () -> BoardFile.map(path));
+
+        // negative width in the header
+        BoardFile.write(new Board(8, 8, Set.of()), path);
+        var bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(8, -8);
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> BoardFile.map(path));
+    }
+}
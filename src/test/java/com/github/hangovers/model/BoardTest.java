@@ -0,0 +1,91 @@
+package com.github.hangovers.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void denseBoardUsesGrid() {
+        Board board = new Board(4, 4, Set.of(new Coordinates(1, 1), new Coordinates(3, 2)));
+
+        assertInstanceOf(GridObstacleSet.class, ObstacleSet.of(4, 4, board.packedObstacles()));
+        assertTrue(board.checkCollision(new Coordinates(1, 1)));
+        assertTrue(board.checkCollision(new Coordinates(3, 2)));
+        assertFalse(board.checkCollision(new Coordinates(2, 3)));
+    }
+
+    @Test
+    void sparseBoardUsesPackedHashSet() {
+        Board board = new Board(1_000_000, 1_000_000, Set.of(new Coordinates(999_999, 0), new Coordinates(0, 999_999)));
+
+        assertInstanceOf(PackedObstacleSet.class, ObstacleSet.of(1_000_000, 1_000_000, board.packedObstacles()));
+        assertTrue(board.checkCollision(new Coordinates(999_999, 0)));
+        assertTrue(board.checkCollision(new Coordinates(0, 999_999)));
+        assertFalse(board.checkCollision(new Coordinates(0, 0)));
+    }
+
+    @Test
+    void obstaclesAreSortedAndDistinct() {
+        Board board = Board.of(8, 8, new long[] {
+                Coordinates.pack(5, 1), Coordinates.pack(2, 2), Coordinates.pack(5, 1)
+        });
+
+        assertEquals(2, board.obstacleCount());
+        assertArrayEquals(new long[] {Coordinates.pack(2, 2), Coordinates.pack(5, 1)}, board.packedObstacles());
+    }
+
+    @Test
+    void obstaclesAreViewedAsCoordinates() {
+        var obstacles = Set.of(new Coordinates(5, 1), new Coordinates(2, 2));
+        Board board = new Board(8, 8, obstacles);
+
+        assertEquals(obstacles, board.obstacles());
+        assertTrue(board.obstacles().contains(new Coordinates(2, 2)));
+        assertFalse(board.obstacles().contains(new Coordinates(2, 5)));
+        assertThrows(UnsupportedOperationException.class, () -> board.obstacles().add(new Coordinates(0, 0)));
+    }
+
+    @Test
+    void deserializeObstaclesIntoPackedCoordinates() throws IOException {
+        Board board;
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("expected_board_response.json")) {
+            board = objectMapper.readValue(inputStream, Board.class);
+        }
+
+        assertEquals(10, board.width());
+        assertEquals(10, board.height());
+        assertEquals(20, board.obstacleCount());
+        assertTrue(board.checkCollision(new Coordinates(0, 8)));
+        assertTrue(board.checkCollision(new Coordinates(9, 1)));
+        assertFalse(board.checkCollision(new Coordinates(9, 2)));
+    }
+
+    @Test
+    void deserializeBoardWithoutObstacles() throws IOException {
+        Board board = objectMapper.readValue("{\"width\":5,\"height\":5}", Board.class);
+
+        assertEquals(0, board.obstacleCount());
+        assertFalse(board.checkCollision(new Coordinates(0, 0)));
+    }
+
+    @Test
+    void obstacleCoordinatesAreCoercedLikeTheRecord() throws IOException {
+        var json = "{\"width\": 8, \"height\": 8, \"obstacles\": [{\"x\": \"1\", \"y\": null}, {\"x\": 2.9, \"y\": 3}]}";
+
+        Board board = objectMapper.readValue(json, Board.class);
+
+        assertEquals(new Coordinates(1, 0), objectMapper.readValue("{\"x\": \"1\", \"y\": null}", Coordinates.class));
+        assertEquals(new Coordinates(2, 3), objectMapper.readValue("{\"x\": 2.9, \"y\": 3}", Coordinates.class));
+        assertEquals(new Board(8, 8, Set.of(new Coordinates(1, 0), new Coordinates(2, 3))), board);
+        assertThrows(IOException.class, () -> objectMapper.readValue(json.replace("\"1\"", "\"abc\""), Board.class));
+    }
+}
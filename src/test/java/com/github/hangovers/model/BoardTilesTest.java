@@ -0,0 +1,155 @@
+package com.github.hangovers.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardTilesTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tiledFileMatchesInMemoryBoard() throws IOException {
+        var random = new Random(42);
+        var obstacles = new HashSet<Coordinates>();
+        for (int i = 0; i < 300; i++) {
+            obstacles.add(new Coordinates(random.nextInt(500), random.nextInt(300)));
+        }
+        Board board = new Board(500, 300, obstacles);
+        // out of the board, left out of the file
+        obstacles.add(new Coordinates(600, 10));
+        Board tiled = Board.tiled(new BoardTiles(header(new Board(500, 300, obstacles), 64), fileSource(), 4));
+
+        assertEquals(board.obstacleBuffer(), tiled.obstacleBuffer());
+        assertEquals(board.obstacleCount(), tiled.obstacleCount());
+        for (int i = 0; i < 2000; i++) {
+            var cell = new Coordinates(random.nextInt(500), random.nextInt(300));
+            var direction = Direction.values()[random.nextInt(4)];
+            assertEquals(board.checkCollision(cell), tiled.checkCollision(cell), cell::toString);
+            assertEquals(board.distanceToObstacle(cell, direction), tiled.distanceToObstacle(cell, direction),
+                    () -> cell + " " + direction);
+        }
+    }
+
+    @Test
+    void cachedTilesAreBounded() {
+        var fetched = new ArrayList<String>();
+        var tiles = new BoardTiles(new TiledBoardFile.Header(1000, 10, 10, 100, 1, 0), (column, row) -> {
+            fetched.add(column + "," + row);
+            return CompletableFuture.completedFuture(new long[0]);
+        }, 3);
+        Board board = Board.tiled(tiles);
+
+        // every tile of the row, each one prefetching the next
+        assertEquals(Integer.MAX_VALUE, board.distanceToObstacle(new Coordinates(0, 0), Direction.EAST));
+        assertEquals(100, fetched.size());
+        assertEquals(3, tiles.cachedTiles());
+
+        // the most recent tiles are still cached, the first one was evicted
+        board.checkCollision(new Coordinates(995, 0));
+        assertEquals(100, fetched.size());
+        board.checkCollision(new Coordinates(5, 0));
+        assertEquals(101, fetched.size());
+        assertEquals(3, tiles.cachedTiles());
+    }
+
+    @Test
+    void walkStopsAtMaxDistanceAndPrefetchesNextTile() {
+        var fetched = new ArrayList<String>();
+        var tiles = new BoardTiles(new TiledBoardFile.Header(1000, 1000, 100, 10, 10, 0), (column, row) -> {
+            fetched.add(column + "," + row);
+            return CompletableFuture.completedFuture(new long[0]);
+        }, 16);
+        Board board = Board.tiled(tiles);
+
+        assertEquals(Integer.MAX_VALUE, board.distanceToObstacle(new Coordinates(150, 950), Direction.SOUTH, 100));
+        assertEquals(List.of("1,9", "1,8", "1,7"), fetched);
+    }
+
+    @Test
+    void tiledBoardsAreComparedWithoutFetchingTiles() {
+        var fetched = new ArrayList<String>();
+        TileSource source = (column, row) -> {
+            fetched.add(column + "," + row);
+            return CompletableFuture.completedFuture(new long[0]);
+        };
+        var header = new TiledBoardFile.Header(1000, 1000, 100, 10, 10, 0);
+        var tiles = new BoardTiles(header, source, 16);
+
+        assertEquals(Board.tiled(tiles), Board.tiled(tiles));
+        assertEquals(Board.tiled(tiles).hashCode(), Board.tiled(tiles).hashCode());
+        // without a location, tiles are only equal to themselves
+        assertNotEquals(Board.tiled(tiles), Board.tiled(new BoardTiles(header, source, 16)));
+        assertNotEquals(new Board(1000, 1000, Set.of()), Board.tiled(tiles));
+        assertTrue(fetched.isEmpty());
+    }
+
+    @Test
+    void failedFetchesAreRetried() {
+        var attempts = new int[1];
+        var tiles = new BoardTiles(new TiledBoardFile.Header(10, 10, 10, 1, 1, 1), (column, row) ->
+                attempts[0]++ == 0
+                        ? CompletableFuture.failedFuture(new IOException("Unavailable"))
+                        : CompletableFuture.completedFuture(new long[]{Coordinates.pack(3, 4)}), 2);
+        Board board = Board.tiled(tiles);
+
+        assertThrows(UncheckedIOException.class, () -> board.checkCollision(new Coordinates(3, 4)));
+        assertEquals(0, tiles.cachedTiles());
+        assertTrue(board.checkCollision(new Coordinates(3, 4)));
+        assertEquals(2, attempts[0]);
+    }
+
+    @Test
+    void invalidHeadersAreRejected() throws IOException {
+        Board board = new Board(10, 10, Set.of(new Coordinates(1, 1)));
+        var path = directory.resolve("board.tiles");
+        TiledBoardFile.write(board, 4, path);
+        var bytes = Files.readAllBytes(path);
+
+        assertThrows(IOException.class, () -> TiledBoardFile.Header.parse(Arrays.copyOf(bytes, 20)));
+        var corrupted = bytes.clone();
+        corrupted[0] = 0;
+        assertThrows(IOException.class, () -> TiledBoardFile.Header.parse(corrupted));
+        assertThrows(IllegalArgumentException.class, () -> TiledBoardFile.write(board, 0, path));
+        assertThrows(IllegalArgumentException.class, () -> new BoardTiles(TiledBoardFile.Header.parse(bytes), (c, r) -> null, 1));
+    }
+
+    private TiledBoardFile.Header header(Board board, int tileSize) throws IOException {
+        var path = directory.resolve("board.tiles");
+        TiledBoardFile.write(board, tileSize, path);
+        return TiledBoardFile.Header.parse(Files.readAllBytes(path));
+    }
+
+    /**
+     * Reads tiles from the file written by {@link #header(Board, int)}
+     */
+    private TileSource fileSource() throws IOException {
+        var bytes = Files.readAllBytes(directory.resolve("board.tiles"));
+        var header = TiledBoardFile.Header.parse(bytes);
+        var index = TiledBoardFile.decodeIndex(Arrays.copyOfRange(bytes, TiledBoardFile.HEADER_SIZE,
+                (int) header.indexPosition(header.tiles() + 1)));
+        return (column, row) -> {
+            var tile = row * header.columns() + column;
+            try {
+                return CompletableFuture.completedFuture(TiledBoardFile.decodeTile(
+                        Arrays.copyOfRange(bytes, (int) index[tile], (int) index[tile + 1]), column, row, header.tileSize()));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.hangovers.model;
+
+import com.github.hangovers.model.dto.Status;
+import com.github.hangovers.simulation.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutableBoardTest {
+
+    @Test
+    void changesArePublishedAsNewGenerations() {
+        var board = new MutableBoard(new Board(8, 8, Set.of(new Coordinates(2, 2))));
+        var first = board.snapshot();
+
+        var second = board.addObstacle(3, 3);
+        var third = board.removeObstacle(2, 2);
+
+        assertEquals(0, first.version());
+        assertEquals(1, second.version());
+        assertEquals(2, third.version());
+        assertSame(third, board.snapshot());
+        assertEquals(new Board(8, 8, Set.of(new Coordinates(2, 2))), first.board(), "Snapshots should never change");
+        assertEquals(new Board(8, 8, Set.of(new Coordinates(2, 2), new Coordinates(3, 3))), second.board());
+        assertEquals(new Board(8, 8, Set.of(new Coordinates(3, 3))), board.board());
+    }
+
+    @Test
+    void batchedChangesMakeOneGeneration() {
+        var board = new MutableBoard(new Board(8, 8, Set.of(new Coordinates(2, 2), new Coordinates(6, 6))));
+
+        var snapshot = board.update(changes -> changes
+                .addObstacle(1, 1)
+                .addObstacle(2, 2)
+                .removeObstacle(2, 2)
+                .removeObstacle(5, 5)
+                .resize(6, 4));
+
+        assertEquals(1, snapshot.version());
+        assertEquals(new Board(6, 4, Set.of(new Coordinates(1, 1))), snapshot.board(),
+                "Last change should win and obstacles out of the board should be dropped");
+        assertSame(snapshot, board.update(changes -> {}), "Empty batches should not publish a generation");
+        assertThrows(IllegalArgumentException.class, () -> board.resize(-1, 4));
+    }
+
+    @Test
+    void runningSimulationKeepsItsSnapshot() {
+        var board = new MutableBoard(new Board(8, 8, Set.of()));
+        var snapshot = board.board();
+
+        board.addObstacle(0, 3);
+
+        var commands = List.of("START 0,0,NORTH", "MOVE 5");
+        assertEquals(new Coordinates(0, 5), Simulation.run(snapshot, commands).position().getCoordinates());
+        assertEquals(new Coordinates(0, 2), Simulation.run(board.board(), commands).position().getCoordinates());
+        assertEquals(Status.SUCCESS, Simulation.run(board.board(), commands).status());
+    }
+
+    @Test
+    void concurrentWritersAndReaders() throws Exception {
+        var board = new MutableBoard(new Board(100, 100, Set.of()));
+        var writers = 4;
+        var writes = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        var done = new AtomicBoolean();
+        try {
+            // every generation adds exactly one obstacle, readers should always see a consistent one
+            List<Future<?>> readers = List.of(executor.submit(() -> read(board, done)), executor.submit(() -> read(board, done)));
+            var futures = new ArrayList<Future<?>>();
+            for (int writer = 0; writer < writers; writer++) {
+                var row = writer;
+                futures.add(executor.submit(() -> {
+                    for (int x = 0; x < writes; x++) board.addObstacle(x % 100, row * 3 + x / 100);
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+            done.set(true);
+            for (Future<?> reader : readers) reader.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(writers * writes, board.snapshot().version());
+        assertEquals(writers * writes, board.board().obstacleCount());
+    }
+
+    private static Void read(MutableBoard board, AtomicBoolean done) {
+        var last = -1L;
+        while (!done.get()) {
+            var snapshot = board.snapshot();
+            assertTrue(snapshot.version() >= last);
+            assertEquals(snapshot.version(), snapshot.board().obstacleCount());
+            last = snapshot.version();
+        }
+        return null;
+    }
+}
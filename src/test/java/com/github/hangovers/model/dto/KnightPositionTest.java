@@ -106,6 +106,36 @@ class KnightPositionTest {
     }
 
 
+    @Test
+    void moveOutOfBoundsStopsOnLastCell() {
+        KnightPosition position = new KnightPosition(new Coordinates(3, 0), Direction.EAST);
+
+        assertThrows(IOException.class, () -> position.move(10, board), "Out of bounds");
+        assertEquals(new Coordinates(7, 0), position.getCoordinates(), "Knight should reach the edge before going out of bounds");
+    }
+
+    @Test
+    void moveStopsAtObstacleBeforeEdge() throws IOException {
+        KnightPosition position = new KnightPosition(new Coordinates(2, 7), Direction.SOUTH);
+
+        position.move(100, board);
+
+        assertEquals(new Coordinates(2, 3), position.getCoordinates(), "Obstacle should stop the knight before the edge");
+    }
+
+    @Test
+    void moveLongSegment() throws IOException {
+        Board wideBoard = new Board(10_000_000, 3, Set.of(new Coordinates(9_000_000, 1)));
+
+        KnightPosition position = new KnightPosition(new Coordinates(0, 0), Direction.EAST);
+        position.move(5_000_000, wideBoard);
+        assertEquals(new Coordinates(5_000_000, 0), position.getCoordinates());
+
+        position = new KnightPosition(new Coordinates(0, 1), Direction.EAST);
+        position.move(Integer.MAX_VALUE, wideBoard);
+        assertEquals(new Coordinates(8_999_999, 1), position.getCoordinates());
+    }
+
     @Test
     void moveZeroSteps() throws IOException {
         Coordinates startCoords = new Coordinates(3, 3);
@@ -0,0 +1,141 @@
+package com.github.hangovers.query;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+import com.github.hangovers.simulation.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathFinderTest {
+
+    @Test
+    void shortestPathAroundObstacles() {
+        // (1, 0) blocks the straight way, the knight has to go around it
+        Board board = new Board(8, 8, Set.of(new Coordinates(1, 0)));
+        PathFinder pathFinder = new PathFinder(board);
+
+        List<String> commands = pathFinder.shortestPath(new Coordinates(0, 0), new Coordinates(2, 0));
+
+        assertEquals(3, pathFinder.moves(new Coordinates(0, 0), new Coordinates(2, 0)));
+        assertEquals(6, commands.size());
+        assertEquals("START 0,0,NORTH", commands.get(0));
+        Response response = Simulation.run(board, commands);
+        assertEquals(Status.SUCCESS, response.status());
+        assertEquals(new Coordinates(2, 0), response.position().getCoordinates());
+    }
+
+    @Test
+    void sameCell() {
+        Board board = new Board(8, 8, Set.of());
+        PathFinder pathFinder = new PathFinder(board);
+
+        assertEquals(0, pathFinder.moves(new Coordinates(3, 3), new Coordinates(3, 3)));
+        assertEquals(List.of("START 3,3,NORTH"), pathFinder.shortestPath(new Coordinates(3, 3), new Coordinates(3, 3)));
+    }
+
+    @Test
+    void unreachableTargets() {
+        // (0, 0) is walled in by (1, 0) and (0, 1)
+        Board board = new Board(8, 8, Set.of(new Coordinates(1, 0), new Coordinates(0, 1)));
+        PathFinder pathFinder = new PathFinder(board);
+
+        assertFalse(pathFinder.isReachable(new Coordinates(5, 5), new Coordinates(0, 0)));
+        assertNull(pathFinder.shortestPath(new Coordinates(5, 5), new Coordinates(0, 0)));
+        // obstacles and cells out of the board can't be reached
+        assertFalse(pathFinder.isReachable(new Coordinates(5, 5), new Coordinates(1, 0)));
+        assertFalse(pathFinder.isReachable(new Coordinates(5, 5), new Coordinates(8, 0)));
+        assertFalse(pathFinder.isReachable(new Coordinates(-1, 5), new Coordinates(5, 5)));
+        // cached field, same answers
+        assertFalse(pathFinder.isReachable(new Coordinates(2, 2), new Coordinates(0, 0)));
+        assertTrue(pathFinder.isReachable(new Coordinates(2, 2), new Coordinates(5, 5)));
+    }
+
+    @Test
+    void pathsMatchPlainBreadthFirstSearch() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int width = 1 + random.nextInt(40);
+            int height = 1 + random.nextInt(40);
+            boolean[][] obstacles = new boolean[width][height];
+            Set<Coordinates> coordinates = new HashSet<>();
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if (random.nextDouble() < 0.3) {
+                        obstacles[x][y] = true;
+                        coordinates.add(new Coordinates(x, y));
+                    }
+                }
+            }
+            Board board = new Board(width, height, coordinates);
+            // a small cache, so that fields get both created and reused
+            PathFinder pathFinder = new PathFinder(board, 2);
+
+            for (int query = 0; query < 40; query++) {
+                Coordinates from = new Coordinates(random.nextInt(width), random.nextInt(height));
+                Coordinates to = new Coordinates(random.nextInt(Math.min(width, 3)), random.nextInt(Math.min(height, 3)));
+                int expected = moves(obstacles, from, to);
+
+                assertEquals(expected, pathFinder.moves(from, to));
+
+                List<String> commands = pathFinder.shortestPath(from, to);
+                if (expected < 0) {
+                    assertNull(commands);
+                } else {
+                    // START, then MOVEs with a ROTATE between each of them
+                    assertEquals(Math.max(1, 2 * expected), commands.size());
+                    Response response = Simulation.run(board, commands);
+                    assertEquals(Status.SUCCESS, response.status());
+                    assertEquals(to, response.position().getCoordinates());
+                }
+            }
+        }
+    }
+
+    @Test
+    void boardWithoutSize() {
+        assertThrows(IllegalArgumentException.class, () -> new PathFinder(new Board(null, 8, Set.of())));
+    }
+
+    /**
+     * Breadth-first search sliding one cell at a time
+     */
+    private static int moves(boolean[][] obstacles, Coordinates from, Coordinates to) {
+        int width = obstacles.length;
+        int height = obstacles[0].length;
+        if (obstacles[from.x()][from.y()] || obstacles[to.x()][to.y()]) return -1;
+
+        int[][] distances = new int[width][height];
+        for (int[] column : distances) {
+            Arrays.fill(column, -1);
+        }
+        distances[from.x()][from.y()] = 0;
+        ArrayDeque<Coordinates> queue = new ArrayDeque<>(List.of(from));
+        int[][] steps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        while (!queue.isEmpty()) {
+            Coordinates cell = queue.poll();
+            for (int[] step : steps) {
+                int x = cell.x() + step[0];
+                int y = cell.y() + step[1];
+                while (x >= 0 && y >= 0 && x < width && y < height && !obstacles[x][y]) {
+                    if (distances[x][y] < 0) {
+                        distances[x][y] = distances[cell.x()][cell.y()] + 1;
+                        queue.add(new Coordinates(x, y));
+                    }
+                    x += step[0];
+                    y += step[1];
+                }
+            }
+        }
+        return distances[to.x()][to.y()];
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.hangovers.simulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.BoardTiles;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.TiledBoardFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSimulationTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Board board = new Board(8, 8, Set.of(new Coordinates(2, 2)));
+
+    @Test
+    void responsesKeepInputOrder() throws IOException {
+        var input = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            input.append("{\"commands\":[\"START 0,").append(i % 8).append(",EAST\",\"MOVE 7\"]}\n");
+        }
+
+        var output = new StringWriter();
+        var pool = new ForkJoinPool(4);
+        try {
+            new BatchSimulation(objectMapper, board, pool).run(new BufferedReader(new StringReader(input.toString())), output);
+        } finally {
+            pool.shutdown();
+        }
+
+        var lines = output.toString().split("\n");
+        assertEquals(1000, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            var expectedX = i % 8 == 2 ? 1 : 7;
+            assertEquals("{\"position\":{\"x\":" + expectedX + ",\"y\":" + (i % 8) + ",\"direction\":\"EAST\"},\"status\":\"SUCCESS\"}", lines[i]);
+        }
+    }
+
+    @Test
+    void tiledBoardsOnlyFetchTouchedTiles() throws IOException {
+        var fetched = ConcurrentHashMap.<String>newKeySet();
+        Board tiled = Board.tiled(new BoardTiles(new TiledBoardFile.Header(1000, 1000, 100, 10, 10, 0), (column, row) -> {
+            fetched.add(column + "," + row);
+            return CompletableFuture.completedFuture(new long[0]);
+        }, BoardTiles.DEFAULT_CACHED_TILES));
+        var input = """
+                {"commands":["START 150,950,SOUTH","MOVE 100"]}
+                {"commands":["START 150,950,SOUTH","MOVE 100"]}
+                {"commands":["START 150,950,SOUTH","MOVE 100","MOVE 1"]}
+                """;
+
+        var output = new StringWriter();
+        var pool = new ForkJoinPool(4);
+        try {
+            new BatchSimulation(objectMapper, tiled, pool).run(new BufferedReader(new StringReader(input)), output);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals("""
+                {"position":{"x":150,"y":850,"direction":"SOUTH"},"status":"SUCCESS"}
+                {"position":{"x":150,"y":850,"direction":"SOUTH"},"status":"SUCCESS"}
+                {"position":{"x":150,"y":849,"direction":"SOUTH"},"status":"SUCCESS"}
+                """, output.toString());
+        // the tiles walked by the knight and the one prefetched after them
+        assertEquals(Set.of("1,9", "1,8", "1,7"), fetched);
+    }
+
+    @Test
+    void failedSimulationsOnlyFailTheirLine() throws IOException {
+        // the first tile column can't be fetched
+        Board tiled = Board.tiled(new BoardTiles(new TiledBoardFile.Header(1000, 1000, 100, 10, 10, 0), (column, row) ->
+                column == 0
+                        ? CompletableFuture.failedFuture(new IOException("Unavailable"))
+                        : CompletableFuture.completedFuture(new long[0]), BoardTiles.DEFAULT_CACHED_TILES));
+        var input = """
+                {"commands":["START 50,500,NORTH","MOVE 1"]}
+                {"commands":["START 550,500,NORTH","MOVE 1"]}
+                """;
+
+        var output = new StringWriter();
+        new BatchSimulation(objectMapper, tiled, ForkJoinPool.commonPool()).run(new BufferedReader(new StringReader(input)), output);
+
+        assertEquals("""
+                {"status":"GENERIC_ERROR"}
+                {"position":{"x":550,"y":501,"direction":"NORTH"},"status":"SUCCESS"}
+                """, output.toString());
+    }
+
+    @Test
+    void malformedLinesGetGenericError() throws IOException {
+        var input = """
+                {"commands":["START 0,0,SOUTH","MOVE 1"]}
+
+                not json
+                {"commands":["START 0,0,NORTH"]}
+                """;
+
+        var output = new StringWriter();
+        new BatchSimulation(objectMapper, board, ForkJoinPool.commonPool()).run(new BufferedReader(new StringReader(input)), output);
+
+        assertEquals("""
+                {"status":"OUT_OF_THE_BOARD"}
+                {"status":"GENERIC_ERROR"}
+                {"position":{"x":0,"y":0,"direction":"NORTH"},"status":"SUCCESS"}
+                """, output.toString());
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandCompilerTest {
+
+    private final Board board = new Board(8, 8, Set.of(new Coordinates(2, 2)));
+
+    @Test
+    void compileValidCommands() {
+        CommandProgram program = CommandCompiler.compile(List.of("START 1,0,NORTH", "MOVE 3", "ROTATE EAST", "JUMP 2"));
+
+        assertNull(program.parseError());
+        assertEquals(4, program.size());
+        assertEquals(CommandProgram.START, program.opcode(0));
+        assertEquals(Direction.NORTH.ordinal(), program.operand(0));
+        assertEquals(1, program.startX());
+        assertEquals(0, program.startY());
+        assertEquals(CommandProgram.MOVE, program.opcode(1));
+        assertEquals(3, program.operand(1));
+        assertEquals(CommandProgram.ROTATE, program.opcode(2));
+        assertEquals(Direction.EAST.ordinal(), program.operand(2));
+        assertEquals(CommandProgram.NOP, program.opcode(3));
+    }
+
+    @Test
+    void compileReportsMalformedCommandIndex() {
+        CommandProgram program = CommandCompiler.compile(List.of("START 0,0,NORTH", "MOVE 1", "ROTATE UP", "MOVE x"));
+
+        assertNotNull(program.parseError());
+        assertEquals(2, program.parseError().index());
+        assertEquals(3, program.size(), "Compilation should stop at the first malformed command");
+        assertEquals(CommandProgram.FAIL, program.opcode(2));
+    }
+
+    @Test
+    void compileMalformedStart() {
+        assertEquals(0, CommandCompiler.compile(List.of("START 0,0")).parseError().index());
+        assertEquals(0, CommandCompiler.compile(List.of("MOVE 1")).parseError().index());
+        assertEquals(0, CommandCompiler.compile(List.of("START a,0,NORTH")).parseError().index());
+    }
+
+    @Test
+    void executeStopsBeforeUnreachedMalformedCommand() {
+        CommandProgram program = CommandCompiler.compile(List.of("START 0,0,SOUTH", "MOVE 1", "MOVE x"));
+
+        assertEquals(Status.OUT_OF_THE_BOARD, program.execute(board).status(),
+                "Malformed commands should only fail the simulation when they are reached");
+    }
+
+    @Test
+    void executeProgramMoreThanOnce() {
+        CommandProgram program = CommandCompiler.compile(List.of("START 0,2,EAST", "MOVE 5", "ROTATE NORTH", "MOVE 1"));
+        Board emptyBoard = new Board(8, 8, Set.of());
+
+        var blocked = program.execute(board);
+        var free = program.execute(emptyBoard);
+
+        assertEquals(new Coordinates(1, 3), blocked.position().getCoordinates());
+        assertEquals(new Coordinates(5, 3), free.position().getCoordinates());
+        assertEquals(new Coordinates(1, 3), program.execute(board).position().getCoordinates());
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandOptimizerTest {
+
+    @Test
+    void dropsRedundantCommands() {
+        CommandProgram program = CommandOptimizer.optimize(CommandCompiler.compile(List.of(
+                "START 0,0,NORTH", "MOVE 0", "ROTATE EAST", "ROTATE NORTH", "MOVE 2", "JUMP 1", "MOVE 3",
+                "ROTATE WEST", "ROTATE EAST", "MOVE -1", "MOVE 1", "ROTATE SOUTH")));
+
+        assertEquals(5, program.size());
+        assertEquals(7, program.eliminated());
+        assertEquals(CommandProgram.START, program.opcode(0));
+        assertEquals(CommandProgram.MOVE, program.opcode(1));
+        assertEquals(5, program.operand(1));
+        assertEquals(CommandProgram.ROTATE, program.opcode(2));
+        assertEquals(Direction.EAST.ordinal(), program.operand(2));
+        assertEquals(CommandProgram.MOVE, program.opcode(3));
+        assertEquals(1, program.operand(3));
+        assertEquals(CommandProgram.ROTATE, program.opcode(4));
+        assertEquals(Direction.SOUTH.ordinal(), program.operand(4));
+    }
+
+    @Test
+    void mergedMovesSaturate() {
+        CommandProgram program = CommandOptimizer.optimize(CommandCompiler.compile(List.of(
+                "START 0,0,EAST", "MOVE 2147483647", "MOVE 2147483647")));
+
+        assertEquals(2, program.size());
+        assertEquals(Integer.MAX_VALUE, program.operand(1));
+    }
+
+    @Test
+    void commandsAfterMalformedOneAreDropped() {
+        CommandProgram program = CommandOptimizer.optimize(CommandCompiler.compile(List.of(
+                "START 0,0,NORTH", "MOVE 1", "ROTATE UP", "MOVE 1")));
+
+        assertEquals(3, program.size());
+        assertEquals(CommandProgram.FAIL, program.opcode(2));
+        assertEquals(2, program.parseError().index());
+    }
+
+    @Test
+    void optimizedProgramsHaveTheSameOutcome() {
+        Random random = new Random(16);
+        String[] commands = {"MOVE", "ROTATE", "NOP"};
+        String[] directions = {"NORTH", "EAST", "SOUTH", "WEST"};
+        for (int round = 0; round < 2000; round++) {
+            int width = 1 + random.nextInt(12);
+            int height = 1 + random.nextInt(12);
+            Set<Coordinates> obstacles = new HashSet<>();
+            for (int i = random.nextInt(width * height / 3 + 1); i > 0; i--) {
+                obstacles.add(new Coordinates(random.nextInt(width), random.nextInt(height)));
+            }
+            Board board = new Board(width, height, obstacles);
+
+            List<String> list = new ArrayList<>();
+            list.add("START " + random.nextInt(width) + "," + random.nextInt(height) + "," + directions[random.nextInt(4)]);
+            for (int i = random.nextInt(30); i > 0; i--) {
+                list.add(switch (commands[random.nextInt(3)]) {
+                    case "MOVE" -> "MOVE " + (random.nextInt(100) == 0 ? "x" : random.nextInt(8) - 2);
+                    case "ROTATE" -> "ROTATE " + directions[random.nextInt(4)];
+                    default -> "JUMP 1";
+                });
+            }
+
+            CommandProgram program = CommandCompiler.compile(list);
+            CommandProgram optimized = CommandOptimizer.optimize(program);
+            Response expected = program.execute(board);
+            Response actual = optimized.execute(board);
+
+            assertEquals(program.size(), optimized.size() + optimized.eliminated());
+            assertEquals(expected.status(), actual.status(), list::toString);
+            if (expected.position() != null) {
+                assertEquals(expected.position().getCoordinates(), actual.position().getCoordinates(), list::toString);
+                assertEquals(expected.position().getDirection(), actual.position().getDirection(), list::toString);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetSimulationTest {
+
+    private final Board board = new Board(8, 8, Set.of(new Coordinates(2, 3)));
+
+    @Test
+    void knightsFollowCommandsInLockstep() {
+        FleetSimulation fleet = new FleetSimulation(board,
+                new int[] {0, 2, 7, 2, 9},
+                new int[] {0, 0, 7, 3, 0},
+                new Direction[] {Direction.NORTH, Direction.NORTH, Direction.EAST, Direction.NORTH, Direction.NORTH});
+
+        fleet.run(List.of("MOVE 5", "ROTATE EAST", "MOVE 1"));
+
+        assertEquals(5, fleet.size());
+        // free path
+        assertEquals(new Coordinates(1, 5), fleet.response(0).position().getCoordinates());
+        assertEquals(Direction.EAST, fleet.response(0).position().getDirection());
+        // stopped by the obstacle in (2, 3), then one step east
+        assertEquals(new Coordinates(3, 2), fleet.response(1).position().getCoordinates());
+        assertEquals(Status.OUT_OF_THE_BOARD, fleet.status(2));
+        assertEquals(Status.INVALID_START_POSITION, fleet.status(3));
+        assertEquals(Status.INVALID_START_POSITION, fleet.status(4));
+        assertNull(fleet.response(2).position());
+    }
+
+    @Test
+    void malformedCommandStopsRunningKnights() {
+        FleetSimulation fleet = new FleetSimulation(board,
+                new int[] {0, 7}, new int[] {0, 0}, new Direction[] {Direction.NORTH, Direction.EAST});
+
+        fleet.run(List.of("MOVE 1", "MOVE x", "MOVE 1"));
+
+        assertEquals(Status.GENERIC_ERROR, fleet.status(0));
+        // already out of the board before the malformed command
+        assertEquals(Status.OUT_OF_THE_BOARD, fleet.status(1));
+    }
+
+    @Test
+    void boardWithoutSize() {
+        FleetSimulation fleet = new FleetSimulation(new Board(null, 8, Set.of()),
+                new int[] {0}, new int[] {0}, new Direction[] {Direction.NORTH});
+
+        assertEquals(new Response(null, Status.GENERIC_ERROR), fleet.response(0));
+    }
+
+    @Test
+    void mismatchedStartArrays() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FleetSimulation(board, new int[2], new int[1], new Direction[2]));
+    }
+
+    @Test
+    void kernelsMatchSingleKnightSimulation() {
+        Random random = new Random(11);
+        String[] directions = {"NORTH", "EAST", "SOUTH", "WEST"};
+        for (int round = 0; round < 20; round++) {
+            int width = 1 + random.nextInt(round % 2 == 0 ? 500 : 30);
+            int height = 1 + random.nextInt(30);
+            Set<Coordinates> obstacles = new HashSet<>();
+            for (int i = random.nextInt(width * height / 4 + 1); i > 0; i--) {
+                obstacles.add(new Coordinates(random.nextInt(width), random.nextInt(height)));
+            }
+            Board randomBoard = new Board(width, height, obstacles);
+
+            // more knights than a chunk, so that the fleet gets split
+            int knights = FleetSimulation.CHUNK_SIZE + random.nextInt(100);
+            int[] startX = new int[knights];
+            int[] startY = new int[knights];
+            Direction[] startDirections = new Direction[knights];
+            for (int i = 0; i < knights; i++) {
+                startX[i] = random.nextInt(width + 2) - 1;
+                startY[i] = random.nextInt(height + 2) - 1;
+                startDirections[i] = Direction.values()[random.nextInt(4)];
+            }
+            List<String> commands = new ArrayList<>();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                commands.add(random.nextBoolean()
+                        ? "MOVE " + (random.nextInt(12) - 2)
+                        : "ROTATE " + directions[random.nextInt(4)]);
+            }
+
+            for (FleetKernel kernel : List.of(new ScalarFleetKernel(), FleetKernel.best())) {
+                FleetSimulation fleet = new FleetSimulation(randomBoard, startX, startY, startDirections, kernel);
+                fleet.run(commands);
+
+                for (int i = 0; i < knights; i++) {
+                    List<String> knightCommands = new ArrayList<>();
+                    knightCommands.add("START " + startX[i] + "," + startY[i] + "," + startDirections[i]);
+                    knightCommands.addAll(commands);
+                    Response expected = Simulation.run(randomBoard, knightCommands);
+                    Response actual = fleet.response(i);
+
+                    assertEquals(expected.status(), actual.status());
+                    if (expected.position() != null) {
+                        assertEquals(expected.position().getCoordinates(), actual.position().getCoordinates());
+                        assertEquals(expected.position().getDirection(), actual.position().getDirection());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ParallelEvaluatorTest {
+
+    // as if running on 8 cores, every program on a board of up to 256 cells is evaluated in parallel
+    private final ParallelEvaluator evaluator = new ParallelEvaluator(8, 1);
+
+    @Test
+    void segmentsStopAtObstaclesAndEdges() {
+        Board board = new Board(5, 5, Set.of(new Coordinates(2, 3), new Coordinates(4, 1)));
+
+        assertSameOutcome(board, List.of("START 2,0,NORTH", "MOVE 10", "ROTATE EAST", "MOVE 1", "ROTATE SOUTH", "MOVE 1"));
+        var response = evaluator.execute(CommandCompiler.compile(
+                List.of("START 2,0,NORTH", "MOVE 10", "ROTATE EAST", "MOVE 1", "MOVE 1")), board);
+        assertEquals(new Coordinates(4, 2), response.position().getCoordinates());
+        assertEquals(Direction.EAST, response.position().getDirection());
+
+        assertEquals(new Response(null, Status.OUT_OF_THE_BOARD), evaluator.execute(CommandCompiler.compile(
+                List.of("START 0,0,EAST", "MOVE 5", "ROTATE NORTH", "MOVE 1")), board));
+    }
+
+    @Test
+    void errorsMatchSequentialExecution() {
+        Board board = new Board(4, 4, Set.of(new Coordinates(1, 1)));
+
+        // malformed command reached on the board, or after leaving it
+        assertEquals(new Response(null, Status.GENERIC_ERROR), evaluator.execute(CommandCompiler.compile(
+                List.of("START 0,0,NORTH", "MOVE 2", "ROTATE EAST", "MOVE 1", "ROTATE UP")), board));
+        assertEquals(new Response(null, Status.OUT_OF_THE_BOARD), evaluator.execute(CommandCompiler.compile(
+                List.of("START 0,0,NORTH", "MOVE 9", "ROTATE UP")), board));
+        assertEquals(new Response(null, Status.INVALID_START_POSITION), evaluator.execute(CommandCompiler.compile(
+                List.of("START 1,1,NORTH", "MOVE 1")), board));
+        assertEquals(new Response(null, Status.GENERIC_ERROR), evaluator.execute(CommandCompiler.compile(
+                List.of("START 0,0,NORTH", "MOVE 1")), new Board(null, 4, Set.of())));
+    }
+
+    @Test
+    void randomProgramsMatchSequentialExecution() {
+        Random random = new Random(22);
+        String[] directions = {"NORTH", "EAST", "SOUTH", "WEST"};
+
+        for (int round = 0; round < 300; round++) {
+            var width = 1 + random.nextInt(12);
+            var height = 1 + random.nextInt(12);
+            Set<Coordinates> obstacles = new HashSet<>();
+            for (int i = random.nextInt(width * height / 4 + 1); i > 0; i--) {
+                obstacles.add(new Coordinates(random.nextInt(width), random.nextInt(height)));
+            }
+            Board board = new Board(width, height, obstacles);
+
+            List<String> commands = new ArrayList<>();
+            commands.add("START " + random.nextInt(width) + "," + random.nextInt(height) + "," + directions[random.nextInt(4)]);
+            // short moves and a mix of short and long programs, so that knights don't always leave the board
+            for (int i = random.nextInt(random.nextBoolean() ? 30 : 400); i > 0; i--) {
+                commands.add(random.nextInt(300) == 0 ? "MOVE x" : random.nextBoolean()
+                        ? "MOVE " + random.nextInt(3)
+                        : "ROTATE " + directions[random.nextInt(4)]);
+            }
+            assertSameOutcome(board, commands);
+        }
+    }
+
+    @Test
+    void largeBoardsFallBackToSequentialExecution() {
+        Board board = new Board(1000, 1000, Set.of(new Coordinates(3, 500)));
+        List<String> commands = List.of("START 3,0,NORTH", "MOVE 600", "ROTATE EAST", "MOVE 7");
+
+        assertSameOutcome(board, commands);
+        assertEquals(new Coordinates(10, 499), evaluator.execute(CommandCompiler.compile(commands), board)
+                .position().getCoordinates());
+    }
+
+    @Test
+    void cutoffComparesCellsTimesSegmentsWithTheProgram() {
+        var program = bouncing(1_000);
+
+        // 256 cells x 1000 segments is within 8 cores x 32 cells x 2001 commands, 4096 cells x 1000 segments isn't
+        assertTrue(evaluatedInParallel(evaluator, program, new Board(16, 16, Set.of())));
+        assertFalse(evaluatedInParallel(evaluator, program, new Board(64, 64, Set.of())));
+        assertFalse(evaluatedInParallel(new ParallelEvaluator(8, 4_000), program, new Board(16, 16, Set.of())));
+    }
+
+    @Test
+    void defaultEvaluatesLongProgramsOnSmallBoardsInParallel() {
+        assumeTrue(ForkJoinPool.getCommonPoolParallelism() > 1, "the default evaluator needs more than one core");
+        var program = bouncing(1 << 15);
+        Board board = new Board(8, 8, Set.of(new Coordinates(3, 3)));
+
+        assertTrue(evaluatedInParallel(ParallelEvaluator.DEFAULT, program, board));
+        var position = ParallelEvaluator.DEFAULT.execute(program, board).position();
+        assertEquals(new Coordinates(0, 0), position.getCoordinates());
+        assertEquals(Direction.SOUTH, position.getDirection());
+    }
+
+    // the parallel path doesn't update per-step counters
+    private static boolean evaluatedInParallel(ParallelEvaluator evaluator, CommandProgram program, Board board) {
+        var steps = Metrics.STEPS.get();
+        assertEquals(Status.SUCCESS, evaluator.execute(program, board).status());
+        return Metrics.STEPS.get() == steps;
+    }
+
+    private static CommandProgram bouncing(int moves) {
+        List<String> commands = new ArrayList<>();
+        commands.add("START 0,0,NORTH");
+        for (int i = 0; i < moves; i++) {
+            commands.add(i % 2 == 0 ? "ROTATE NORTH" : "ROTATE SOUTH");
+            commands.add("MOVE 1");
+        }
+        return CommandCompiler.compile(commands);
+    }
+
+    private void assertSameOutcome(Board board, List<String> commands) {
+        var program = CommandCompiler.compile(commands);
+        var expected = program.execute(board);
+        var actual = evaluator.execute(CommandOptimizer.optimize(program), board);
+        var unoptimized = evaluator.execute(program, board);
+
+        for (Response response : List.of(actual, unoptimized)) {
+            assertEquals(expected.status(), response.status(), commands::toString);
+            if (expected.position() != null) {
+                assertEquals(expected.position().getCoordinates(), response.position().getCoordinates(), commands::toString);
+                assertEquals(expected.position().getDirection(), response.position().getDirection(), commands::toString);
+            }
+        }
+    }
+}
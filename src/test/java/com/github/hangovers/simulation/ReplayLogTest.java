@@ -0,0 +1,140 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayLogTest {
+
+    private Board board;
+
+    @BeforeEach
+    void setUp() {
+        board = new Board(8, 8, Set.of(new Coordinates(2, 2)));
+    }
+
+    @Test
+    void positionAfterEachCommand() {
+        var log = new ReplayLog(board, 2);
+        assertTrue(log.appendAll(List.of("START 0,0,NORTH", "MOVE 2", "ROTATE EAST", "MOVE 5", "MOVE 1")));
+
+        assertEquals(5, log.size());
+        assertEquals(3, log.checkpoints());
+        assertPosition(new Coordinates(0, 0), Direction.NORTH, log.positionAt(0));
+        assertPosition(new Coordinates(0, 2), Direction.NORTH, log.positionAt(1));
+        assertPosition(new Coordinates(0, 2), Direction.EAST, log.positionAt(2));
+        assertPosition(new Coordinates(1, 2), Direction.EAST, log.positionAt(3));
+        assertPosition(new Coordinates(1, 2), Direction.EAST, log.result());
+        assertThrows(IndexOutOfBoundsException.class, () -> log.positionAt(5));
+    }
+
+    @Test
+    void positionQueriesLeaveMetricsAlone() {
+        var log = new ReplayLog(board, 2);
+        log.appendAll(List.of("START 0,0,NORTH", "MOVE 2", "ROTATE EAST", "MOVE 5", "MOVE 1", "MOVE 1"));
+        var steps = Metrics.STEPS.get();
+        var collisions = Metrics.COLLISIONS.get();
+
+        for (int i = 0; i < log.size(); i++) {
+            log.positionAt(i);
+        }
+
+        assertEquals(steps, Metrics.STEPS.get());
+        assertEquals(collisions, Metrics.COLLISIONS.get());
+    }
+
+    @Test
+    void appendResumesFromLastCommand() {
+        var log = new ReplayLog(board);
+        log.appendAll(List.of("START 0,0,NORTH", "MOVE 1"));
+        log.append("MOVE 3");
+
+        assertPosition(new Coordinates(0, 4), Direction.NORTH, log.result());
+        assertPosition(new Coordinates(0, 1), Direction.NORTH, log.positionAt(1));
+    }
+
+    @Test
+    void errorStopsTheLog() {
+        var log = new ReplayLog(board);
+        log.appendAll(List.of("START 0,0,SOUTH", "ROTATE EAST", "ROTATE SOUTH", "MOVE 1"));
+
+        assertFalse(log.append("ROTATE NORTH"), "Commands after an error should be rejected");
+        assertEquals(5, log.size());
+        assertPosition(new Coordinates(0, 0), Direction.SOUTH, log.positionAt(2));
+        assertEquals(new Response(null, Status.OUT_OF_THE_BOARD), log.positionAt(3));
+        assertEquals(new Response(null, Status.OUT_OF_THE_BOARD), log.positionAt(4));
+        assertEquals(new Response(null, Status.OUT_OF_THE_BOARD), log.result());
+    }
+
+    @Test
+    void invalidStartAndMalformedCommands() {
+        assertEquals(Status.GENERIC_ERROR, new ReplayLog(board).result().status());
+
+        var log = new ReplayLog(board);
+        log.append("START 2,2,NORTH");
+        assertEquals(Status.INVALID_START_POSITION, log.positionAt(0).status());
+
+        log = new ReplayLog(board);
+        log.appendAll(List.of("START 0,0,NORTH", "MOVE x", "MOVE 1"));
+        assertEquals(Status.SUCCESS, log.positionAt(0).status());
+        assertEquals(Status.GENERIC_ERROR, log.positionAt(1).status());
+        assertEquals(Status.GENERIC_ERROR, log.result().status());
+
+        assertThrows(IllegalArgumentException.class, () -> new ReplayLog(board, 0));
+    }
+
+    @Test
+    void matchesSimulationOfEachPrefix() {
+        var random = new Random(5);
+        String[] directions = {"NORTH", "EAST", "SOUTH", "WEST"};
+        for (int round = 0; round < 50; round++) {
+            var width = 1 + random.nextInt(20);
+            var height = 1 + random.nextInt(20);
+            Set<Coordinates> obstacles = new HashSet<>();
+            for (int i = random.nextInt(width * height / 4 + 1); i > 0; i--) {
+                obstacles.add(new Coordinates(random.nextInt(width), random.nextInt(height)));
+            }
+            var randomBoard = new Board(width, height, obstacles);
+
+            List<String> commands = new ArrayList<>();
+            commands.add("START " + random.nextInt(width) + "," + random.nextInt(height) + "," + directions[random.nextInt(4)]);
+            for (int i = random.nextInt(100); i > 0; i--) {
+                commands.add(random.nextBoolean()
+                        ? "MOVE " + random.nextInt(4)
+                        : "ROTATE " + directions[random.nextInt(4)]);
+            }
+
+            var log = new ReplayLog(randomBoard, 1 + random.nextInt(10));
+            for (int i = 0; i < commands.size(); i += 7) {
+                log.appendAll(commands.subList(i, Math.min(i + 7, commands.size())));
+            }
+            for (int i = 0; i < commands.size(); i++) {
+                var expected = Simulation.run(randomBoard, commands.subList(0, i + 1));
+                var actual = log.positionAt(i);
+                assertEquals(expected.status(), actual.status());
+                if (expected.position() != null) {
+                    assertPosition(expected.position().getCoordinates(), expected.position().getDirection(), actual);
+                }
+            }
+        }
+    }
+
+    private static void assertPosition(Coordinates coordinates, Direction direction, Response response) {
+        assertEquals(Status.SUCCESS, response.status());
+        assertEquals(coordinates, response.position().getCoordinates());
+        assertEquals(direction, response.position().getDirection());
+    }
+}
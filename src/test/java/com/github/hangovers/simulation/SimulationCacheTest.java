@@ -0,0 +1,161 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.metrics.Metrics;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.BoardFile;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Response;
+import com.github.hangovers.model.dto.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationCacheTest {
+
+    private final Board board = new Board(8, 8, Set.of(new Coordinates(2, 2)));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void repeatedListsAreAnsweredByTheCache() {
+        var cache = new SimulationCache();
+
+        var first = cache.run(board, List.of("START 0,0,NORTH", "MOVE 2", "ROTATE EAST", "MOVE 5"));
+        first.position().rotate(Direction.WEST);
+        var second = cache.run(board, List.of("START 0,0,NORTH", "MOVE 02", "ROTATE EAST", "MOVE 5"));
+
+        assertEquals(new Coordinates(1, 2), second.position().getCoordinates());
+        assertEquals(Direction.EAST, second.position().getDirection(), "Cached positions should not be shared");
+        assertEquals(new SimulationCache.Stats(1, 0, 1, 0, 1, 5), cache.stats());
+    }
+
+    @Test
+    void eliminatedCommandsAreOnlyCountedForExecutedLists() {
+        var cache = new SimulationCache();
+        var commands = List.of("START 0,0,NORTH", "ROTATE EAST", "ROTATE NORTH", "MOVE 1", "MOVE 1");
+        var eliminated = CommandOptimizer.optimize(CommandCompiler.compile(commands)).eliminated();
+        var before = Metrics.ELIMINATED_COMMANDS.get();
+
+        cache.run(board, commands);
+        cache.run(board, commands);
+
+        assertTrue(eliminated > 0);
+        assertEquals(eliminated, Metrics.ELIMINATED_COMMANDS.get() - before);
+    }
+
+    @Test
+    void longerListsResumeFromCachedPrefix() {
+        var cache = new SimulationCache();
+
+        cache.run(board, List.of("START 0,0,NORTH", "MOVE 2"));
+        var response = cache.run(board, List.of("START 0,0,NORTH", "MOVE 2", "ROTATE EAST", "MOVE 5"));
+        cache.run(board, List.of("START 0,0,SOUTH", "MOVE 1"));
+        var stopped = cache.run(board, List.of("START 0,0,SOUTH", "MOVE 1", "MOVE 1"));
+
+        assertEquals(new Coordinates(1, 2), response.position().getCoordinates());
+        assertEquals(new Response(null, Status.OUT_OF_THE_BOARD), stopped);
+        assertEquals(2, cache.stats().prefixHits());
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void boardsAreNotShared() {
+        var cache = new SimulationCache();
+        var commands = List.of("START 0,0,EAST", "MOVE 5");
+
+        cache.run(new Board(8, 8, Set.of()), commands);
+        var response = cache.run(new Board(8, 8, Set.of(new Coordinates(3, 0))), commands);
+
+        assertEquals(new Coordinates(2, 0), response.position().getCoordinates());
+        assertEquals(0, cache.stats().hits());
+        assertEquals(Status.GENERIC_ERROR, cache.run(null, commands).status());
+    }
+
+    @Test
+    void mappedBoardsShareResultsWithEqualBoards() throws Exception {
+        var cache = new SimulationCache();
+        var commands = List.of("START 0,0,NORTH", "MOVE 2", "ROTATE EAST", "MOVE 5");
+        var file = directory.resolve("board.bin");
+        BoardFile.write(board, file);
+
+        cache.run(board, commands);
+        var response = cache.run(BoardFile.map(file), commands);
+
+        assertEquals(new Coordinates(1, 2), response.position().getCoordinates());
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void sizeAndWeightAreBounded() {
+        var cache = new SimulationCache(100, 1_000);
+        var popular = List.of("START 0,0,NORTH", "MOVE 1");
+
+        for (int i = 0; i < 2_000; i++) {
+            cache.run(board, popular);
+            cache.run(board, List.of("START 0,0,NORTH", "MOVE " + (i + 2), "ROTATE EAST", "MOVE 1", "ROTATE NORTH"));
+            var stats = cache.stats();
+            assertTrue(stats.size() <= 100);
+            assertTrue(stats.weight() <= 1_000);
+        }
+
+        var hits = cache.stats().hits();
+        cache.run(board, popular);
+        assertEquals(hits + 1, cache.stats().hits(), "Frequently requested results should survive one-off ones");
+        assertTrue(cache.stats().evictions() > 0);
+        assertThrows(IllegalArgumentException.class, () -> new SimulationCache(0, 1));
+    }
+
+    @Test
+    void matchesSimulation() {
+        var random = new Random(18);
+        String[] directions = {"NORTH", "EAST", "SOUTH", "WEST"};
+        var cache = new SimulationCache(50, 2_000);
+        for (int round = 0; round < 20; round++) {
+            var width = 1 + random.nextInt(15);
+            var height = 1 + random.nextInt(15);
+            Set<Coordinates> obstacles = new HashSet<>();
+            for (int i = random.nextInt(width * height / 3 + 1); i > 0; i--) {
+                obstacles.add(new Coordinates(random.nextInt(width), random.nextInt(height)));
+            }
+            var randomBoard = new Board(width, height, obstacles);
+
+            List<List<String>> lists = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                List<String> commands = new ArrayList<>();
+                if (!lists.isEmpty() && random.nextBoolean()) {
+                    // extension of a previous list
+                    var previous = lists.get(random.nextInt(lists.size()));
+                    commands.addAll(previous.subList(0, random.nextInt(previous.size() + 1)));
+                } else {
+                    commands.add("START " + random.nextInt(width) + "," + random.nextInt(height) + "," + directions[random.nextInt(4)]);
+                }
+                for (int j = random.nextInt(10); j > 0; j--) {
+                    commands.add(random.nextInt(50) == 0 ? "MOVE x" : random.nextBoolean()
+                            ? "MOVE " + random.nextInt(4)
+                            : "ROTATE " + directions[random.nextInt(4)]);
+                }
+                lists.add(commands);
+
+                var expected = Simulation.run(randomBoard, commands);
+                var actual = cache.run(randomBoard, commands);
+                assertEquals(expected.status(), actual.status(), commands::toString);
+                if (expected.position() != null) {
+                    assertEquals(expected.position().getCoordinates(), actual.position().getCoordinates(), commands::toString);
+                    assertEquals(expected.position().getDirection(), actual.position().getDirection(), commands::toString);
+                }
+            }
+        }
+        assertTrue(cache.stats().hits() > 0);
+        assertTrue(cache.stats().prefixHits() > 0);
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.hangovers.simulation;
+
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationTest {
+
+    private Board board;
+
+    @BeforeEach
+    void setUp() {
+        board = new Board(8, 8, Set.of(new Coordinates(2, 2)));
+    }
+
+    @Test
+    void runValidSequence() {
+        var response = Simulation.run(board, List.of("START 0,0,NORTH", "MOVE 2", "ROTATE EAST", "MOVE 5"));
+
+        assertEquals(Status.SUCCESS, response.status());
+        assertEquals(new Coordinates(1, 2), response.position().getCoordinates());
+        assertEquals(Direction.EAST, response.position().getDirection());
+    }
+
+    @Test
+    void runOutOfBoundsStopsSimulation() {
+        var simulation = new Simulation(board);
+
+        assertTrue(simulation.accept("START 0,0,SOUTH"));
+        assertFalse(simulation.accept("MOVE 1"));
+        assertFalse(simulation.accept("ROTATE NORTH"), "Commands after an error should be rejected");
+        assertEquals(Status.OUT_OF_THE_BOARD, simulation.result().status());
+        assertNull(simulation.result().position());
+    }
+
+    @Test
+    void runInvalidStartPosition() {
+        assertEquals(Status.INVALID_START_POSITION, Simulation.run(board, List.of("START 2,2,NORTH")).status());
+        assertEquals(Status.INVALID_START_POSITION, Simulation.run(board, List.of("START 8,0,NORTH")).status());
+    }
+
+    @Test
+    void runMalformedCommands() {
+        assertEquals(Status.GENERIC_ERROR, Simulation.run(board, List.of("MOVE 1")).status());
+        assertEquals(Status.GENERIC_ERROR, Simulation.run(board, List.of("START 0,0")).status());
+        assertEquals(Status.GENERIC_ERROR, Simulation.run(board, List.of("START 0,0,NORTH", "MOVE x")).status());
+        assertEquals(Status.GENERIC_ERROR, Simulation.run(board, List.of("START 0,0,NORTH", "ROTATE UP")).status());
+        assertEquals(Status.GENERIC_ERROR, Simulation.run(board, List.of()).status());
+        assertEquals(Status.GENERIC_ERROR, Simulation.run(null, List.of("START 0,0,NORTH")).status());
+    }
+}
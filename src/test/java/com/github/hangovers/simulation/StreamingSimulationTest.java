@@ -0,0 +1,64 @@
+package com.github.hangovers.simulation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Status;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingSimulationTest {
+
+    private final StreamingSimulation streamingSimulation = new StreamingSimulation(new JsonFactory());
+    private final Board board = new Board(8, 8, Set.of(new Coordinates(2, 2)));
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void runCommandsDocument() throws IOException {
+        var response = streamingSimulation.run(board, json("""
+                {"other": {"ignored": [1, 2]}, "commands": ["START 0,2,NORTH", "ROTATE EAST", "MOVE 3"]}
+                """));
+
+        assertEquals(Status.SUCCESS, response.status());
+        assertEquals(new Coordinates(1, 2), response.position().getCoordinates());
+        assertEquals(Direction.EAST, response.position().getDirection());
+    }
+
+    @Test
+    void runStopsReadingAtFirstError() throws IOException {
+        // the document is broken after the error, it must not be read
+        var document = new SequenceInputStream(
+                json("{\"commands\": [\"START 0,0,SOUTH\", \"MOVE 1\", "),
+                new InputStream() {
+                    @Override
+                    public int read() {
+                        throw new AssertionError("Stream should not be read after the error");
+                    }
+                });
+
+        assertEquals(Status.OUT_OF_THE_BOARD, streamingSimulation.run(board, document).status());
+    }
+
+    @Test
+    void runMissingCommands() throws IOException {
+        assertEquals(Status.GENERIC_ERROR, streamingSimulation.run(board, json("{}")).status());
+    }
+
+    @Test
+    void runMalformedDocument() {
+        assertThrows(IOException.class, () -> streamingSimulation.run(board, json("[\"START 0,0,NORTH\"]")));
+        assertThrows(IOException.class, () -> streamingSimulation.run(board, json("{\"commands\": [[\"START 0,0,NORTH\"]]}")));
+    }
+}
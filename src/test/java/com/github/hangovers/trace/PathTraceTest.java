@@ -0,0 +1,99 @@
+package com.github.hangovers.trace;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.github.hangovers.model.Board;
+import com.github.hangovers.model.Coordinates;
+import com.github.hangovers.model.Direction;
+import com.github.hangovers.model.dto.Status;
+import com.github.hangovers.simulation.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathTraceTest {
+
+    private final Board board = new Board(8, 8, Set.of(new Coordinates(2, 2)));
+
+    @Test
+    void segmentsFollowTheKnight() throws IOException {
+        var bytes = trace(List.of("START 0,2,EAST", "MOVE 5", "MOVE 1", "MOVE 0", "ROTATE NORTH", "MOVE 3", "ROTATE WEST", "MOVE 4"));
+
+        assertEquals(List.of(
+                new PathTraceReader.Segment(0, 2, Direction.EAST, 1, StopReason.OBSTACLE),
+                new PathTraceReader.Segment(1, 2, Direction.EAST, 0, StopReason.OBSTACLE),
+                new PathTraceReader.Segment(1, 2, Direction.NORTH, 3, StopReason.COMPLETED),
+                new PathTraceReader.Segment(1, 5, Direction.WEST, 1, StopReason.OUT_OF_THE_BOARD)), read(bytes));
+        // header and 4 bytes for each segment
+        assertEquals(5 + 4 * 4, bytes.length);
+    }
+
+    @Test
+    void longSegmentsAndJumps() throws IOException {
+        var output = new ByteArrayOutputStream();
+        try (var writer = new PathTraceWriter(output)) {
+            for (int i = 0; i < 10_000; i++) {
+                writer.segment(i, -i, Direction.values()[i % 4], Integer.MAX_VALUE - i, StopReason.values()[i % 3]);
+            }
+        }
+
+        try (var reader = new PathTraceReader(new ByteArrayInputStream(output.toByteArray()))) {
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(new PathTraceReader.Segment(i, -i, Direction.values()[i % 4], Integer.MAX_VALUE - i,
+                        StopReason.values()[i % 3]), reader.next());
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void exportJson() throws IOException {
+        var bytes = trace(List.of("START 0,0,NORTH", "MOVE 2", "ROTATE EAST", "MOVE 1"));
+        var json = new ByteArrayOutputStream();
+
+        PathTraceReader.exportJson(new ByteArrayInputStream(bytes), json, new JsonFactory());
+
+        assertEquals("{\"segments\":["
+                + "{\"x\":0,\"y\":0,\"direction\":\"NORTH\",\"length\":2,\"stop\":\"COMPLETED\"},"
+                + "{\"x\":0,\"y\":2,\"direction\":\"EAST\",\"length\":1,\"stop\":\"COMPLETED\"}]}",
+                json.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void invalidTraces() {
+        assertThrows(IOException.class, () -> new PathTraceReader(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5})));
+        assertThrows(IOException.class, () -> new PathTraceReader(new ByteArrayInputStream(new byte[0])));
+
+        var truncated = trace(List.of("START 0,0,NORTH", "MOVE 200"));
+        assertThrows(IOException.class, () -> read(Arrays.copyOf(truncated, truncated.length - 1)));
+    }
+
+    private byte[] trace(List<String> commands) {
+        var output = new ByteArrayOutputStream();
+        try (var writer = new PathTraceWriter(output)) {
+            var simulation = new Simulation(board, writer);
+            commands.forEach(simulation::accept);
+            assertNotEquals(Status.GENERIC_ERROR, simulation.result().status());
+        } catch (IOException e) {
+            fail(e);
+        }
+        return output.toByteArray();
+    }
+
+    private static List<PathTraceReader.Segment> read(byte[] bytes) throws IOException {
+        List<PathTraceReader.Segment> segments = new ArrayList<>();
+        try (var reader = new PathTraceReader(new ByteArrayInputStream(bytes))) {
+            PathTraceReader.Segment segment;
+            while ((segment = reader.next()) != null) segments.add(segment);
+        }
+        return segments;
+    }
+}